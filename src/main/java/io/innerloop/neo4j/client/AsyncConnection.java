@@ -0,0 +1,69 @@
+package io.innerloop.neo4j.client;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A non-blocking counterpart to {@link Connection}. Flushes, commits and rollbacks are sent without blocking the
+ * calling thread and return a CompletableFuture that completes once Neo4J has responded.
+ * <p>
+ * Unlike Connection an AsyncConnection is not bound to a thread. Operations are applied in the order they are called,
+ * each waiting for the previous one to complete, so callers may issue a flushAsync() followed immediately by a
+ * commitAsync() without waiting in between. If an operation fails every operation queued after it fails with the same
+ * error, except for rollbackAsync() which is always attempted.
+ * <p>
+ * Futures complete exceptionally with a {@link Neo4jServerException} or {@link Neo4jServerMultiException} if Neo4J
+ * reports errors and a {@link Neo4jClientException} for anything else. Result decoding and dependent stages run on the
+ * client's I/O threads so callbacks should not block; use the async variants of CompletableFuture with your own
+ * executor for any long running work.
+ * <p>
+ * Over https requests can't be sent with non-blocking I/O, so each one is sent from one of a small pool of threads
+ * instead. The calling thread is still never blocked, but every request in flight holds one of those threads.
+ */
+public interface AsyncConnection
+{
+    /**
+     * Adds the given statement to execute within this AsyncConnection. Statements are sent with the next call to
+     * flushAsync() or commitAsync().
+     *
+     * @param statement
+     *         A statement that should be added to this AsyncConnection.
+     */
+    void add(Statement statement);
+
+    /**
+     * Retrieves the Statements that will be sent with the next flushAsync() or commitAsync().
+     *
+     * @return A list of statements scheduled to be executed.
+     */
+    List<Statement> getStatements();
+
+    /**
+     * Retrieves when this AsyncConnection will expire, as of the last completed flush.
+     *
+     * @return A date time specifying when this AsyncConnection will expire or null if nothing has been flushed yet.
+     */
+    OffsetDateTime getExpiry();
+
+    /**
+     * Sends the Statements currently held by this AsyncConnection to Neo4J, leaving the transaction open.
+     *
+     * @return A future completed with the flushed Statements, their results available.
+     */
+    CompletableFuture<List<Statement>> flushAsync();
+
+    /**
+     * Sends any remaining Statements and commits this AsyncConnection to Neo4J.
+     *
+     * @return A future completed with the committed Statements, their results available.
+     */
+    CompletableFuture<List<Statement>> commitAsync();
+
+    /**
+     * Rolls back any changes made by this AsyncConnection. This is attempted even if a previous operation failed.
+     *
+     * @return A future completed once the transaction has been rolled back.
+     */
+    CompletableFuture<Void> rollbackAsync();
+}
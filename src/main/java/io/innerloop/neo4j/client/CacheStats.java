@@ -0,0 +1,96 @@
+package io.innerloop.neo4j.client;
+
+/**
+ * A point in time snapshot of the usage of a client side cache.
+ *
+ * @see io.innerloop.neo4j.client.Neo4jClient#enableResultCache(int, long, java.util.concurrent.TimeUnit)
+ * @see io.innerloop.neo4j.client.Neo4jClient#enableEntityCache(int, long, java.util.concurrent.TimeUnit)
+ */
+public class CacheStats
+{
+    private final int size;
+
+    private final long hits;
+
+    private final long misses;
+
+    private final long evictions;
+
+    private final long expirations;
+
+    private final long invalidations;
+
+    CacheStats(int size, long hits, long misses, long evictions, long expirations, long invalidations)
+    {
+        this.size = size;
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.expirations = expirations;
+        this.invalidations = invalidations;
+    }
+
+    /**
+     * @return The number of entries currently cached.
+     */
+    public int getSize()
+    {
+        return size;
+    }
+
+    /**
+     * @return The total number of lookups answered from the cache.
+     */
+    public long getHits()
+    {
+        return hits;
+    }
+
+    /**
+     * @return The total number of lookups that had to go to the server.
+     */
+    public long getMisses()
+    {
+        return misses;
+    }
+
+    /**
+     * @return The total number of entries dropped to make room for newer ones.
+     */
+    public long getEvictions()
+    {
+        return evictions;
+    }
+
+    /**
+     * @return The total number of entries dropped because their time to live had passed.
+     */
+    public long getExpirations()
+    {
+        return expirations;
+    }
+
+    /**
+     * @return The total number of entries dropped because a write touched one of their tags.
+     */
+    public long getInvalidations()
+    {
+        return invalidations;
+    }
+
+    /**
+     * @return The fraction of lookups answered from the cache, or 0 if there have been none.
+     */
+    public double getHitRate()
+    {
+        long requests = hits + misses;
+        return requests == 0 ? 0 : (double) hits / requests;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "CacheStats{size=" + size + ", hits=" + hits + ", misses=" + misses + ", evictions=" + evictions +
+               ", expirations=" + expirations + ", invalidations=" + invalidations + "}";
+    }
+}
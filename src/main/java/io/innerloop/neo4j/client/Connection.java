@@ -8,8 +8,15 @@ import java.util.List;
  * even reads. Thus all reads are always READ COMMITTED.
  * <p>
  * Connections can support the execution of multiple statements. Statements are executed in order of insertion.
+ * <p>
+ * A Connection is finished once it has been committed, rolled back or closed and cannot be used again. Closing a
+ * Connection that has not been committed rolls it back, so Connections can be used with try-with-resources.
+ * <p>
+ * setAutoFlush, setPipelined, setIdentityMap and close were added after the first release. They have defaults so that
+ * existing implementations still compile: the three settings are only optimisations and are ignored, and close() does
+ * nothing, so such Connections must still be committed or rolled back explicitly.
  */
-public interface Connection
+public interface Connection extends AutoCloseable
 {
     /**
      * Adds the given statement to execute within this Connection. This method can be called multiple times with
@@ -38,7 +45,9 @@ public interface Connection
 
     /**
      * Extends the life of this Connection. Can be used in conjunction with getExpiry() in a daemon thread to
-     * monitor expiry. TODO: NOT CURRENTLY THREADSAFE
+     * monitor expiry. This may be called from a different thread to the one using the Connection, it will wait for any
+     * request in progress to finish. The REST implementation can also do this automatically, see
+     * RestConnectionFactoryImpl#enableTransactionKeepAlive.
      */
     void resetExpiry();
 
@@ -59,6 +68,59 @@ public interface Connection
      */
     void flush();
 
+    /**
+     * Bounds how much work this Connection holds before sending it. Once either threshold is reached add(Statement)
+     * calls flush() itself, inside the open transaction, so bulk writes never build an unbounded request. Flushes
+     * triggered this way behave exactly like an explicit flush(), including any errors they throw.
+     *
+     * @param maxStatements
+     *         Flush once this many statements are pending, or 0 for no limit.
+     * @param maxBytes
+     *         Flush once the pending statements are estimated to serialise to this many bytes, or 0 for no limit.
+     */
+    default void setAutoFlush(int maxStatements, long maxBytes)
+    {
+    }
+
+    /**
+     * Turns pipelined flushing on or off. When pipelined, flush() returns as soon as its statements have been sent
+     * rather than waiting for their results, so the next batch can be built while Neo4J executes this one and this
+     * batch's response is decoded while Neo4J executes the next. This keeps the server busy during bulk loads.
+     * <p>
+     * Results, and any errors, for a pipelined flush become available once the following flush(), commit(),
+     * resetExpiry() or rollback() returns. The first flush of a transaction is never pipelined as it has to wait for
+     * Neo4J to allocate the transaction.
+     * <p>
+     * As a consequence an error in one batch is only thrown by the flush() that sends the next batch, and by then that
+     * batch has already gone to a transaction Neo4J rolled back when the error occurred. The exception thrown is the
+     * one for the failed batch, but nothing flushed after it was applied either.
+     * <p>
+     * Pipelining needs a plain http url. Over https each flush waits for its results as if pipelining were off.
+     *
+     * @param pipelined
+     *         true to pipeline flushes, false to wait for the results of each flush (the default).
+     */
+    default void setPipelined(boolean pipelined)
+    {
+    }
+
+    /**
+     * Turns the identity map on or off. While on, every Node and Relationship returned by this Connection's graph
+     * statements is resolved to a single instance per Neo4J id, across statements and flushes. An entity that has
+     * already been returned is reused as is, its JSON skipped rather than decoded again, which saves memory and time
+     * when statements return overlapping subgraphs. Like the transaction, the map lives until this Connection is
+     * finished.
+     * <p>
+     * A reused entity reflects the entity when it was first returned, so changes the transaction made to it since then
+     * are not seen.
+     *
+     * @param enabled
+     *         true to share entities across statements, false to decode each one afresh (the default).
+     */
+    default void setIdentityMap(boolean enabled)
+    {
+    }
+
     /**
      * Commits this Connection to Neo4J.
      *
@@ -78,4 +140,16 @@ public interface Connection
      *         to know for sure).
      */
     void rollback();
+
+    /**
+     * Rolls back this Connection if it has not already been committed or rolled back and releases it. Does nothing if
+     * the Connection is already finished.
+     *
+     * @throws Neo4jClientException
+     *         If the rollback fails.
+     */
+    @Override
+    default void close()
+    {
+    }
 }
@@ -0,0 +1,460 @@
+package io.innerloop.neo4j.client;
+
+import java.util.Arrays;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.IntConsumer;
+
+/**
+ * A compressed sparse row (CSR) copy of a Graph for running graph algorithms over plain arrays.
+ * <p>
+ * Nodes are numbered densely from 0 to getNodeCount() - 1; getNodeId(int) and indexOf(long) translate between these
+ * indices and Neo4J ids. The edges leaving node <code>i</code> are <code>targets[offsets[i]]</code> up to (but not
+ * including) <code>targets[offsets[i + 1]]</code>. If relationship types were requested <code>types</code> holds, for
+ * each edge, an index into getTypeNames().
+ * <p>
+ * Edges are directed from start node to end node. Use transpose() to follow them backwards or undirected() to follow
+ * them both ways. Relationships to nodes that were not part of the Graph are left out.
+ * <p>
+ * bfs(int), connectedComponents() and inDegrees() split their work over the common ForkJoinPool.
+ *
+ * @see io.innerloop.neo4j.client.Graph#toCsr(boolean)
+ */
+public class CsrGraph
+{
+    private static final int THRESHOLD = 4096;
+
+    private final long[] nodeIds;
+
+    private final LongIntHashMap index;
+
+    private final int[] offsets;
+
+    private final int[] targets;
+
+    private final String[] typeNames;
+
+    private final int[] types;
+
+    CsrGraph(long[] nodeIds, LongIntHashMap index, int[] offsets, int[] targets, String[] typeNames, int[] types)
+    {
+        this.nodeIds = nodeIds;
+        this.index = index;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.typeNames = typeNames;
+        this.types = types;
+    }
+
+    /**
+     * @return The number of nodes.
+     */
+    public int getNodeCount()
+    {
+        return nodeIds.length;
+    }
+
+    /**
+     * @return The number of edges.
+     */
+    public int getEdgeCount()
+    {
+        return targets.length;
+    }
+
+    /**
+     * Translates a dense node index to the Neo4J id of the Node.
+     *
+     * @param index
+     *         The node index.
+     *
+     * @return The Neo4J id.
+     */
+    public long getNodeId(int index)
+    {
+        return nodeIds[index];
+    }
+
+    /**
+     * Translates a Neo4J id to the dense node index.
+     *
+     * @param nodeId
+     *         The Neo4J id of the Node.
+     *
+     * @return The node index or -1 if the Node is not in this graph.
+     */
+    public int indexOf(long nodeId)
+    {
+        return index.get(nodeId);
+    }
+
+    /**
+     * The offsets of each node's edges in getTargets(). The array has getNodeCount() + 1 entries and must not be
+     * modified.
+     *
+     * @return The offsets array.
+     */
+    public int[] getOffsets()
+    {
+        return offsets;
+    }
+
+    /**
+     * The node index at the end of each edge. The array must not be modified.
+     *
+     * @return The targets array.
+     */
+    public int[] getTargets()
+    {
+        return targets;
+    }
+
+    /**
+     * The relationship type of each edge as an index into getTypeNames(). The array must not be modified.
+     *
+     * @return The types array or null if types were not requested.
+     */
+    public int[] getTypes()
+    {
+        return types;
+    }
+
+    /**
+     * @return The distinct relationship types, or null if types were not requested.
+     */
+    public String[] getTypeNames()
+    {
+        return typeNames;
+    }
+
+    /**
+     * @return The number of edges leaving each node.
+     */
+    public int[] outDegrees()
+    {
+        int[] degrees = new int[nodeIds.length];
+        for (int i = 0; i < degrees.length; i++)
+        {
+            degrees[i] = offsets[i + 1] - offsets[i];
+        }
+        return degrees;
+    }
+
+    /**
+     * @return The number of edges arriving at each node.
+     */
+    public int[] inDegrees()
+    {
+        AtomicIntegerArray degrees = new AtomicIntegerArray(nodeIds.length);
+        forEachNode(node -> {
+            for (int e = offsets[node]; e < offsets[node + 1]; e++)
+            {
+                degrees.incrementAndGet(targets[e]);
+            }
+        });
+        return toArray(degrees);
+    }
+
+    /**
+     * Creates a copy of this graph with every edge reversed.
+     *
+     * @return The transposed graph.
+     */
+    public CsrGraph transpose()
+    {
+        return rebuild(false, true);
+    }
+
+    /**
+     * Creates a copy of this graph where every edge can be followed in both directions.
+     *
+     * @return A graph with each edge present in both directions.
+     */
+    public CsrGraph undirected()
+    {
+        return rebuild(true, true);
+    }
+
+    /**
+     * Finds the number of edges on the shortest path from a node to every other node, following edges in their
+     * direction. Each level of the search is expanded in parallel.
+     *
+     * @param source
+     *         The node index to start from.
+     *
+     * @return The distance to each node, 0 for the source and -1 for nodes that cannot be reached.
+     */
+    public int[] bfs(int source)
+    {
+        AtomicIntegerArray distances = new AtomicIntegerArray(nodeIds.length);
+        for (int i = 0; i < nodeIds.length; i++)
+        {
+            distances.set(i, -1);
+        }
+        distances.set(source, 0);
+
+        int[] frontier = {source};
+        for (int level = 1; frontier.length > 0; level++)
+        {
+            frontier = new ExpandFrontier(offsets, targets, distances, frontier, 0, frontier.length, level).invoke();
+        }
+        return toArray(distances);
+    }
+
+    /**
+     * Finds the weakly connected components of this graph, treating every edge as undirected. Edges are merged into a
+     * shared lock free union-find in parallel.
+     *
+     * @return For each node, the smallest node index in its component. Two nodes are connected exactly when their
+     * values are equal.
+     */
+    public int[] connectedComponents()
+    {
+        AtomicIntegerArray parents = new AtomicIntegerArray(nodeIds.length);
+        for (int i = 0; i < nodeIds.length; i++)
+        {
+            parents.set(i, i);
+        }
+
+        forEachNode(node -> {
+            for (int e = offsets[node]; e < offsets[node + 1]; e++)
+            {
+                union(parents, node, targets[e]);
+            }
+        });
+
+        int[] components = new int[nodeIds.length];
+        forEachNode(node -> components[node] = find(parents, node));
+        return components;
+    }
+
+    private void forEachNode(IntConsumer visitor)
+    {
+        new ForEachNode(offsets, visitor, 0, nodeIds.length).invoke();
+    }
+
+    private static int find(AtomicIntegerArray parents, int node)
+    {
+        for (; ; )
+        {
+            int parent = parents.get(node);
+            if (parent == node)
+            {
+                return node;
+            }
+            int grandparent = parents.get(parent);
+            // path halving, losing the race only means the path is not shortened this time.
+            parents.compareAndSet(node, parent, grandparent);
+            node = grandparent;
+        }
+    }
+
+    private static void union(AtomicIntegerArray parents, int a, int b)
+    {
+        for (; ; )
+        {
+            a = find(parents, a);
+            b = find(parents, b);
+            if (a == b)
+            {
+                return;
+            }
+            // always link the larger root under the smaller so roots end up as the smallest index.
+            int high = Math.max(a, b);
+            int low = Math.min(a, b);
+            if (parents.compareAndSet(high, high, low))
+            {
+                return;
+            }
+        }
+    }
+
+    private CsrGraph rebuild(boolean keepForward, boolean addReversed)
+    {
+        int n = nodeIds.length;
+        int[] counts = new int[n + 1];
+        for (int node = 0; node < n; node++)
+        {
+            for (int e = offsets[node]; e < offsets[node + 1]; e++)
+            {
+                if (keepForward)
+                {
+                    counts[node + 1]++;
+                }
+                if (addReversed)
+                {
+                    counts[targets[e] + 1]++;
+                }
+            }
+        }
+        for (int i = 0; i < n; i++)
+        {
+            counts[i + 1] += counts[i];
+        }
+
+        int[] newTargets = new int[counts[n]];
+        int[] newTypes = types == null ? null : new int[counts[n]];
+        int[] cursor = Arrays.copyOf(counts, n);
+        for (int node = 0; node < n; node++)
+        {
+            for (int e = offsets[node]; e < offsets[node + 1]; e++)
+            {
+                if (keepForward)
+                {
+                    int slot = cursor[node]++;
+                    newTargets[slot] = targets[e];
+                    if (newTypes != null)
+                    {
+                        newTypes[slot] = types[e];
+                    }
+                }
+                if (addReversed)
+                {
+                    int slot = cursor[targets[e]]++;
+                    newTargets[slot] = node;
+                    if (newTypes != null)
+                    {
+                        newTypes[slot] = types[e];
+                    }
+                }
+            }
+        }
+        return new CsrGraph(nodeIds, index, counts, newTargets, typeNames, newTypes);
+    }
+
+    private static int[] toArray(AtomicIntegerArray values)
+    {
+        int[] result = new int[values.length()];
+        for (int i = 0; i < result.length; i++)
+        {
+            result[i] = values.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * Visits a range of nodes, splitting it in half until it is small enough to visit on one thread.
+     */
+    private static class ForEachNode extends RecursiveAction
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] offsets;
+
+        private final transient IntConsumer visitor;
+
+        private final int from;
+
+        private final int to;
+
+        ForEachNode(int[] offsets, IntConsumer visitor, int from, int to)
+        {
+            this.offsets = offsets;
+            this.visitor = visitor;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute()
+        {
+            // split by edge count rather than node count so a few dense nodes do not end up in one task.
+            if (to - from <= 1 || offsets[to] - offsets[from] + (to - from) <= THRESHOLD)
+            {
+                for (int node = from; node < to; node++)
+                {
+                    visitor.accept(node);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new ForEachNode(offsets, visitor, from, middle), new ForEachNode(offsets, visitor, middle, to));
+        }
+    }
+
+    /**
+     * Visits the neighbours of part of a BFS frontier, claiming unvisited nodes for the next level.
+     */
+    private static class ExpandFrontier extends RecursiveTask<int[]>
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] offsets;
+
+        private final int[] targets;
+
+        private final AtomicIntegerArray distances;
+
+        private final int[] frontier;
+
+        private final int from;
+
+        private final int to;
+
+        private final int level;
+
+        ExpandFrontier(int[] offsets,
+                       int[] targets,
+                       AtomicIntegerArray distances,
+                       int[] frontier,
+                       int from,
+                       int to,
+                       int level)
+        {
+            this.offsets = offsets;
+            this.targets = targets;
+            this.distances = distances;
+            this.frontier = frontier;
+            this.from = from;
+            this.to = to;
+            this.level = level;
+        }
+
+        @Override
+        protected int[] compute()
+        {
+            if (to - from > 1 && edges() > THRESHOLD)
+            {
+                int middle = (from + to) >>> 1;
+                ExpandFrontier right = new ExpandFrontier(offsets, targets, distances, frontier, middle, to, level);
+                right.fork();
+                int[] left = new ExpandFrontier(offsets, targets, distances, frontier, from, middle, level).compute();
+                int[] rest = right.join();
+                int[] next = Arrays.copyOf(left, left.length + rest.length);
+                System.arraycopy(rest, 0, next, left.length, rest.length);
+                return next;
+            }
+
+            int[] next = new int[16];
+            int size = 0;
+            for (int i = from; i < to; i++)
+            {
+                int node = frontier[i];
+                for (int e = offsets[node]; e < offsets[node + 1]; e++)
+                {
+                    int target = targets[e];
+                    if (distances.get(target) < 0 && distances.compareAndSet(target, -1, level))
+                    {
+                        if (size == next.length)
+                        {
+                            next = Arrays.copyOf(next, size * 2);
+                        }
+                        next[size++] = target;
+                    }
+                }
+            }
+            return Arrays.copyOf(next, size);
+        }
+
+        private long edges()
+        {
+            long edges = 0;
+            for (int i = from; i < to && edges <= THRESHOLD; i++)
+            {
+                edges += offsets[frontier[i] + 1] - offsets[frontier[i]];
+            }
+            return edges;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package io.innerloop.neo4j.client;
+
+import java.nio.DoubleBuffer;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * A read only List over a double[], used for JSON arrays whose elements are all floating point numbers.
+ * <p>
+ * Neo4J returns array properties such as embeddings and scores as JSON arrays. Rather than boxing every element, the
+ * values are kept in a single double[] and only boxed when read through get(int), so a DoubleList is equal to the
+ * equivalent ArrayList of Doubles. Use getDouble(int), toDoubleArray() or asDoubleBuffer() to read them without boxing.
+ * <p>
+ * A DoubleList passed back in as a statement parameter is written without boxing as well.
+ */
+public final class DoubleList extends AbstractList<Double> implements RandomAccess
+{
+    private final double[] values;
+
+    private final int size;
+
+    /**
+     * Wraps an array without copying it. The array must not be modified afterwards.
+     *
+     * @param values
+     *         The values to wrap.
+     * @param size
+     *         The number of values in use, starting from index 0.
+     */
+    public DoubleList(double[] values, int size)
+    {
+        if (size < 0 || size > values.length)
+        {
+            throw new IllegalArgumentException("size must be between 0 and " + values.length);
+        }
+        this.values = values;
+        this.size = size;
+    }
+
+    @Override
+    public Double get(int index)
+    {
+        return getDouble(index);
+    }
+
+    /**
+     * Retrieves a value without boxing it.
+     *
+     * @param index
+     *         The position of the value.
+     *
+     * @return The value.
+     */
+    public double getDouble(int index)
+    {
+        if (index < 0 || index >= size)
+        {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return values[index];
+    }
+
+    @Override
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * @return A copy of the values.
+     */
+    public double[] toDoubleArray()
+    {
+        return Arrays.copyOf(values, size);
+    }
+
+    /**
+     * @return A read only view over the values.
+     */
+    public DoubleBuffer asDoubleBuffer()
+    {
+        return DoubleBuffer.wrap(values, 0, size).slice().asReadOnlyBuffer();
+    }
+
+    @Override
+    public int hashCode()
+    {
+        int hashCode = 1;
+        for (int i = 0; i < size; i++)
+        {
+            hashCode = 31 * hashCode + Double.hashCode(values[i]);
+        }
+        return hashCode;
+    }
+}
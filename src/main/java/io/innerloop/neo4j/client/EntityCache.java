@@ -0,0 +1,226 @@
+package io.innerloop.neo4j.client;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A size bounded, least recently used cache of Nodes and Relationships keyed by their Neo4J id, shared by every
+ * transaction of a client.
+ * <p>
+ * Entities live for the cache's time to live and are dropped early when a statement whose cache tags include one of a
+ * Node's labels, or a Relationship's type, is committed through the client. As with the result cache, an entity is only
+ * stored if none of its labels or its type were invalidated while it was being fetched.
+ */
+class EntityCache
+{
+    private final int maxEntries;
+
+    private final long ttlNanos;
+
+    private final LinkedHashMap<Long, Cached<Node>> nodes;
+
+    private final LinkedHashMap<Long, Cached<Relationship>> relationships;
+
+    private final Map<String, Long> invalidatedAt;
+
+    private long clock;
+
+    private long clearedAt;
+
+    private long hits;
+
+    private long misses;
+
+    private long evictions;
+
+    private long expirations;
+
+    private long invalidations;
+
+    EntityCache(int maxEntries, long ttl, TimeUnit unit)
+    {
+        if (maxEntries < 1)
+        {
+            throw new IllegalArgumentException("maxEntries must be at least 1");
+        }
+        this.maxEntries = maxEntries;
+        this.ttlNanos = unit.toNanos(ttl);
+        this.nodes = new LinkedHashMap<>(16, 0.75f, true);
+        this.relationships = new LinkedHashMap<>(16, 0.75f, true);
+        this.invalidatedAt = new HashMap<>();
+    }
+
+    /**
+     * Marks the start of a fetch, to be passed to putNodes() or putRelationships() once it completes.
+     */
+    synchronized long begin()
+    {
+        return clock;
+    }
+
+    /**
+     * Looks up each id, filling in <code>found</code> at the same position for every hit.
+     *
+     * @return The number of ids that were not found.
+     */
+    synchronized int getNodes(long[] ids, Node[] found)
+    {
+        return get(nodes, ids, found);
+    }
+
+    synchronized int getRelationships(long[] ids, Relationship[] found)
+    {
+        return get(relationships, ids, found);
+    }
+
+    synchronized void putNodes(Collection<Node> fetched, long startedAt)
+    {
+        if (clearedAt > startedAt)
+        {
+            return;
+        }
+        long expiresAt = System.nanoTime() + ttlNanos;
+        for (Node node : fetched)
+        {
+            if (!invalidatedSince(startedAt, node.getLabels()))
+            {
+                nodes.put(node.getId(), new Cached<>(node, expiresAt));
+            }
+        }
+        evict();
+    }
+
+    synchronized void putRelationships(Collection<Relationship> fetched, long startedAt)
+    {
+        if (clearedAt > startedAt)
+        {
+            return;
+        }
+        long expiresAt = System.nanoTime() + ttlNanos;
+        for (Relationship relationship : fetched)
+        {
+            if (!invalidatedSince(startedAt, relationship.getType()))
+            {
+                relationships.put(relationship.getId(), new Cached<>(relationship, expiresAt));
+            }
+        }
+        evict();
+    }
+
+    synchronized void invalidate(Set<String> tags)
+    {
+        if (tags.isEmpty())
+        {
+            return;
+        }
+        clock++;
+        for (String tag : tags)
+        {
+            invalidatedAt.put(tag, clock);
+        }
+        for (Iterator<Cached<Node>> it = nodes.values().iterator(); it.hasNext(); )
+        {
+            for (String label : it.next().entity.getLabels())
+            {
+                if (tags.contains(label))
+                {
+                    it.remove();
+                    invalidations++;
+                    break;
+                }
+            }
+        }
+        for (Iterator<Cached<Relationship>> it = relationships.values().iterator(); it.hasNext(); )
+        {
+            if (tags.contains(it.next().entity.getType()))
+            {
+                it.remove();
+                invalidations++;
+            }
+        }
+    }
+
+    synchronized void clear()
+    {
+        clearedAt = ++clock;
+        invalidations += nodes.size() + relationships.size();
+        nodes.clear();
+        relationships.clear();
+    }
+
+    synchronized CacheStats getStats()
+    {
+        return new CacheStats(nodes.size() + relationships.size(), hits, misses, evictions, expirations, invalidations);
+    }
+
+    private <T> int get(LinkedHashMap<Long, Cached<T>> entries, long[] ids, T[] found)
+    {
+        long now = System.nanoTime();
+        int missing = 0;
+        for (int i = 0; i < ids.length; i++)
+        {
+            Cached<T> cached = entries.get(ids[i]);
+            if (cached != null && cached.expiresAt - now <= 0)
+            {
+                entries.remove(ids[i]);
+                expirations++;
+                cached = null;
+            }
+            if (cached == null)
+            {
+                misses++;
+                missing++;
+            }
+            else
+            {
+                hits++;
+                found[i] = cached.entity;
+            }
+        }
+        return missing;
+    }
+
+    private boolean invalidatedSince(long startedAt, String... tags)
+    {
+        for (String tag : tags)
+        {
+            Long invalidated = invalidatedAt.get(tag);
+            if (invalidated != null && invalidated > startedAt)
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void evict()
+    {
+        // nodes and relationships share the bound, drop the least recently used of whichever is larger.
+        while (nodes.size() + relationships.size() > maxEntries)
+        {
+            Map<Long, ?> larger = nodes.size() >= relationships.size() ? nodes : relationships;
+            Iterator<Long> eldest = larger.keySet().iterator();
+            eldest.next();
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    private static final class Cached<T>
+    {
+        private final T entity;
+
+        private final long expiresAt;
+
+        private Cached(T entity, long expiresAt)
+        {
+            this.entity = entity;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -1,12 +1,26 @@
 package io.innerloop.neo4j.client;
 
 
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
 import java.util.Set;
 
 /**
  * Represents a graph comprised on <code>Node</code>'s and <code>Relationship</code>'s. <p> <p> Note that this is not a
  * directed graph and cannot be walked. Rather it is expected that Nodes and Relationships are normalised from the Neo4J
  * format to the user's desired data structure. </p>
+ * <p>
+ * To make that normalisation cheap the Graph is indexed when it is created: Nodes and Relationships can be found by id,
+ * the Relationships leaving or arriving at a Node can be listed in time proportional to their number and Nodes and
+ * Relationships can be listed by label and type. Ids are held in primitive arrays and adjacency as offsets into a
+ * single array per direction, so the index costs a few ints per Node and Relationship. For whole graph analytics
+ * toCsr() exports the structure as plain int arrays.
  */
 public class Graph
 {
@@ -14,6 +28,28 @@ public class Graph
 
     private final Set<Relationship> relationships;
 
+    private final Node[] nodeArray;
+
+    private final Relationship[] relationshipArray;
+
+    private final LongIntHashMap nodeIndex;
+
+    private final LongIntHashMap relationshipIndex;
+
+    private final int[] ends;
+
+    private final int[] outgoingOffsets;
+
+    private final int[] outgoing;
+
+    private final int[] incomingOffsets;
+
+    private final int[] incoming;
+
+    private final Map<String, List<Node>> nodesByLabel;
+
+    private final Map<String, List<Relationship>> relationshipsByType;
+
     /**
      * Creates a new Graph.
      * <p>
@@ -28,6 +64,72 @@ public class Graph
     {
         this.nodes = nodes;
         this.relationships = relationships;
+
+        this.nodeArray = nodes.toArray(new Node[nodes.size()]);
+        this.nodeIndex = new LongIntHashMap(nodeArray.length);
+        this.nodesByLabel = new HashMap<>();
+        for (int i = 0; i < nodeArray.length; i++)
+        {
+            Node node = nodeArray[i];
+            nodeIndex.putIfAbsent(node.getId(), i);
+            if (node.getLabels() != null)
+            {
+                for (String label : node.getLabels())
+                {
+                    nodesByLabel.computeIfAbsent(label, l -> new ArrayList<>()).add(node);
+                }
+            }
+        }
+
+        this.relationshipArray = relationships.toArray(new Relationship[relationships.size()]);
+        this.relationshipIndex = new LongIntHashMap(relationshipArray.length);
+        this.relationshipsByType = new HashMap<>();
+        for (int i = 0; i < relationshipArray.length; i++)
+        {
+            Relationship relationship = relationshipArray[i];
+            relationshipIndex.putIfAbsent(relationship.getId(), i);
+            relationshipsByType.computeIfAbsent(relationship.getType(), t -> new ArrayList<>()).add(relationship);
+        }
+
+        // count each node's relationships, turn the counts into offsets, then drop each relationship into place.
+        this.outgoingOffsets = new int[nodeArray.length + 1];
+        this.incomingOffsets = new int[nodeArray.length + 1];
+        int[] starts = new int[relationshipArray.length];
+        this.ends = new int[relationshipArray.length];
+        for (int i = 0; i < relationshipArray.length; i++)
+        {
+            starts[i] = nodeIndex.get(relationshipArray[i].getStartNodeId());
+            ends[i] = nodeIndex.get(relationshipArray[i].getEndNodeId());
+            if (starts[i] >= 0)
+            {
+                outgoingOffsets[starts[i] + 1]++;
+            }
+            if (ends[i] >= 0)
+            {
+                incomingOffsets[ends[i] + 1]++;
+            }
+        }
+        for (int i = 0; i < nodeArray.length; i++)
+        {
+            outgoingOffsets[i + 1] += outgoingOffsets[i];
+            incomingOffsets[i + 1] += incomingOffsets[i];
+        }
+
+        this.outgoing = new int[outgoingOffsets[nodeArray.length]];
+        this.incoming = new int[incomingOffsets[nodeArray.length]];
+        int[] outgoingCursor = outgoingOffsets.clone();
+        int[] incomingCursor = incomingOffsets.clone();
+        for (int i = 0; i < relationshipArray.length; i++)
+        {
+            if (starts[i] >= 0)
+            {
+                outgoing[outgoingCursor[starts[i]]++] = i;
+            }
+            if (ends[i] >= 0)
+            {
+                incoming[incomingCursor[ends[i]]++] = i;
+            }
+        }
     }
 
     /**
@@ -49,4 +151,229 @@ public class Graph
     {
         return relationships;
     }
+
+    /**
+     * Retrieves a Node by its id.
+     *
+     * @param id
+     *         The id of the Node.
+     *
+     * @return The Node or null if it is not in this graph.
+     */
+    public Node getNode(long id)
+    {
+        int index = nodeIndex.get(id);
+        return index < 0 ? null : nodeArray[index];
+    }
+
+    /**
+     * Retrieves a Relationship by its id.
+     *
+     * @param id
+     *         The id of the Relationship.
+     *
+     * @return The Relationship or null if it is not in this graph.
+     */
+    public Relationship getRelationship(long id)
+    {
+        int index = relationshipIndex.get(id);
+        return index < 0 ? null : relationshipArray[index];
+    }
+
+    /**
+     * Retrieves the Relationships that start at a Node.
+     *
+     * @param nodeId
+     *         The id of the Node.
+     *
+     * @return An unmodifiable list of Relationships. If the Node is not in this graph an empty list is returned.
+     */
+    public List<Relationship> getOutgoingRelationships(long nodeId)
+    {
+        return adjacent(nodeId, outgoingOffsets, outgoing);
+    }
+
+    /**
+     * Retrieves the Relationships that end at a Node.
+     *
+     * @param nodeId
+     *         The id of the Node.
+     *
+     * @return An unmodifiable list of Relationships. If the Node is not in this graph an empty list is returned.
+     */
+    public List<Relationship> getIncomingRelationships(long nodeId)
+    {
+        return adjacent(nodeId, incomingOffsets, incoming);
+    }
+
+    /**
+     * Retrieves the Nodes at the other end of a Node's Relationships, in either direction. A Node connected by more
+     * than one Relationship appears once for each of them. Nodes that are not part of this graph are left out.
+     *
+     * @param nodeId
+     *         The id of the Node.
+     *
+     * @return A list of the Node's neighbours.
+     */
+    public List<Node> getNeighbours(long nodeId)
+    {
+        List<Node> neighbours = new ArrayList<>();
+        for (Relationship relationship : getOutgoingRelationships(nodeId))
+        {
+            Node node = getNode(relationship.getEndNodeId());
+            if (node != null)
+            {
+                neighbours.add(node);
+            }
+        }
+        for (Relationship relationship : getIncomingRelationships(nodeId))
+        {
+            Node node = getNode(relationship.getStartNodeId());
+            // a relationship from a node to itself has already been counted as outgoing.
+            if (node != null && relationship.getStartNodeId() != relationship.getEndNodeId())
+            {
+                neighbours.add(node);
+            }
+        }
+        return neighbours;
+    }
+
+    /**
+     * Retrieves the Nodes that carry a label.
+     *
+     * @param label
+     *         The label to look for.
+     *
+     * @return An unmodifiable list of Nodes, empty if none have the label.
+     */
+    public List<Node> getNodesByLabel(String label)
+    {
+        List<Node> result = nodesByLabel.get(label);
+        return result == null ? Collections.emptyList() : Collections.unmodifiableList(result);
+    }
+
+    /**
+     * Retrieves the Relationships of a type.
+     *
+     * @param type
+     *         The type to look for.
+     *
+     * @return An unmodifiable list of Relationships, empty if none have the type.
+     */
+    public List<Relationship> getRelationshipsByType(String type)
+    {
+        List<Relationship> result = relationshipsByType.get(type);
+        return result == null ? Collections.emptyList() : Collections.unmodifiableList(result);
+    }
+
+    /**
+     * Copies the structure of this graph into compressed sparse row arrays for running graph algorithms over.
+     *
+     * @return The CSR graph, without relationship types.
+     */
+    public CsrGraph toCsr()
+    {
+        return toCsr(false);
+    }
+
+    /**
+     * Copies the structure of this graph into compressed sparse row arrays for running graph algorithms over. Node
+     * indices in the CSR graph follow the same order as this graph's index so the copy only walks each adjacency list
+     * once.
+     *
+     * @param includeTypes
+     *         true, to also record the relationship type of each edge.
+     *
+     * @return The CSR graph.
+     */
+    public CsrGraph toCsr(boolean includeTypes)
+    {
+        int n = nodeArray.length;
+        long[] ids = new long[n];
+        int[] offsets = new int[n + 1];
+        int[] targets = new int[outgoing.length];
+        int[] types = includeTypes ? new int[outgoing.length] : null;
+        Map<String, Integer> typeIndex = new HashMap<>();
+        List<String> typeNames = new ArrayList<>();
+
+        int edges = 0;
+        for (int i = 0; i < n; i++)
+        {
+            ids[i] = nodeArray[i].getId();
+            offsets[i] = edges;
+            for (int e = outgoingOffsets[i]; e < outgoingOffsets[i + 1]; e++)
+            {
+                int target = ends[outgoing[e]];
+                if (target < 0)
+                {
+                    continue;
+                }
+                targets[edges] = target;
+                if (types != null)
+                {
+                    types[edges] = typeIndex.computeIfAbsent(relationshipArray[outgoing[e]].getType(), type -> {
+                        typeNames.add(type);
+                        return typeNames.size() - 1;
+                    });
+                }
+                edges++;
+            }
+        }
+        offsets[n] = edges;
+
+        return new CsrGraph(ids,
+                            nodeIndex,
+                            offsets,
+                            edges == targets.length ? targets : Arrays.copyOf(targets, edges),
+                            types == null ? null : typeNames.toArray(new String[typeNames.size()]),
+                            types == null || edges == types.length ? types : Arrays.copyOf(types, edges));
+    }
+
+    private List<Relationship> adjacent(long nodeId, int[] offsets, int[] positions)
+    {
+        int index = nodeIndex.get(nodeId);
+        if (index < 0)
+        {
+            return Collections.emptyList();
+        }
+        return new RelationshipSlice(relationshipArray, positions, offsets[index], offsets[index + 1]);
+    }
+
+    /**
+     * A view over the part of an adjacency array that belongs to one Node.
+     */
+    private static class RelationshipSlice extends AbstractList<Relationship> implements RandomAccess
+    {
+        private final Relationship[] relationships;
+
+        private final int[] positions;
+
+        private final int from;
+
+        private final int to;
+
+        private RelationshipSlice(Relationship[] relationships, int[] positions, int from, int to)
+        {
+            this.relationships = relationships;
+            this.positions = positions;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public Relationship get(int index)
+        {
+            if (index < 0 || index >= to - from)
+            {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + (to - from));
+            }
+            return relationships[positions[from + index]];
+        }
+
+        @Override
+        public int size()
+        {
+            return to - from;
+        }
+    }
 }
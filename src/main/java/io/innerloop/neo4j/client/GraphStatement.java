@@ -8,11 +8,37 @@ package io.innerloop.neo4j.client;
  */
 public class GraphStatement extends Statement
 {
+    private final GraphVisitor graphVisitor;
+
+    private final boolean deduplicate;
+
     private Graph result;
 
     public GraphStatement(String query)
+    {
+        this(query, null, true);
+    }
+
+    /**
+     * Creates a GraphStatement whose Nodes and Relationships are handed to a GraphVisitor as the response is read
+     * rather than collected into the result. The Graph result of such a statement is empty.
+     * <p>
+     * Neo4J repeats a Node or Relationship in every data entry it appears in. With <code>deduplicate</code> set each is
+     * only delivered once, at the cost of remembering the ids seen so far (about 16 bytes each). Without it memory use
+     * on a blocking Connection stays the same however large the graph is but the visitor must cope with repeats.
+     *
+     * @param query
+     *         The cypher query to execute.
+     * @param graphVisitor
+     *         The visitor to call with each Node and Relationship.
+     * @param deduplicate
+     *         true, to deliver each Node and Relationship only once.
+     */
+    public GraphStatement(String query, GraphVisitor graphVisitor, boolean deduplicate)
     {
         super(query);
+        this.graphVisitor = graphVisitor;
+        this.deduplicate = deduplicate;
     }
 
     @Override
@@ -21,6 +47,26 @@ public class GraphStatement extends Statement
         return "graph";
     }
 
+    /**
+     * Retrieves the visitor Nodes and Relationships are streamed to.
+     *
+     * @return The visitor passed to the constructor or null if they are collected into the result.
+     */
+    public GraphVisitor getGraphVisitor()
+    {
+        return graphVisitor;
+    }
+
+    /**
+     * Determines if repeated Nodes and Relationships are removed before being handed to the GraphVisitor.
+     *
+     * @return true, if each Node and Relationship is only delivered once.
+     */
+    public boolean isDeduplicate()
+    {
+        return deduplicate;
+    }
+
     /**
      * Retrieves the result of this Statement. Only accessible after Connection#commit() has been called.
      *
@@ -43,4 +89,22 @@ public class GraphStatement extends Statement
         this.result = result;
     }
 
+    @Override
+    boolean isShareable()
+    {
+        return graphVisitor == null;
+    }
+
+    @Override
+    Object getSharedResult()
+    {
+        return result;
+    }
+
+    @Override
+    void setSharedResult(Object result)
+    {
+        this.result = (Graph) result;
+    }
+
 }
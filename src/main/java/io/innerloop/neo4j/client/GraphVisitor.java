@@ -0,0 +1,36 @@
+package io.innerloop.neo4j.client;
+
+/**
+ * Receives the Nodes and Relationships of a GraphStatement as each <code>data[].graph</code> entry of the response is
+ * read, instead of having them collected into a Graph.
+ * <p>
+ * Use this for graphs that are too large to hold in memory. Nothing is kept once an event has been delivered, unless
+ * the statement asks for duplicates to be removed, in which case only the ids seen so far are kept. As with a
+ * {@link RowHandler}, this only holds on a blocking Connection without pipelining, as AsyncConnections and pipelined
+ * flushes receive the whole response body before decoding it. Events are delivered before the server has reported any
+ * errors for the transaction.
+ * <p>
+ * Visitors are called on whichever thread reads the response. If a visitor throws, reading stops, the exception is
+ * thrown from the method that sent the statement and the underlying HTTP connection is discarded.
+ *
+ * @see io.innerloop.neo4j.client.GraphStatement#GraphStatement(String, GraphVisitor, boolean)
+ */
+public interface GraphVisitor
+{
+    /**
+     * Called for each Node in the result.
+     *
+     * @param node
+     *         The Node.
+     */
+    void onNode(Node node);
+
+    /**
+     * Called for each Relationship in the result. The Nodes at either end are part of the same graph entry and will
+     * usually have been delivered just before it.
+     *
+     * @param relationship
+     *         The Relationship.
+     */
+    void onRelationship(Relationship relationship);
+}
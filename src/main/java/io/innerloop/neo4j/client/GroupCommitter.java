@@ -0,0 +1,217 @@
+package io.innerloop.neo4j.client;
+
+import io.innerloop.neo4j.client.spi.ConnectionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coalesces single statement auto-commit transactions submitted from many threads into one transactional request.
+ * <p>
+ * Statements are held for at most <code>maxDelay</code>, or until <code>maxBatchSize</code> statements are pending,
+ * and then committed together through an {@link AsyncConnection}. Each caller's future is completed with its own
+ * statement once the batch commits. AsyncConnections work over https as well, where each batch in flight holds one of
+ * the transport's https threads, so with more batches than pooled connections the rest wait their turn.
+ * <p>
+ * Neo4J rolls back the whole transaction if any statement in it fails and does not say which one did. A failed batch
+ * is therefore split in half and each half committed again until the failing statements are isolated, so callers
+ * only ever see the errors caused by their own statements.
+ */
+class GroupCommitter
+{
+    private static final Logger LOG = LoggerFactory.getLogger(GroupCommitter.class);
+
+    private final ConnectionFactory connectionFactory;
+
+    private final int maxBatchSize;
+
+    private final long maxDelayNanos;
+
+    private final ScheduledExecutorService scheduler;
+
+    private final Set<CompletableFuture<?>> inFlight;
+
+    private List<Pending<?>> pending;
+
+    private ScheduledFuture<?> scheduledFlush;
+
+    private boolean closed;
+
+    GroupCommitter(ConnectionFactory connectionFactory, int maxBatchSize, long maxDelay, TimeUnit unit)
+    {
+        if (maxBatchSize < 1)
+        {
+            throw new IllegalArgumentException("maxBatchSize must be at least 1");
+        }
+        this.connectionFactory = connectionFactory;
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayNanos = unit.toNanos(maxDelay);
+        this.inFlight = ConcurrentHashMap.newKeySet();
+        this.pending = new ArrayList<>();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "neo4j-client-group-commit");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    <S extends Statement> CompletableFuture<S> submit(S statement)
+    {
+        Pending<S> entry = new Pending<>(statement);
+        List<Pending<?>> batch = null;
+
+        synchronized (this)
+        {
+            if (closed)
+            {
+                entry.future.completeExceptionally(new Neo4jClientException("Client has been closed."));
+                return entry.future;
+            }
+
+            pending.add(entry);
+            if (pending.size() >= maxBatchSize)
+            {
+                batch = drain();
+            }
+            else if (scheduledFlush == null)
+            {
+                scheduledFlush = scheduler.schedule(this::flushPending, maxDelayNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        if (batch != null)
+        {
+            commit(batch);
+        }
+        return entry.future;
+    }
+
+    /**
+     * Commits anything still pending and waits, up to the given timeout, for batches already in flight to finish.
+     */
+    void close(long timeout, TimeUnit unit)
+    {
+        List<Pending<?>> batch;
+        synchronized (this)
+        {
+            closed = true;
+            batch = drain();
+        }
+        commit(batch);
+        scheduler.shutdown();
+
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        try
+        {
+            // failed batches are retried in halves, so keep waiting until nothing new is in flight.
+            while (!inFlight.isEmpty())
+            {
+                CompletableFuture.allOf(inFlight.toArray(new CompletableFuture<?>[0]))
+                        .handle((result, e) -> null)
+                        .get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            }
+        }
+        catch (Exception e)
+        {
+            LOG.warn("Group commit batches were still in flight when the client closed.", e);
+        }
+    }
+
+    private void flushPending()
+    {
+        List<Pending<?>> batch;
+        synchronized (this)
+        {
+            batch = drain();
+        }
+        commit(batch);
+    }
+
+    private List<Pending<?>> drain()
+    {
+        if (scheduledFlush != null)
+        {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+        List<Pending<?>> batch = pending;
+        pending = new ArrayList<>();
+        return batch;
+    }
+
+    private void commit(List<Pending<?>> batch)
+    {
+        if (batch.isEmpty())
+        {
+            return;
+        }
+
+        LOG.debug("Group committing [{}] statements.", batch.size());
+        AsyncConnection connection = connectionFactory.getAsyncConnection();
+        for (Pending<?> entry : batch)
+        {
+            connection.add(entry.statement);
+        }
+
+        CompletableFuture<List<Statement>> commit = connection.commitAsync();
+        inFlight.add(commit);
+        commit.whenComplete((statements, e) -> {
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            if (cause == null)
+            {
+                batch.forEach(Pending::complete);
+            }
+            else if (batch.size() > 1 && isStatementError(cause))
+            {
+                // the whole batch was rolled back, retry each half to find the statements at fault.
+                int half = batch.size() / 2;
+                commit(new ArrayList<>(batch.subList(0, half)));
+                commit(new ArrayList<>(batch.subList(half, batch.size())));
+            }
+            else
+            {
+                batch.forEach(entry -> entry.fail(cause));
+            }
+            inFlight.remove(commit);
+        });
+    }
+
+    private static boolean isStatementError(Throwable e)
+    {
+        Throwable cause = e.getCause() != null ? e.getCause() : e;
+        return cause instanceof Neo4jServerException || cause instanceof Neo4jServerMultiException;
+    }
+
+    private static class Pending<S extends Statement>
+    {
+        private final S statement;
+
+        private final CompletableFuture<S> future;
+
+        private Pending(S statement)
+        {
+            this.statement = statement;
+            this.future = new CompletableFuture<>();
+        }
+
+        private void complete()
+        {
+            future.complete(statement);
+        }
+
+        private void fail(Throwable e)
+        {
+            future.completeExceptionally(e);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package io.innerloop.neo4j.client;
+
+import java.util.Arrays;
+
+/**
+ * Maps long ids to int positions using two parallel open addressed arrays, so a Graph can find a Node or Relationship
+ * by id without boxing every key into a HashMap entry.
+ */
+class LongIntHashMap
+{
+    private static final int MISSING = -1;
+
+    private long[] keys;
+
+    private int[] values;
+
+    private int size;
+
+    LongIntHashMap(int expectedSize)
+    {
+        int capacity = 16;
+        while (capacity < expectedSize * 2)
+        {
+            capacity <<= 1;
+        }
+        this.keys = new long[capacity];
+        this.values = new int[capacity];
+        Arrays.fill(values, MISSING);
+    }
+
+    /**
+     * Associates a position with an id. An existing position for the id is kept.
+     *
+     * @return The position now held for the id.
+     */
+    int putIfAbsent(long key, int value)
+    {
+        int mask = keys.length - 1;
+        for (int i = index(key, mask); ; i = (i + 1) & mask)
+        {
+            if (values[i] == MISSING)
+            {
+                keys[i] = key;
+                values[i] = value;
+                if (++size * 2 > keys.length)
+                {
+                    grow();
+                }
+                return value;
+            }
+            if (keys[i] == key)
+            {
+                return values[i];
+            }
+        }
+    }
+
+    /**
+     * @return The position held for the id or -1 if there is none.
+     */
+    int get(long key)
+    {
+        int mask = keys.length - 1;
+        for (int i = index(key, mask); ; i = (i + 1) & mask)
+        {
+            if (values[i] == MISSING)
+            {
+                return MISSING;
+            }
+            if (keys[i] == key)
+            {
+                return values[i];
+            }
+        }
+    }
+
+    private void grow()
+    {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new int[oldValues.length * 2];
+        Arrays.fill(values, MISSING);
+
+        int mask = keys.length - 1;
+        for (int j = 0; j < oldKeys.length; j++)
+        {
+            if (oldValues[j] != MISSING)
+            {
+                int i = index(oldKeys[j], mask);
+                while (values[i] != MISSING)
+                {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[j];
+                values[i] = oldValues[j];
+            }
+        }
+    }
+
+    private static int index(long key, int mask)
+    {
+        // ids are mostly sequential, spread them so runs do not cluster.
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+}
@@ -0,0 +1,122 @@
+package io.innerloop.neo4j.client;
+
+import java.nio.LongBuffer;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * A read only List over a long[], used for JSON arrays whose elements are all integers.
+ * <p>
+ * Neo4J returns array properties such as timestamps as JSON arrays. Rather than boxing every element, the values are
+ * kept in a single long[] and only boxed when read through get(int). Elements box to the same Integer or Long type a
+ * JSONArray would produce, so a LongList is equal to the equivalent ArrayList. Use getLong(int), toLongArray() or
+ * asLongBuffer() to read them without boxing.
+ * <p>
+ * A LongList passed back in as a statement parameter is written without boxing as well.
+ */
+public final class LongList extends AbstractList<Number> implements RandomAccess
+{
+    private final long[] values;
+
+    private final int size;
+
+    /**
+     * Wraps an array without copying it. The array must not be modified afterwards.
+     *
+     * @param values
+     *         The values to wrap.
+     * @param size
+     *         The number of values in use, starting from index 0.
+     */
+    public LongList(long[] values, int size)
+    {
+        if (size < 0 || size > values.length)
+        {
+            throw new IllegalArgumentException("size must be between 0 and " + values.length);
+        }
+        this.values = values;
+        this.size = size;
+    }
+
+    @Override
+    public Number get(int index)
+    {
+        long value = getLong(index);
+        return value == (int) value ? (Number) (int) value : (Number) value;
+    }
+
+    /**
+     * Retrieves a value without boxing it.
+     *
+     * @param index
+     *         The position of the value.
+     *
+     * @return The value.
+     */
+    public long getLong(int index)
+    {
+        if (index < 0 || index >= size)
+        {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return values[index];
+    }
+
+    @Override
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * @return A copy of the values.
+     */
+    public long[] toLongArray()
+    {
+        return Arrays.copyOf(values, size);
+    }
+
+    /**
+     * @return A read only view over the values.
+     */
+    public LongBuffer asLongBuffer()
+    {
+        return LongBuffer.wrap(values, 0, size).slice().asReadOnlyBuffer();
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (o instanceof LongList)
+        {
+            LongList that = (LongList) o;
+            if (size != that.size)
+            {
+                return false;
+            }
+            for (int i = 0; i < size; i++)
+            {
+                if (values[i] != that.values[i])
+                {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return super.equals(o);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        int hashCode = 1;
+        for (int i = 0; i < size; i++)
+        {
+            long value = values[i];
+            int elementHash = value == (int) value ? (int) value : Long.hashCode(value);
+            hashCode = 31 * hashCode + elementHash;
+        }
+        return hashCode;
+    }
+}
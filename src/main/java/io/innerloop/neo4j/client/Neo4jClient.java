@@ -3,16 +3,43 @@ package io.innerloop.neo4j.client;
 import io.innerloop.neo4j.client.spi.ConnectionFactory;
 import io.innerloop.neo4j.client.spi.impl.rest.RestConnectionFactoryImpl;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
 
 /**
  * This is the main class to use! <p> <p>This will create a new client to use for an application. You should  only need
  * one instance of this class to service a whole application. Once instantiated this class can be considered thread
  * safe.</p>
  */
-public class Neo4jClient
+public class Neo4jClient implements AutoCloseable
 {
+    // id(x) IN {ids} is planned as a seek by id, unlike id(x) = id after UNWIND. START would fail on missing ids.
+    private static final String NODES_BY_ID = "MATCH (n) WHERE id(n) IN {ids} RETURN n";
+
+    private static final String RELATIONSHIPS_BY_ID = "MATCH ()-[r]->() WHERE id(r) IN {ids} RETURN r";
+
+    // large enough that the per statement overhead is negligible, small enough to keep each parameter list modest.
+    private static final int FETCH_CHUNK_SIZE = 1000;
+
     private ConnectionFactory connectionFactory;
 
+    private volatile GroupCommitter groupCommitter;
+
+    private volatile ResultCache resultCache;
+
+    private volatile ReadCoalescer readCoalescer;
+
+    private volatile EntityCache entityCache;
+
+    private final WriteTracker writeTracker = new WriteTracker(this::invalidateCaches);
+
     /**
      * Create a new Client.
      *
@@ -40,6 +67,18 @@ public class Neo4jClient
         this.connectionFactory = new RestConnectionFactoryImpl(url, userName, password);
     }
 
+    /**
+     * Create a new Client backed by the given ConnectionFactory. Use this to supply a custom configured factory, for
+     * example a RestConnectionFactoryImpl with a tuned HttpConnectionPool.
+     *
+     * @param connectionFactory
+     *         The factory used to create Connections.
+     */
+    public Neo4jClient(ConnectionFactory connectionFactory)
+    {
+        this.connectionFactory = connectionFactory;
+    }
+
     /**
      * Create a new Connection or retrieve the existing one on the currently executing Thread.
      *
@@ -47,6 +86,586 @@ public class Neo4jClient
      */
     public Connection getConnection()
     {
-        return connectionFactory.getConnection();
+        return track(connectionFactory.getConnection());
+    }
+
+    /**
+     * Create a new Connection that is not bound to the currently executing Thread. Unlike getConnection() each call
+     * returns a new Connection, so one Thread may run several independent transactions and a transaction may be
+     * handed between the Threads of an executor. Use with try-with-resources to roll back anything left uncommitted:
+     * <pre>
+     * try (Connection connection = client.openConnection())
+     * {
+     *     connection.add(statement);
+     *     connection.commit();
+     * }
+     * </pre>
+     * Connections are lightweight, the network connections they use are pooled and shared by the whole client.
+     *
+     * @return A new Connection.
+     */
+    public Connection openConnection()
+    {
+        return track(connectionFactory.openConnection());
+    }
+
+    /**
+     * Create a new AsyncConnection. Unlike getConnection() this is not bound to the current Thread, each call returns
+     * a new AsyncConnection that may be used from any Thread. It works over http and https, see AsyncConnection for
+     * how https requests are sent.
+     *
+     * @return An AsyncConnection.
+     */
+    public AsyncConnection getAsyncConnection()
+    {
+        AsyncConnection connection = connectionFactory.getAsyncConnection();
+        return isTracking() ? writeTracker.track(connection) : connection;
+    }
+
+    /**
+     * Turns on the result cache for read(Statement). Results of Row and Graph statements without a RowHandler or
+     * GraphVisitor are kept, least recently used first out, until their time to live passes or a statement sharing one
+     * of their cache tags is committed through this client.
+     * <p>
+     * Cached RowSets are handed out with a cursor of their own. Cached Graphs are shared between readers and must not
+     * be modified.
+     *
+     * @param maxEntries
+     *         The most results to keep.
+     * @param defaultTtl
+     *         How long results live unless their statement sets its own TTL.
+     * @param unit
+     *         The unit of the time to live.
+     *
+     * @return this client, to support chained method calls
+     *
+     * @see io.innerloop.neo4j.client.Statement#setCacheTags(String...)
+     * @see io.innerloop.neo4j.client.Statement#setCacheTtl(long, TimeUnit)
+     */
+    public Neo4jClient enableResultCache(int maxEntries, long defaultTtl, TimeUnit unit)
+    {
+        this.resultCache = new ResultCache(maxEntries, defaultTtl, unit);
+        return this;
+    }
+
+    /**
+     * Turns on read coalescing for read(Statement). While a read is in flight, threads reading an equal statement (same
+     * query, parameters and type) wait for it and share its result instead of each sending a request of their own.
+     * Each caller still gets its own cursor over a shared RowSet. Graphs are shared between callers and must not be
+     * modified.
+     * <p>
+     * This is most useful alongside the result cache, where it stops every reader of an expired entry from going to
+     * the server at once.
+     *
+     * @return this client, to support chained method calls
+     */
+    public Neo4jClient enableReadCoalescing()
+    {
+        this.readCoalescer = new ReadCoalescer();
+        return this;
+    }
+
+    /**
+     * Runs a read only statement in a transaction of its own. If the result cache is enabled an equal statement's
+     * cached result is used instead, and a fresh result is added to the cache. If read coalescing is enabled an equal
+     * statement already in flight is waited for instead.
+     *
+     * @param statement
+     *         The statement to run.
+     * @param <S>
+     *         The type of statement.
+     *
+     * @return The statement, with its result available.
+     */
+    public <S extends Statement> S read(S statement)
+    {
+        if (!statement.isShareable())
+        {
+            execute(statement);
+            return statement;
+        }
+
+        ResultCache cache = resultCache;
+        if (cache != null && cache.lookup(statement))
+        {
+            return statement;
+        }
+
+        ReadCoalescer coalescer = readCoalescer;
+        if (coalescer != null)
+        {
+            coalescer.read(statement, () -> readThrough(statement, cache));
+        }
+        else
+        {
+            readThrough(statement, cache);
+        }
+        return statement;
+    }
+
+    private void readThrough(Statement statement, ResultCache cache)
+    {
+        long startedAt = cache == null ? 0 : cache.begin();
+        execute(statement);
+        if (cache != null)
+        {
+            cache.store(statement, startedAt);
+        }
+    }
+
+    private void execute(Statement statement)
+    {
+        try (Connection connection = connectionFactory.openConnection())
+        {
+            connection.add(statement);
+            connection.commit();
+        }
+    }
+
+    /**
+     * Drops cached results tagged with any of the given tags, for writes made outside this client.
+     *
+     * @param tags
+     *         The tags to invalidate.
+     */
+    public void invalidateResultCache(String... tags)
+    {
+        ResultCache cache = resultCache;
+        if (cache != null)
+        {
+            cache.invalidate(new HashSet<>(Arrays.asList(tags)));
+        }
+    }
+
+    /**
+     * Drops every cached result.
+     */
+    public void clearResultCache()
+    {
+        ResultCache cache = resultCache;
+        if (cache != null)
+        {
+            cache.clear();
+        }
+    }
+
+    /**
+     * Retrieves a snapshot of the result cache's hit, miss and eviction counts.
+     *
+     * @return The current statistics, or null if the result cache is not enabled.
+     */
+    public CacheStats getResultCacheStats()
+    {
+        ResultCache cache = resultCache;
+        return cache == null ? null : cache.getStats();
+    }
+
+    /**
+     * Turns on the entity cache for getNodes(long...) and getRelationships(long...). Nodes and Relationships are kept
+     * by id, least recently used first out, until their time to live passes or a statement whose cache tags include
+     * one of a Node's labels, or a Relationship's type, is committed through this client.
+     * <p>
+     * Cached entities are shared between callers and transactions. Writes without cache tags, and writes made outside
+     * this client, don't invalidate anything: cached entities stay stale until their time to live passes, unless
+     * invalidateEntityCache(String...) or clearEntityCache() is called.
+     *
+     * @param maxEntries
+     *         The most Nodes and Relationships to keep.
+     * @param ttl
+     *         How long entities live.
+     * @param unit
+     *         The unit of the time to live.
+     *
+     * @return this client, to support chained method calls
+     *
+     * @see io.innerloop.neo4j.client.Statement#setCacheTags(String...)
+     */
+    public Neo4jClient enableEntityCache(int maxEntries, long ttl, TimeUnit unit)
+    {
+        this.entityCache = new EntityCache(maxEntries, ttl, unit);
+        return this;
+    }
+
+    /**
+     * Fetches Nodes by id. If the entity cache is enabled, Nodes found in it are used as they are and only the rest are
+     * fetched, with fetchNodes(long[]).
+     * <p>
+     * Cached Nodes are only invalidated by committed statements tagged with their labels, so one changed by an untagged
+     * write is returned as it was cached until it expires.
+     *
+     * @param ids
+     *         The ids of the Nodes to fetch.
+     *
+     * @return The Nodes found, in the order of their ids. Ids with no Node are left out.
+     */
+    public List<Node> getNodes(long... ids)
+    {
+        Node[] found = new Node[ids.length];
+        EntityCache cache = entityCache;
+        int missing = cache == null ? ids.length : cache.getNodes(ids, found);
+        if (missing > 0)
+        {
+            long startedAt = cache == null ? 0 : cache.begin();
+            Graph graph = fetchNodes(missingIds(ids, found, missing));
+            if (cache != null)
+            {
+                cache.putNodes(graph.getNodes(), startedAt);
+            }
+            for (int i = 0; i < ids.length; i++)
+            {
+                if (found[i] == null)
+                {
+                    found[i] = graph.getNode(ids[i]);
+                }
+            }
+        }
+        return present(found);
+    }
+
+    /**
+     * Fetches Relationships by id. If the entity cache is enabled, Relationships found in it are used as they are and
+     * only the rest are fetched, with fetchRelationships(long[]).
+     * <p>
+     * Cached Relationships are only invalidated by committed statements tagged with their types, so one changed by an
+     * untagged write is returned as it was cached until it expires.
+     *
+     * @param ids
+     *         The ids of the Relationships to fetch.
+     *
+     * @return The Relationships found, in the order of their ids. Ids with no Relationship are left out.
+     */
+    public List<Relationship> getRelationships(long... ids)
+    {
+        Relationship[] found = new Relationship[ids.length];
+        EntityCache cache = entityCache;
+        int missing = cache == null ? ids.length : cache.getRelationships(ids, found);
+        if (missing > 0)
+        {
+            long startedAt = cache == null ? 0 : cache.begin();
+            Graph graph = fetchRelationships(missingIds(ids, found, missing));
+            if (cache != null)
+            {
+                cache.putRelationships(graph.getRelationships(), startedAt);
+            }
+            for (int i = 0; i < ids.length; i++)
+            {
+                if (found[i] == null)
+                {
+                    found[i] = graph.getRelationship(ids[i]);
+                }
+            }
+        }
+        return present(found);
+    }
+
+    /**
+     * Fetches many Nodes by id without building statements by hand. The ids are split into chunks, each sent as one
+     * statement that looks its ids up directly, and the chunks are sent together in a single transaction. The entity cache is not consulted,
+     * use getNodes(long...) for that.
+     *
+     * @param ids
+     *         The ids of the Nodes to fetch.
+     *
+     * @return A Graph holding the Nodes found, indexed by id. Ids with no Node are left out.
+     */
+    public Graph fetchNodes(long[] ids)
+    {
+        return fetchNodes(ids, 1);
+    }
+
+    /**
+     * Fetches many Nodes by id, as fetchNodes(long[]), spreading the chunks over up to <code>parallelism</code>
+     * transactions that are sent at the same time. Each transaction reads its own snapshot, so Nodes written while the
+     * fetch is in flight may be seen by some chunks and not others.
+     * <p>
+     * The transactions are sent as AsyncConnections, which works over http and https. Over https each one holds a
+     * thread while it is in flight, so parallelism beyond the pool's connections per route gains nothing.
+     *
+     * @param ids
+     *         The ids of the Nodes to fetch.
+     * @param parallelism
+     *         The most transactions to send at once.
+     *
+     * @return A Graph holding the Nodes found, indexed by id. Ids with no Node are left out.
+     */
+    public Graph fetchNodes(long[] ids, int parallelism)
+    {
+        return fetch(NODES_BY_ID, ids, parallelism);
+    }
+
+    /**
+     * Fetches many Relationships by id, chunked in the same way as fetchNodes(long[]).
+     *
+     * @param ids
+     *         The ids of the Relationships to fetch.
+     *
+     * @return A Graph holding the Relationships found, indexed by id. Ids with no Relationship are left out.
+     */
+    public Graph fetchRelationships(long[] ids)
+    {
+        return fetchRelationships(ids, 1);
+    }
+
+    /**
+     * Fetches many Relationships by id, spreading the chunks over up to <code>parallelism</code> concurrent
+     * transactions as fetchNodes(long[], int) does.
+     *
+     * @param ids
+     *         The ids of the Relationships to fetch.
+     * @param parallelism
+     *         The most transactions to send at once.
+     *
+     * @return A Graph holding the Relationships found, indexed by id. Ids with no Relationship are left out.
+     */
+    public Graph fetchRelationships(long[] ids, int parallelism)
+    {
+        return fetch(RELATIONSHIPS_BY_ID, ids, parallelism);
+    }
+
+    /**
+     * Drops cached Nodes with any of the given labels and Relationships of any of the given types, for writes made
+     * outside this client.
+     *
+     * @param tags
+     *         The labels and relationship types to invalidate.
+     */
+    public void invalidateEntityCache(String... tags)
+    {
+        EntityCache cache = entityCache;
+        if (cache != null)
+        {
+            cache.invalidate(new HashSet<>(Arrays.asList(tags)));
+        }
+    }
+
+    /**
+     * Drops every cached Node and Relationship.
+     */
+    public void clearEntityCache()
+    {
+        EntityCache cache = entityCache;
+        if (cache != null)
+        {
+            cache.clear();
+        }
+    }
+
+    /**
+     * Retrieves a snapshot of the entity cache's hit, miss and eviction counts.
+     *
+     * @return The current statistics, or null if the entity cache is not enabled.
+     */
+    public CacheStats getEntityCacheStats()
+    {
+        EntityCache cache = entityCache;
+        return cache == null ? null : cache.getStats();
+    }
+
+    private Graph fetch(String query, long[] ids, int parallelism)
+    {
+        if (parallelism < 1)
+        {
+            throw new IllegalArgumentException("parallelism must be at least 1");
+        }
+        List<GraphStatement> chunks = new ArrayList<>();
+        for (int from = 0; from < ids.length; from += FETCH_CHUNK_SIZE)
+        {
+            GraphStatement statement = new GraphStatement(query);
+            statement.setParam("ids", Arrays.copyOfRange(ids, from, Math.min(ids.length, from + FETCH_CHUNK_SIZE)));
+            chunks.add(statement);
+        }
+
+        if (chunks.isEmpty())
+        {
+            return new Graph(new HashSet<>(), new HashSet<>());
+        }
+        if (chunks.size() == 1)
+        {
+            execute(chunks.get(0));
+            return chunks.get(0).getResult();
+        }
+        if (parallelism == 1)
+        {
+            try (Connection connection = connectionFactory.openConnection())
+            {
+                // chunks often share nodes, relationships especially, so decode each node only once.
+                connection.setIdentityMap(true);
+                chunks.forEach(connection::add);
+                connection.commit();
+            }
+            return merge(chunks);
+        }
+
+        int groups = Math.min(parallelism, chunks.size());
+        List<CompletableFuture<List<Statement>>> commits = new ArrayList<>(groups);
+        for (int group = 0; group < groups; group++)
+        {
+            AsyncConnection connection = connectionFactory.getAsyncConnection();
+            for (int i = group; i < chunks.size(); i += groups)
+            {
+                connection.add(chunks.get(i));
+            }
+            commits.add(connection.commitAsync());
+        }
+        try
+        {
+            CompletableFuture.allOf(commits.toArray(new CompletableFuture<?>[0])).join();
+        }
+        catch (CompletionException e)
+        {
+            if (e.getCause() instanceof RuntimeException)
+            {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new Neo4jClientException(e.getCause());
+        }
+        return merge(chunks);
+    }
+
+    private static Graph merge(List<GraphStatement> chunks)
+    {
+        Set<Node> nodes = new HashSet<>();
+        Set<Relationship> relationships = new HashSet<>();
+        for (GraphStatement chunk : chunks)
+        {
+            nodes.addAll(chunk.getResult().getNodes());
+            relationships.addAll(chunk.getResult().getRelationships());
+        }
+        return new Graph(nodes, relationships);
+    }
+
+    private static long[] missingIds(long[] ids, Object[] found, int missing)
+    {
+        long[] result = new long[missing];
+        int size = 0;
+        for (int i = 0; i < ids.length; i++)
+        {
+            if (found[i] == null)
+            {
+                result[size++] = ids[i];
+            }
+        }
+        // no need to send the same id twice.
+        Arrays.sort(result);
+        int distinct = 0;
+        for (int i = 0; i < size; i++)
+        {
+            if (i == 0 || result[i] != result[i - 1])
+            {
+                result[distinct++] = result[i];
+            }
+        }
+        return Arrays.copyOf(result, distinct);
+    }
+
+    private static <T> List<T> present(T[] found)
+    {
+        List<T> result = new ArrayList<>(found.length);
+        for (T entity : found)
+        {
+            if (entity != null)
+            {
+                result.add(entity);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Turns on group commit. Statements passed to {@link #commitAsync(Statement)} are then held for up to
+     * <code>maxDelay</code>, or until <code>maxBatchSize</code> statements are waiting, and committed together in a
+     * single transaction. This trades a little latency for far fewer round trips when many threads each run one small
+     * write.
+     * <p>
+     * Statements that fail are isolated by retrying the rest of their batch, so a statement only ever fails because of
+     * its own error. Statements in a group commit must not depend on each other.
+     * <p>
+     * Batches are committed through AsyncConnections, so group commit works over http and https alike. Over https each
+     * batch in flight holds a thread until it commits, see AsyncConnection.
+     *
+     * @param maxBatchSize
+     *         The most statements to commit in one transaction.
+     * @param maxDelay
+     *         The longest a statement will wait for others to join its batch.
+     * @param unit
+     *         The unit of the delay.
+     *
+     * @return this client, to support chained method calls
+     */
+    public synchronized Neo4jClient enableGroupCommit(int maxBatchSize, long maxDelay, TimeUnit unit)
+    {
+        if (groupCommitter != null)
+        {
+            groupCommitter.close(maxDelay, unit);
+        }
+        groupCommitter = new GroupCommitter(connectionFactory, maxBatchSize, maxDelay, unit);
+        return this;
+    }
+
+    /**
+     * Commits the given statement in a transaction of its own or, if group commit has been enabled, in a transaction
+     * shared with statements submitted by other threads.
+     *
+     * @param statement
+     *         The statement to commit.
+     * @param <S>
+     *         The type of statement.
+     *
+     * @return A future completed with the statement, its result available, once it has been committed.
+     */
+    public <S extends Statement> CompletableFuture<S> commitAsync(S statement)
+    {
+        CompletableFuture<S> commit;
+        GroupCommitter committer = groupCommitter;
+        if (committer != null)
+        {
+            commit = committer.submit(statement);
+        }
+        else
+        {
+            AsyncConnection connection = connectionFactory.getAsyncConnection();
+            connection.add(statement);
+            commit = connection.commitAsync().thenApply(statements -> statement);
+        }
+        return isTracking() ? writeTracker.reportOnCommit(statement, commit) : commit;
+    }
+
+    private Connection track(Connection connection)
+    {
+        return isTracking() ? writeTracker.track(connection) : connection;
+    }
+
+    private boolean isTracking()
+    {
+        return resultCache != null || entityCache != null;
+    }
+
+    private void invalidateCaches(Set<String> tags)
+    {
+        ResultCache results = resultCache;
+        if (results != null)
+        {
+            results.invalidate(tags);
+        }
+        EntityCache entities = entityCache;
+        if (entities != null)
+        {
+            entities.invalidate(tags);
+        }
+    }
+
+    /**
+     * Closes this client, releasing any pooled network connections. Connections should not be requested after this has
+     * been called. Any statements waiting for a group commit are committed first.
+     */
+    @Override
+    public void close()
+    {
+        GroupCommitter committer = groupCommitter;
+        if (committer != null)
+        {
+            committer.close(30, TimeUnit.SECONDS);
+        }
+        connectionFactory.close();
     }
 }
@@ -65,4 +65,29 @@ public class Node
     {
         return this.properties;
     }
+
+    /**
+     * Nodes are equal if they have the same id, whatever their labels and properties, so the same node read twice in
+     * one result compares equal. Neo4J hands the id of a deleted node to the next one created, so Nodes from different
+     * results should not be compared.
+     */
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o)
+        {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass())
+        {
+            return false;
+        }
+        return id == ((Node) o).id;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Long.hashCode(id);
+    }
 }
@@ -0,0 +1,74 @@
+package io.innerloop.neo4j.client;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Lets concurrent reads of equal statements share a single request.
+ * <p>
+ * The first caller for a statement runs the read. Callers with an equal statement that arrive while it is in flight
+ * wait for it and receive the same result, RowSets each with a cursor of their own, or the same exception. Once the
+ * read completes later callers run a fresh one, so results are never older than the request that produced them.
+ */
+class ReadCoalescer
+{
+    private final ConcurrentHashMap<StatementKey, CompletableFuture<Object>> inFlight;
+
+    ReadCoalescer()
+    {
+        this.inFlight = new ConcurrentHashMap<>();
+    }
+
+    void read(Statement statement, Runnable read)
+    {
+        StatementKey key = new StatementKey(statement);
+        CompletableFuture<Object> call = new CompletableFuture<>();
+        CompletableFuture<Object> leader = inFlight.putIfAbsent(key, call);
+        if (leader != null)
+        {
+            Object result = await(leader);
+            if (result != null)
+            {
+                statement.setSharedResult(result);
+            }
+            return;
+        }
+
+        try
+        {
+            read.run();
+            call.complete(statement.getSharedResult());
+        }
+        catch (RuntimeException | Error e)
+        {
+            call.completeExceptionally(e);
+            throw e;
+        }
+        finally
+        {
+            inFlight.remove(key, call);
+        }
+    }
+
+    private static Object await(CompletableFuture<Object> leader)
+    {
+        try
+        {
+            return leader.join();
+        }
+        catch (CompletionException e)
+        {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException)
+            {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error)
+            {
+                throw (Error) cause;
+            }
+            throw new Neo4jClientException(cause);
+        }
+    }
+}
@@ -92,4 +92,28 @@ public class Relationship
     {
         return properties;
     }
+
+    /**
+     * Relationships are equal if they have the same id. The type, start and end nodes and properties are not compared,
+     * as within one graph result they cannot differ for the same id.
+     */
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o)
+        {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass())
+        {
+            return false;
+        }
+        return id == ((Relationship) o).id;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Long.hashCode(id);
+    }
 }
@@ -0,0 +1,180 @@
+package io.innerloop.neo4j.client;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A size bounded, least recently used cache of read results, keyed by a Statement's query, parameters and type.
+ * <p>
+ * Each result lives for its statement's cache TTL, or the cache default if none was set, and is dropped early when a
+ * statement carrying one of the same cache tags is committed through the client. Results are only stored if none of
+ * their tags were invalidated while the read was in flight, so a read racing a write cannot put stale data back.
+ *
+ * @see io.innerloop.neo4j.client.WriteTracker
+ */
+class ResultCache
+{
+    private final int maxEntries;
+
+    private final long defaultTtlNanos;
+
+    private final LinkedHashMap<StatementKey, CachedResult> entries;
+
+    private final Map<String, Long> invalidatedAt;
+
+
+    private long clock;
+
+    private long clearedAt;
+
+    private long hits;
+
+    private long misses;
+
+    private long evictions;
+
+    private long expirations;
+
+    private long invalidations;
+
+    ResultCache(int maxEntries, long defaultTtl, TimeUnit unit)
+    {
+        if (maxEntries < 1)
+        {
+            throw new IllegalArgumentException("maxEntries must be at least 1");
+        }
+        this.maxEntries = maxEntries;
+        this.defaultTtlNanos = unit.toNanos(defaultTtl);
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+        this.invalidatedAt = new HashMap<>();
+    }
+
+    /**
+     * Marks the start of a read, to be passed to store() once it completes.
+     */
+    synchronized long begin()
+    {
+        return clock;
+    }
+
+    /**
+     * Sets a cached result on the statement if there is one.
+     *
+     * @return true, if the statement was answered from the cache.
+     */
+    synchronized boolean lookup(Statement statement)
+    {
+        StatementKey key = new StatementKey(statement);
+        CachedResult entry = entries.get(key);
+        if (entry != null && entry.expiresAt - System.nanoTime() <= 0)
+        {
+            entries.remove(key);
+            expirations++;
+            entry = null;
+        }
+        if (entry == null)
+        {
+            misses++;
+            return false;
+        }
+
+        hits++;
+        statement.setSharedResult(entry.result);
+        return true;
+    }
+
+    synchronized void store(Statement statement, long startedAt)
+    {
+        long ttl = statement.getCacheTtl(TimeUnit.NANOSECONDS);
+        if (ttl < 0)
+        {
+            ttl = defaultTtlNanos;
+        }
+        if (ttl == 0 || clearedAt > startedAt)
+        {
+            return;
+        }
+        for (String tag : statement.getCacheTags())
+        {
+            Long invalidated = invalidatedAt.get(tag);
+            if (invalidated != null && invalidated > startedAt)
+            {
+                return;
+            }
+        }
+
+        Object result = statement.getSharedResult();
+        if (result == null)
+        {
+            return;
+        }
+        entries.put(new StatementKey(statement), new CachedResult(result, statement.getCacheTags(), System.nanoTime() + ttl));
+        evict();
+    }
+
+    synchronized void invalidate(Set<String> tags)
+    {
+        if (tags.isEmpty())
+        {
+            return;
+        }
+        clock++;
+        for (String tag : tags)
+        {
+            invalidatedAt.put(tag, clock);
+        }
+        for (Iterator<CachedResult> it = entries.values().iterator(); it.hasNext(); )
+        {
+            if (!Collections.disjoint(it.next().tags, tags))
+            {
+                it.remove();
+                invalidations++;
+            }
+        }
+    }
+
+    synchronized void clear()
+    {
+        clearedAt = ++clock;
+        invalidations += entries.size();
+        entries.clear();
+    }
+
+    synchronized CacheStats getStats()
+    {
+        return new CacheStats(entries.size(), hits, misses, evictions, expirations, invalidations);
+    }
+
+    private void evict()
+    {
+        // entries are kept in access order, so the eldest is the least recently used.
+        Iterator<CachedResult> eldest = entries.values().iterator();
+        while (entries.size() > maxEntries)
+        {
+            eldest.next();
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    private static final class CachedResult
+    {
+        private final Object result;
+
+        private final Set<String> tags;
+
+        private final long expiresAt;
+
+        private CachedResult(Object result, Set<String> tags, long expiresAt)
+        {
+            this.result = result;
+            this.tags = tags;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package io.innerloop.neo4j.client;
+
+/**
+ * A read only view of a single row handed to a RowHandler.
+ * <p>
+ * The accessors mirror those on RowSet. Integers, floating point numbers and booleans are held without boxing, so
+ * getLong(int), getDouble(int) and getBoolean(int) do not allocate.
+ */
+public interface Row
+{
+    /**
+     * Retrieves the column names in this result.
+     *
+     * @return The names of the columns in the order they appear in the row data.
+     */
+    String[] getColumnNames();
+
+    /**
+     * Retrieves the number of values in this row.
+     *
+     * @return The number of values.
+     */
+    int size();
+
+    /**
+     * Determines if the value for a column is null.
+     *
+     * @param column The column number to check.
+     *
+     * @return true, if the value is null.
+     */
+    boolean isNull(int column);
+
+    /**
+     * Retrieves the value for a column, boxing it if necessary.
+     *
+     * @param column The column number to retrieve the value from.
+     *
+     * @return The value in the specified column.
+     */
+    Object getObject(int column);
+
+    /**
+     * Retrieves the value for a column as a String.
+     *
+     * @param column The column number to retrieve the value from.
+     *
+     * @return The value as a string in the specified column.
+     */
+    String getString(int column);
+
+    /**
+     * Retrieves the value for a column as an int.
+     *
+     * @param column The column number to retrieve the value from.
+     *
+     * @return The value as an int in the specified column, or 0 if it is null.
+     */
+    int getInt(int column);
+
+    /**
+     * Retrieves the value for a column as a long.
+     *
+     * @param column The column number to retrieve the value from.
+     *
+     * @return The value as a long in the specified column, or 0 if it is null.
+     */
+    long getLong(int column);
+
+    /**
+     * Retrieves the value for a column as a double.
+     *
+     * @param column The column number to retrieve the value from.
+     *
+     * @return The value as a double in the specified column, or 0 if it is null.
+     */
+    double getDouble(int column);
+
+    /**
+     * Retrieves the value for a column as a boolean.
+     *
+     * @param column The column number to retrieve the value from.
+     *
+     * @return The value as a boolean in the specified column, or false if it is null.
+     */
+    boolean getBoolean(int column);
+
+    /**
+     * Copies the values of this row into a new array, in the same form RowSet#next() returns them.
+     *
+     * @return The values of this row.
+     */
+    Object[] toArray();
+}
@@ -0,0 +1,32 @@
+package io.innerloop.neo4j.client;
+
+/**
+ * Receives the rows of a RowStatement one at a time while the response is still being read, instead of having them
+ * collected into a RowSet.
+ * <p>
+ * Use this for results that are only aggregated or forwarded somewhere else. On a blocking Connection without
+ * pipelining the rows are decoded straight off the socket, so results too large to hold in memory can be read this way.
+ * AsyncConnections and pipelined flushes receive the whole response body into memory before decoding it: the rows are
+ * still not collected into a RowSet, but the raw JSON of the response is held until it has been read.
+ * <p>
+ * Rows are handed over as soon as they are decoded, before the server has reported any errors for the transaction, so
+ * a handler may see rows of a statement that then fails.
+ * <p>
+ * Handlers are called on whichever thread reads the response, which for asynchronous and pipelined connections is not
+ * the thread that added the statement. If a handler throws, reading stops, the exception is thrown from the method
+ * that sent the statement and the underlying HTTP connection is discarded.
+ *
+ * @see io.innerloop.neo4j.client.RowStatement#RowStatement(String, RowHandler)
+ */
+@FunctionalInterface
+public interface RowHandler
+{
+    /**
+     * Called once for each row in the result.
+     *
+     * @param row
+     *         A view of the current row. The same instance is reused for every row so it must not be kept after this
+     *         method returns, copy the values out (e.g. with Row#toArray()) if they are needed later.
+     */
+    void handle(Row row);
+}
@@ -1,17 +1,30 @@
 package io.innerloop.neo4j.client;
 
+import java.nio.DoubleBuffer;
+import java.nio.LongBuffer;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
 
 /**
  * A RowSet is similar to a JDBC ResultSet only it is very stripped down.
  * <p>
  * This object will be returned when making a Row based statement.
+ * <p>
+ * Data is held by column rather than by row. Columns whose values are all integers, all floating point numbers or all
+ * booleans are stored in primitive arrays, with nulls tracked in a bitmap, so that numeric results do not cost an
+ * object per value. getLong(int), getDouble(int) and getBoolean(int) read these columns without allocating and
+ * longColumn(int)/doubleColumn(int) expose a whole column at once. Any other column holds its values as objects.
+ * <p>
+ * The data of a RowSet never changes once it is built. hasNext(), next() and the getters share one cursor that is kept
+ * in the RowSet itself, so they must only be used by one thread. cursor() returns independent cursors that let any
+ * number of threads read the same RowSet concurrently.
  */
 public class RowSet
 {
     private final String[] columnNames;
 
-    private final List<Object[]> rows;
+    private final Column[] columns;
 
     private final int totalRows;
 
@@ -27,12 +40,39 @@ public class RowSet
      */
     public RowSet(String[] columnNames, List<Object[]> rows)
     {
+        Builder builder = new Builder();
+        for (Object[] row : rows)
+        {
+            for (int i = 0; i < row.length; i++)
+            {
+                builder.add(i, row[i]);
+            }
+            builder.endRow();
+        }
+        builder.setColumnNames(columnNames);
+
         this.columnNames = columnNames;
-        this.rows = rows;
-        this.totalRows = this.rows.size();
+        this.columns = builder.columns();
+        this.totalRows = builder.rows;
         this.currentRow = 0;
     }
 
+    private RowSet(String[] columnNames, Column[] columns, int totalRows)
+    {
+        this.columnNames = columnNames;
+        this.columns = columns;
+        this.totalRows = totalRows;
+        this.currentRow = 0;
+    }
+
+    /**
+     * Creates a RowSet over the same data with its own cursor, starting before the first row.
+     */
+    RowSet copy()
+    {
+        return new RowSet(columnNames, columns, totalRows);
+    }
+
     /**
      * Determines if there is another row in the result set.
      *
@@ -50,7 +90,17 @@ public class RowSet
      */
     public Object[] next()
     {
-        return rows.get(currentRow++);
+        int row = currentRow++;
+        if (row >= totalRows)
+        {
+            throw new IndexOutOfBoundsException("Row: " + row + ", Size: " + totalRows);
+        }
+        Object[] values = new Object[columns.length];
+        for (int i = 0; i < columns.length; i++)
+        {
+            values[i] = columns[i].get(row);
+        }
+        return values;
     }
 
     /**
@@ -63,6 +113,40 @@ public class RowSet
         return columnNames;
     }
 
+    /**
+     * Retrieves the number of rows in this result.
+     *
+     * @return The number of rows.
+     */
+    public int getRowCount()
+    {
+        return totalRows;
+    }
+
+    /**
+     * Determines if the value for a column in the current row is null.
+     *
+     * @param column The column number to check.
+     *
+     * @return true, if the value is null.
+     */
+    public boolean isNull(int column)
+    {
+        return isNull(row(), column);
+    }
+
+    /**
+     * Retrieves the value for a column in the current row.
+     *
+     * @param column The column number to retrieve the value from.
+     *
+     * @return The value in the specified column, boxed if it is stored as a primitive.
+     */
+    public Object getObject(int column)
+    {
+        return getObject(row(), column);
+    }
+
     /**
      * Retrieves the value for a column in the current row as a String.
      *
@@ -72,7 +156,7 @@ public class RowSet
      */
     public String getString(int column)
     {
-        return (String) getRow(currentRow)[column];
+        return (String) getObject(column);
     }
 
     /**
@@ -80,11 +164,11 @@ public class RowSet
      *
      * @param column The column number to retrieve the value from.
      *
-     * @return The value as an int in the specified column.
+     * @return The value as an int in the specified column, or 0 if it is null.
      */
     public int getInt(int column)
     {
-        return (int) getRow(currentRow)[column];
+        return getInt(row(), column);
     }
 
     /**
@@ -92,11 +176,11 @@ public class RowSet
      *
      * @param column The column number to retrieve the value from.
      *
-     * @return The value as a long in the specified column.
+     * @return The value as a long in the specified column, or 0 if it is null.
      */
     public long getLong(int column)
     {
-        return ((Number)getRow(currentRow)[column]).longValue();
+        return getLong(row(), column);
     }
 
     /**
@@ -104,11 +188,16 @@ public class RowSet
      *
      * @param column The column number to retrieve the value from.
      *
-     * @return The value as a float in the specified column.
+     * @return The value as a float in the specified column, or 0 if it is null.
      */
     public float getFloat(int column)
     {
-        return (float) getRow(currentRow)[column];
+        Column c = column(column);
+        if (c.type == Column.DOUBLE || c.type == Column.UNKNOWN)
+        {
+            return (float) c.getDouble(row());
+        }
+        return (float) c.get(row());
     }
 
     /**
@@ -116,11 +205,11 @@ public class RowSet
      *
      * @param column The column number to retrieve the value from.
      *
-     * @return The value as a double in the specified column.
+     * @return The value as a double in the specified column, or 0 if it is null.
      */
     public double getDouble(int column)
     {
-        return (double) getRow(currentRow)[column];
+        return getDouble(row(), column);
     }
 
     /**
@@ -128,11 +217,11 @@ public class RowSet
      *
      * @param column The column number to retrieve the value from.
      *
-     * @return The value as a boolean in the specified column.
+     * @return The value as a boolean in the specified column, or false if it is null.
      */
     public boolean getBoolean(int column)
     {
-        return (boolean) getRow(currentRow)[column];
+        return getBoolean(row(), column);
     }
 
     /**
@@ -144,7 +233,7 @@ public class RowSet
      */
     public short getShort(int column)
     {
-        return (short) getRow(currentRow)[column];
+        return (short) getObject(column);
     }
 
     /**
@@ -156,7 +245,7 @@ public class RowSet
      */
     public byte getByte(int column)
     {
-        return (byte) getRow(currentRow)[column];
+        return (byte) getObject(column);
     }
 
     /**
@@ -168,11 +257,581 @@ public class RowSet
      */
     public char getChar(int column)
     {
-        return (char) getRow(currentRow)[column];
+        return (char) getObject(column);
+    }
+
+    /**
+     * Retrieves every value of an integer column at once. Nulls read as 0, use isNull(int) to tell them apart.
+     *
+     * @param column The column number to retrieve.
+     *
+     * @return A read only view over the column's values, one per row.
+     *
+     * @throws IllegalStateException
+     *         If the column holds anything other than integers and nulls.
+     */
+    public LongBuffer longColumn(int column)
+    {
+        Column c = column(column);
+        if (c.type == Column.UNKNOWN)
+        {
+            return LongBuffer.wrap(new long[totalRows]).asReadOnlyBuffer();
+        }
+        if (c.type != Column.LONG)
+        {
+            throw new IllegalStateException("Column " + column + " does not hold integer values.");
+        }
+        return LongBuffer.wrap(c.longs, 0, totalRows).slice().asReadOnlyBuffer();
+    }
+
+    /**
+     * Retrieves every value of a floating point column at once. Nulls read as 0, use isNull(int) to tell them apart.
+     *
+     * @param column The column number to retrieve.
+     *
+     * @return A read only view over the column's values, one per row.
+     *
+     * @throws IllegalStateException
+     *         If the column holds anything other than floating point numbers and nulls.
+     */
+    public DoubleBuffer doubleColumn(int column)
+    {
+        Column c = column(column);
+        if (c.type == Column.UNKNOWN)
+        {
+            return DoubleBuffer.wrap(new double[totalRows]).asReadOnlyBuffer();
+        }
+        if (c.type != Column.DOUBLE)
+        {
+            throw new IllegalStateException("Column " + column + " does not hold floating point values.");
+        }
+        return DoubleBuffer.wrap(c.doubles, 0, totalRows).slice().asReadOnlyBuffer();
+    }
+
+    /**
+     * Creates a new cursor over this RowSet, positioned before the first row. Cursors are independent of each other
+     * and of the hasNext()/next() cursor built into this RowSet, so any number of threads may read the same RowSet at
+     * once, each with its own cursor.
+     *
+     * @return A new cursor.
+     */
+    public Cursor cursor()
+    {
+        return new Cursor();
+    }
+
+    private boolean isNull(int row, int column)
+    {
+        return column(column).isNull(row);
+    }
+
+    private Object getObject(int row, int column)
+    {
+        return column(column).get(row);
+    }
+
+    private int getInt(int row, int column)
+    {
+        Column c = column(column);
+        if (c.type == Column.LONG || c.type == Column.UNKNOWN)
+        {
+            return (int) c.getLong(row);
+        }
+        Object value = c.get(row);
+        return value == null ? 0 : ((Number) value).intValue();
+    }
+
+    private long getLong(int row, int column)
+    {
+        Column c = column(column);
+        if (c.type == Column.LONG || c.type == Column.UNKNOWN)
+        {
+            return c.getLong(row);
+        }
+        Object value = c.get(row);
+        return value == null ? 0 : ((Number) value).longValue();
+    }
+
+    private double getDouble(int row, int column)
+    {
+        Column c = column(column);
+        if (c.type == Column.DOUBLE || c.type == Column.UNKNOWN)
+        {
+            return c.getDouble(row);
+        }
+        if (c.type == Column.LONG)
+        {
+            return c.getLong(row);
+        }
+        // a column that mixes integers and floating point numbers is held as objects.
+        Object value = c.get(row);
+        return value == null ? 0 : ((Number) value).doubleValue();
     }
 
-    private Object[] getRow(int index)
+    private boolean getBoolean(int row, int column)
     {
-        return rows.get(index);
+        Column c = column(column);
+        if (c.type == Column.BOOLEAN || c.type == Column.UNKNOWN)
+        {
+            return c.getBoolean(row);
+        }
+        return (boolean) c.get(row);
+    }
+
+    private Column column(int column)
+    {
+        if (column < 0 || column >= columns.length)
+        {
+            throw new ArrayIndexOutOfBoundsException(column);
+        }
+        return columns[column];
+    }
+
+    private int row()
+    {
+        if (currentRow >= totalRows)
+        {
+            throw new IndexOutOfBoundsException("Row: " + currentRow + ", Size: " + totalRows);
+        }
+        return currentRow;
+    }
+
+    /**
+     * A read only position in a RowSet, in the style of a JDBC ResultSet: call next() to move to each row in turn and
+     * read it through the Row accessors. Cursors hold nothing but their position, so they are cheap to create.
+     */
+    public class Cursor implements Row
+    {
+        private int row = -1;
+
+        /**
+         * Moves to the next row.
+         *
+         * @return true, if there was another row to move to.
+         */
+        public boolean next()
+        {
+            if (row + 1 >= totalRows)
+            {
+                row = totalRows;
+                return false;
+            }
+            row++;
+            return true;
+        }
+
+        /**
+         * @return The index of the current row, starting from 0.
+         */
+        public int getRow()
+        {
+            return row;
+        }
+
+        @Override
+        public String[] getColumnNames()
+        {
+            return columnNames;
+        }
+
+        @Override
+        public int size()
+        {
+            return columns.length;
+        }
+
+        @Override
+        public boolean isNull(int column)
+        {
+            return RowSet.this.isNull(current(), column);
+        }
+
+        @Override
+        public Object getObject(int column)
+        {
+            return RowSet.this.getObject(current(), column);
+        }
+
+        @Override
+        public String getString(int column)
+        {
+            return (String) getObject(column);
+        }
+
+        @Override
+        public int getInt(int column)
+        {
+            return RowSet.this.getInt(current(), column);
+        }
+
+        @Override
+        public long getLong(int column)
+        {
+            return RowSet.this.getLong(current(), column);
+        }
+
+        @Override
+        public double getDouble(int column)
+        {
+            return RowSet.this.getDouble(current(), column);
+        }
+
+        @Override
+        public boolean getBoolean(int column)
+        {
+            return RowSet.this.getBoolean(current(), column);
+        }
+
+        @Override
+        public Object[] toArray()
+        {
+            int row = current();
+            Object[] values = new Object[columns.length];
+            for (int i = 0; i < columns.length; i++)
+            {
+                values[i] = columns[i].get(row);
+            }
+            return values;
+        }
+
+        private int current()
+        {
+            if (row < 0 || row >= totalRows)
+            {
+                throw new IllegalStateException("The cursor is not on a row, call next() first.");
+            }
+            return row;
+        }
+    }
+
+    /**
+     * Builds a RowSet a value at a time, choosing the most compact storage for each column as values arrive. Values for
+     * a row must be added in column order, followed by a call to endRow(). Columns missing from a row are null.
+     */
+    public static class Builder
+    {
+        private Column[] columns = new Column[0];
+
+        private String[] columnNames = new String[0];
+
+        private int rows;
+
+        /**
+         * Sets the names of the columns. May be called before or after the rows are added.
+         */
+        public Builder setColumnNames(String[] columnNames)
+        {
+            this.columnNames = columnNames;
+            return this;
+        }
+
+        /**
+         * Adds a null to the current row.
+         */
+        public Builder addNull(int column)
+        {
+            column(column).addNull();
+            return this;
+        }
+
+        /**
+         * Adds an integer to the current row without boxing it.
+         */
+        public Builder addLong(int column, long value)
+        {
+            column(column).addLong(value);
+            return this;
+        }
+
+        /**
+         * Adds a floating point number to the current row without boxing it.
+         */
+        public Builder addDouble(int column, double value)
+        {
+            column(column).addDouble(value);
+            return this;
+        }
+
+        /**
+         * Adds a boolean to the current row without boxing it.
+         */
+        public Builder addBoolean(int column, boolean value)
+        {
+            column(column).addBoolean(value);
+            return this;
+        }
+
+        /**
+         * Adds any value to the current row, unboxing it where the column allows.
+         */
+        public Builder add(int column, Object value)
+        {
+            column(column).add(value);
+            return this;
+        }
+
+        /**
+         * Finishes the current row, filling any columns it did not set with nulls.
+         */
+        public Builder endRow()
+        {
+            rows++;
+            for (Column column : columns)
+            {
+                while (column.size < rows)
+                {
+                    column.addNull();
+                }
+            }
+            return this;
+        }
+
+        /**
+         * Creates the RowSet from the rows added so far.
+         */
+        public RowSet build()
+        {
+            return new RowSet(columnNames, columns(), rows);
+        }
+
+        private Column[] columns()
+        {
+            if (columns.length < columnNames.length)
+            {
+                for (int i = columns.length; i < columnNames.length; i++)
+                {
+                    column(i);
+                }
+            }
+            return columns;
+        }
+
+        private Column column(int column)
+        {
+            if (column >= columns.length)
+            {
+                Column[] grown = Arrays.copyOf(columns, column + 1);
+                for (int i = columns.length; i < grown.length; i++)
+                {
+                    grown[i] = new Column();
+                    while (grown[i].size < rows)
+                    {
+                        grown[i].addNull();
+                    }
+                }
+                columns = grown;
+            }
+            return columns[column];
+        }
+    }
+
+    /**
+     * The values of one column. A column starts out untyped and takes the type of its first non null value. If a value
+     * of another type turns up later the column falls back to holding boxed objects. Integers and Longs are the same
+     * type here: both go into the long[], and are boxed back as Integers where they fit unless a Long was added, as the
+     * JSON decoder produces Integers for small values.
+     */
+    private static final class Column
+    {
+        private static final byte UNKNOWN = 0;
+
+        private static final byte LONG = 1;
+
+        private static final byte DOUBLE = 2;
+
+        private static final byte BOOLEAN = 3;
+
+        private static final byte OBJECT = 4;
+
+        private final BitSet nulls = new BitSet();
+
+        private byte type = UNKNOWN;
+
+        private boolean boxedAsLong;
+
+        private int size;
+
+        private long[] longs;
+
+        private double[] doubles;
+
+        private BitSet booleans;
+
+        private Object[] objects;
+
+        boolean isNull(int row)
+        {
+            return nulls.get(row);
+        }
+
+        long getLong(int row)
+        {
+            return type == LONG ? longs[row] : 0;
+        }
+
+        double getDouble(int row)
+        {
+            return type == DOUBLE ? doubles[row] : 0;
+        }
+
+        boolean getBoolean(int row)
+        {
+            return type == BOOLEAN && booleans.get(row);
+        }
+
+        Object get(int row)
+        {
+            if (nulls.get(row))
+            {
+                return null;
+            }
+            switch (type)
+            {
+                case LONG:
+                    return boxedAsLong ? (Object) longs[row] : box(longs[row]);
+                case DOUBLE:
+                    return doubles[row];
+                case BOOLEAN:
+                    return booleans.get(row);
+                case OBJECT:
+                    return objects[row];
+                default:
+                    return null;
+            }
+        }
+
+        void addNull()
+        {
+            nulls.set(size);
+            ensureCapacity();
+            size++;
+        }
+
+        void addLong(long value)
+        {
+            if (type == UNKNOWN)
+            {
+                type = LONG;
+                longs = new long[Math.max(16, size + 1)];
+            }
+            if (type != LONG)
+            {
+                addObject(box(value));
+                return;
+            }
+            ensureCapacity();
+            longs[size++] = value;
+        }
+
+        void addDouble(double value)
+        {
+            if (type == UNKNOWN)
+            {
+                type = DOUBLE;
+                doubles = new double[Math.max(16, size + 1)];
+            }
+            if (type != DOUBLE)
+            {
+                addObject(value);
+                return;
+            }
+            ensureCapacity();
+            doubles[size++] = value;
+        }
+
+        void addBoolean(boolean value)
+        {
+            if (type == UNKNOWN)
+            {
+                type = BOOLEAN;
+                booleans = new BitSet();
+            }
+            if (type != BOOLEAN)
+            {
+                addObject(value);
+                return;
+            }
+            booleans.set(size++, value);
+        }
+
+        void add(Object value)
+        {
+            if (value == null)
+            {
+                addNull();
+            }
+            else if (value instanceof Integer)
+            {
+                addLong((Integer) value);
+            }
+            else if (value instanceof Long)
+            {
+                // remember that the caller used Longs so that getObject(int) boxes them back the same way.
+                boxedAsLong = true;
+                addLong((Long) value);
+            }
+            else if (value instanceof Double)
+            {
+                addDouble((Double) value);
+            }
+            else if (value instanceof Boolean)
+            {
+                addBoolean((Boolean) value);
+            }
+            else
+            {
+                addObject(value);
+            }
+        }
+
+        private void addObject(Object value)
+        {
+            if (type != OBJECT)
+            {
+                Object[] boxed = new Object[Math.max(16, size + 1)];
+                for (int i = 0; i < size; i++)
+                {
+                    boxed[i] = get(i);
+                }
+                objects = boxed;
+                longs = null;
+                doubles = null;
+                booleans = null;
+                type = OBJECT;
+            }
+            ensureCapacity();
+            objects[size++] = value;
+        }
+
+        private void ensureCapacity()
+        {
+            switch (type)
+            {
+                case LONG:
+                    if (size >= longs.length)
+                    {
+                        longs = Arrays.copyOf(longs, Math.max(size + 1, longs.length * 2));
+                    }
+                    break;
+                case DOUBLE:
+                    if (size >= doubles.length)
+                    {
+                        doubles = Arrays.copyOf(doubles, Math.max(size + 1, doubles.length * 2));
+                    }
+                    break;
+                case OBJECT:
+                    if (size >= objects.length)
+                    {
+                        objects = Arrays.copyOf(objects, Math.max(size + 1, objects.length * 2));
+                    }
+                    break;
+                default:
+            }
+        }
+
+        private static Object box(long value)
+        {
+            return value == (int) value ? (Object) (int) value : (Object) value;
+        }
     }
 }
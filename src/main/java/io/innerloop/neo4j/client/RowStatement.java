@@ -8,11 +8,30 @@ package io.innerloop.neo4j.client;
  */
 public class RowStatement extends Statement
 {
+    private final RowHandler rowHandler;
+
     private RowSet result;
 
     public RowStatement(String query)
+    {
+        this(query, null);
+    }
+
+    /**
+     * Creates a RowStatement whose rows are handed to a RowHandler as the response is read rather than collected into
+     * the result. On a blocking, non pipelined Connection memory use then stays the same however many rows the query
+     * returns, see {@link RowHandler} for the other paths. The RowSet result of such a statement holds the column names
+     * but no rows.
+     *
+     * @param query
+     *         The cypher query to execute.
+     * @param rowHandler
+     *         The handler to call with each row.
+     */
+    public RowStatement(String query, RowHandler rowHandler)
     {
         super(query);
+        this.rowHandler = rowHandler;
     }
 
     @Override
@@ -21,6 +40,16 @@ public class RowStatement extends Statement
         return "row";
     }
 
+    /**
+     * Retrieves the handler rows are streamed to.
+     *
+     * @return The handler passed to the constructor or null if rows are collected into the result.
+     */
+    public RowHandler getRowHandler()
+    {
+        return rowHandler;
+    }
+
     /**
      * Retrieves the result of this Statement. Only accessible after Connection#commit() has been called.
      *
@@ -42,4 +71,23 @@ public class RowStatement extends Statement
     {
         this.result = result;
     }
+
+    @Override
+    boolean isShareable()
+    {
+        return rowHandler == null;
+    }
+
+    @Override
+    Object getSharedResult()
+    {
+        // every reader gets its own cursor over the shared columns.
+        return result == null ? null : result.copy();
+    }
+
+    @Override
+    void setSharedResult(Object result)
+    {
+        this.result = ((RowSet) result).copy();
+    }
 }
@@ -3,8 +3,13 @@ package io.innerloop.neo4j.client;
 import io.innerloop.neo4j.client.spi.impl.rest.json.JSONArray;
 import io.innerloop.neo4j.client.spi.impl.rest.json.JSONObject;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Neo4J supports two forms fo Statement Requests: Graphs and Rows.
@@ -26,6 +31,12 @@ public abstract class Statement
 
     protected boolean includeStats;
 
+    private boolean lazyProperties;
+
+    private Set<String> cacheTags;
+
+    private long cacheTtlNanos;
+
     /**
      * Create a new Statement for the provided cypher query.
      *
@@ -38,6 +49,8 @@ public abstract class Statement
         this.parameters = new HashMap<>();
         this.includeStats = false;
         this.resultDataContents = new String[] {getType()};
+        this.cacheTags = Collections.emptySet();
+        this.cacheTtlNanos = -1;
     }
 
 
@@ -66,6 +79,142 @@ public abstract class Statement
         parameters.put(key, value);
     }
 
+    /**
+     * Retrieves the parameters bound to this statement.
+     *
+     * @return The parameters to replace in the cypher query, keyed by placeholder name.
+     */
+    public Map<String, Object> getParameters()
+    {
+        return this.parameters;
+    }
+
+    /**
+     * Determines if the server should include statistics with this statement's result.
+     *
+     * @return true, if statistics were requested.
+     */
+    public boolean isIncludeStats()
+    {
+        return this.includeStats;
+    }
+
+    /**
+     * Defers decoding the properties of Nodes and Relationships, and maps returned in rows, until they are first used.
+     * Until then each holds only the JSON text it was sent as, which is much cheaper for queries that mostly read ids
+     * and labels. The resulting maps are read only.
+     *
+     * @param lazyProperties
+     *         true, to decode properties on first use.
+     */
+    public void setLazyProperties(boolean lazyProperties)
+    {
+        this.lazyProperties = lazyProperties;
+    }
+
+    /**
+     * Determines if properties in this statement's result are decoded on first use.
+     *
+     * @return true, if properties are decoded lazily.
+     */
+    public boolean isLazyProperties()
+    {
+        return this.lazyProperties;
+    }
+
+    /**
+     * Tags this statement with the labels (or any other names) it reads or writes, for the client's result cache.
+     * <p>
+     * A cached read is dropped as soon as a statement sharing one of its tags is committed through the client, so
+     * writes should be tagged with every label they touch. Untagged results are only dropped once their time to live
+     * has passed.
+     *
+     * @param tags
+     *         The tags for this statement.
+     *
+     * @see io.innerloop.neo4j.client.Neo4jClient#enableResultCache(int, long, TimeUnit)
+     */
+    public void setCacheTags(String... tags)
+    {
+        this.cacheTags = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(tags)));
+    }
+
+    /**
+     * Retrieves the tags set with setCacheTags(String...).
+     *
+     * @return The tags of this statement, never null.
+     */
+    public Set<String> getCacheTags()
+    {
+        return this.cacheTags;
+    }
+
+    /**
+     * Overrides how long the client's result cache may keep this statement's result. A TTL of 0 stops the result from
+     * being cached at all.
+     *
+     * @param ttl
+     *         The time to live.
+     * @param unit
+     *         The unit of the time to live.
+     */
+    public void setCacheTtl(long ttl, TimeUnit unit)
+    {
+        if (ttl < 0)
+        {
+            throw new IllegalArgumentException("ttl must not be negative");
+        }
+        this.cacheTtlNanos = unit.toNanos(ttl);
+    }
+
+    /**
+     * Retrieves the time to live set with setCacheTtl(long, TimeUnit).
+     *
+     * @param unit
+     *         The unit to return the time to live in.
+     *
+     * @return The time to live or -1 if the cache's default applies.
+     */
+    public long getCacheTtl(TimeUnit unit)
+    {
+        return cacheTtlNanos < 0 ? -1 : unit.convert(cacheTtlNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Determines if this statement's result can be handed to other, equal statements by the result cache and read
+     * coalescing. Streamed results cannot.
+     * <p>
+     * Statements are not shareable unless they say otherwise, so a Statement subclass from outside this package never
+     * has its result shared and does not need to implement any of the sharing methods.
+     */
+    boolean isShareable()
+    {
+        return false;
+    }
+
+    /**
+     * Retrieves this statement's result in a form that can be set on another statement with setSharedResult(Object).
+     *
+     * @return The result or null if there is none.
+     */
+    Object getSharedResult()
+    {
+        return null;
+    }
+
+    /**
+     * Sets a result retrieved with getSharedResult() from an equal statement. The result cache and read coalescing
+     * only call this once isShareable() has returned true, so statements that override isShareable() must override
+     * this as well.
+     *
+     * @param result
+     *         The shared result.
+     */
+    void setSharedResult(Object result)
+    {
+        throw new IllegalStateException(getClass().getName() + " is not shareable.");
+    }
+
     /**
      * Returns either "row" or "graph".
      *
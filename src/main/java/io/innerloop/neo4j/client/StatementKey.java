@@ -0,0 +1,72 @@
+package io.innerloop.neo4j.client;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Identifies a Statement by its query, parameters and type, as Statement.equals() does, but over a snapshot of the
+ * parameters and comparing array parameters by content. Used to match reads that can share a result.
+ */
+final class StatementKey
+{
+    private final String query;
+
+    private final String type;
+
+    private final Map<String, Object> parameters;
+
+    private final int hash;
+
+    StatementKey(Statement statement)
+    {
+        this.query = statement.getQuery();
+        this.type = statement.getType();
+        // a snapshot, so that later changes to the statement cannot change the key.
+        this.parameters = new HashMap<>(statement.getParameters());
+
+        int parametersHash = 0;
+        for (Map.Entry<String, Object> parameter : parameters.entrySet())
+        {
+            parametersHash += Objects.hashCode(parameter.getKey()) ^
+                              Arrays.deepHashCode(new Object[] {parameter.getValue()});
+        }
+        this.hash = 31 * (31 * query.hashCode() + type.hashCode()) + parametersHash;
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o)
+        {
+            return true;
+        }
+        if (!(o instanceof StatementKey))
+        {
+            return false;
+        }
+        StatementKey that = (StatementKey) o;
+        if (hash != that.hash || !query.equals(that.query) || !type.equals(that.type) ||
+            parameters.size() != that.parameters.size())
+        {
+            return false;
+        }
+        // parameters may be arrays, which Map.equals() would compare by identity.
+        for (Map.Entry<String, Object> parameter : parameters.entrySet())
+        {
+            if (!that.parameters.containsKey(parameter.getKey()) ||
+                !Objects.deepEquals(parameter.getValue(), that.parameters.get(parameter.getKey())))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return hash;
+    }
+}
@@ -0,0 +1,236 @@
+package io.innerloop.neo4j.client;
+
+import java.time.OffsetDateTime;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Reports the cache tags of statements as they are committed through the client, so the client's caches can drop
+ * whatever those statements may have changed.
+ * <p>
+ * Connections handed out by the client while a cache is enabled are wrapped so that a successful commit reports the
+ * tags of every statement the connection ran.
+ */
+class WriteTracker
+{
+    private final Consumer<Set<String>> listener;
+
+    private final Map<Object, Set<String>> pendingTags;
+
+    WriteTracker(Consumer<Set<String>> listener)
+    {
+        this.listener = listener;
+        this.pendingTags = new WeakHashMap<>();
+    }
+
+    /**
+     * Reports the statement's tags once the given commit succeeds.
+     */
+    <T> CompletableFuture<T> reportOnCommit(Statement statement, CompletableFuture<T> commit)
+    {
+        Set<String> tags = statement.getCacheTags();
+        if (tags.isEmpty())
+        {
+            return commit;
+        }
+        return commit.whenComplete((result, e) -> {
+            if (e == null)
+            {
+                listener.accept(tags);
+            }
+        });
+    }
+
+    Connection track(Connection connection)
+    {
+        return new TrackingConnection(connection);
+    }
+
+    AsyncConnection track(AsyncConnection connection)
+    {
+        return new TrackingAsyncConnection(connection);
+    }
+
+    /**
+     * Remembers the tags of a statement added to a connection. They are kept against the underlying connection, not
+     * the wrapper, because a thread bound connection may be fetched (and wrapped) again before it is committed.
+     */
+    private synchronized void added(Object connection, Statement statement)
+    {
+        Set<String> tags = statement.getCacheTags();
+        if (!tags.isEmpty())
+        {
+            pendingTags.computeIfAbsent(connection, c -> new HashSet<>()).addAll(tags);
+        }
+    }
+
+    private synchronized Set<String> finished(Object connection)
+    {
+        Set<String> tags = pendingTags.remove(connection);
+        return tags == null ? Collections.emptySet() : tags;
+    }
+
+    private class TrackingConnection implements Connection
+    {
+        private final Connection delegate;
+
+        private TrackingConnection(Connection delegate)
+        {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void add(Statement statement)
+        {
+            delegate.add(statement);
+            added(delegate, statement);
+        }
+
+        @Override
+        public List<Statement> getStatements()
+        {
+            return delegate.getStatements();
+        }
+
+        @Override
+        public OffsetDateTime getExpiry()
+        {
+            return delegate.getExpiry();
+        }
+
+        @Override
+        public void resetExpiry()
+        {
+            delegate.resetExpiry();
+        }
+
+        @Override
+        public void setIdentityMap(boolean enabled)
+        {
+            delegate.setIdentityMap(enabled);
+        }
+
+        @Override
+        public void flush()
+        {
+            delegate.flush();
+        }
+
+        @Override
+        public void setAutoFlush(int maxStatements, long maxBytes)
+        {
+            delegate.setAutoFlush(maxStatements, maxBytes);
+        }
+
+        @Override
+        public void setPipelined(boolean pipelined)
+        {
+            delegate.setPipelined(pipelined);
+        }
+
+        @Override
+        public void commit()
+        {
+            boolean committed = false;
+            try
+            {
+                delegate.commit();
+                committed = true;
+            }
+            finally
+            {
+                // a failed commit forgets its tags too, so they aren't reported with the connection's next commit.
+                Set<String> tags = finished(delegate);
+                if (committed)
+                {
+                    listener.accept(tags);
+                }
+            }
+        }
+
+        @Override
+        public void rollback()
+        {
+            try
+            {
+                delegate.rollback();
+            }
+            finally
+            {
+                finished(delegate);
+            }
+        }
+
+        @Override
+        public void close()
+        {
+            try
+            {
+                delegate.close();
+            }
+            finally
+            {
+                finished(delegate);
+            }
+        }
+    }
+
+    private class TrackingAsyncConnection implements AsyncConnection
+    {
+        private final AsyncConnection delegate;
+
+        private TrackingAsyncConnection(AsyncConnection delegate)
+        {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void add(Statement statement)
+        {
+            delegate.add(statement);
+            added(delegate, statement);
+        }
+
+        @Override
+        public List<Statement> getStatements()
+        {
+            return delegate.getStatements();
+        }
+
+        @Override
+        public OffsetDateTime getExpiry()
+        {
+            return delegate.getExpiry();
+        }
+
+        @Override
+        public CompletableFuture<List<Statement>> flushAsync()
+        {
+            return delegate.flushAsync();
+        }
+
+        @Override
+        public CompletableFuture<List<Statement>> commitAsync()
+        {
+            return delegate.commitAsync().whenComplete((statements, e) -> {
+                Set<String> tags = finished(delegate);
+                if (e == null)
+                {
+                    listener.accept(tags);
+                }
+            });
+        }
+
+        @Override
+        public CompletableFuture<Void> rollbackAsync()
+        {
+            return delegate.rollbackAsync().whenComplete((result, e) -> finished(delegate));
+        }
+    }
+}
@@ -1,9 +1,14 @@
 package io.innerloop.neo4j.client.spi;
 
+import io.innerloop.neo4j.client.AsyncConnection;
 import io.innerloop.neo4j.client.Connection;
 
 /**
  * Providers of implementations to Neo4J should implement this as an abstract Factory.
+ * <p>
+ * Only getConnection() must be implemented. The other methods were added later and have defaults so that existing
+ * factories still compile: openConnection() and getAsyncConnection() throw UnsupportedOperationException, which the
+ * client passes on to whichever of its features needs them, and close() does nothing.
  */
 public interface ConnectionFactory
 {
@@ -14,4 +19,33 @@ public interface ConnectionFactory
      * behaviour.
      */
     Connection getConnection();
+
+    /**
+     * Creates a new Connection that is not bound to any thread. It may be handed between threads, though it must not be
+     * used by more than one at a time, and any number may be open on a single thread.
+     *
+     * @return A new Connection that should be closed, committed or rolled back once finished with.
+     */
+    default Connection openConnection()
+    {
+        throw new UnsupportedOperationException(getClass().getName() + " does not support unbound Connections.");
+    }
+
+    /**
+     * Creates a new AsyncConnection. AsyncConnections are not bound to a thread so each call returns a new one.
+     *
+     * @return An AsyncConnection whose flush, commit and rollback do not block the calling thread.
+     */
+    default AsyncConnection getAsyncConnection()
+    {
+        throw new UnsupportedOperationException(getClass().getName() + " does not support AsyncConnections.");
+    }
+
+    /**
+     * Releases any resources, such as pooled network connections, held by this factory. Connections should not be
+     * requested after this has been called.
+     */
+    default void close()
+    {
+    }
 }
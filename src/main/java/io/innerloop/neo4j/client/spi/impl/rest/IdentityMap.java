@@ -0,0 +1,54 @@
+package io.innerloop.neo4j.client.spi.impl.rest;
+
+import io.innerloop.neo4j.client.Node;
+import io.innerloop.neo4j.client.Relationship;
+
+/**
+ * Resolves each Neo4J id to a single Node or Relationship instance for the life of a Connection.
+ * <p>
+ * Once an entity has been decoded, later occurrences of the same id in any statement or flush of the Connection reuse
+ * it and their JSON is skipped rather than decoded again. Pipelined flushes can decode on another thread, so access is
+ * synchronized.
+ */
+class IdentityMap
+{
+    private final LongObjectHashMap<Node> nodes;
+
+    private final LongObjectHashMap<Relationship> relationships;
+
+    IdentityMap()
+    {
+        this.nodes = new LongObjectHashMap<>();
+        this.relationships = new LongObjectHashMap<>();
+    }
+
+    synchronized Node getNode(long id)
+    {
+        return nodes.get(id);
+    }
+
+    /**
+     * Adds a Node unless one with the same id is already known.
+     *
+     * @return The Node to use for the id.
+     */
+    synchronized Node putNode(Node node)
+    {
+        return nodes.putIfAbsent(node.getId(), node);
+    }
+
+    synchronized Relationship getRelationship(long id)
+    {
+        return relationships.get(id);
+    }
+
+    /**
+     * Adds a Relationship unless one with the same id is already known.
+     *
+     * @return The Relationship to use for the id.
+     */
+    synchronized Relationship putRelationship(Relationship relationship)
+    {
+        return relationships.putIfAbsent(relationship.getId(), relationship);
+    }
+}
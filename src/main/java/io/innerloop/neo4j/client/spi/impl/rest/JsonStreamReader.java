@@ -0,0 +1,752 @@
+package io.innerloop.neo4j.client.spi.impl.rest;
+
+import io.innerloop.neo4j.client.DoubleList;
+import io.innerloop.neo4j.client.LongList;
+import io.innerloop.neo4j.client.spi.impl.rest.json.JSONException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A pull style JSON reader that decodes values straight off a character stream.
+ * <p>
+ * Unlike JSONTokener this reader keeps its own buffer and never builds an intermediate JSONObject/JSONArray tree.
+ * Callers walk the document with beginObject()/hasNext()/nextName() and friends, pulling out just the values they need
+ * and skipping the rest. Numbers decode to the same Integer/Long/Double types JSONObject would produce so results are
+ * interchangeable with the tree based API.
+ */
+class JsonStreamReader
+{
+    private final Reader reader;
+
+    private final SymbolTable symbols;
+
+    private final char[] buffer;
+
+    private int pos;
+
+    private int limit;
+
+    private long consumed;
+
+    private char[] scratch;
+
+    private boolean capturing;
+
+    private int captureStart;
+
+    private char[] captured;
+
+    private int capturedLength;
+
+    private long longValue;
+
+    private double doubleValue;
+
+    JsonStreamReader(InputStream in)
+    {
+        this(in, null);
+    }
+
+    /**
+     * Creates a reader that resolves member names through a SymbolTable, so each distinct name is only built once.
+     */
+    JsonStreamReader(InputStream in, SymbolTable symbols)
+    {
+        this(new InputStreamReader(in, StandardCharsets.UTF_8), symbols);
+    }
+
+    JsonStreamReader(Reader reader)
+    {
+        this(reader, null);
+    }
+
+    /**
+     * Creates a reader over characters that are already in memory, such as those returned by nextRawValue().
+     */
+    JsonStreamReader(char[] chars, SymbolTable symbols)
+    {
+        this.reader = null;
+        this.symbols = symbols;
+        this.buffer = chars;
+        this.limit = chars.length;
+        this.scratch = new char[64];
+    }
+
+    JsonStreamReader(Reader reader, SymbolTable symbols)
+    {
+        this.reader = reader;
+        this.symbols = symbols;
+        this.buffer = new char[8192];
+        this.scratch = new char[64];
+    }
+
+    /**
+     * Peeks at the next significant character without consuming it.
+     *
+     * @return The next non whitespace character or -1 at the end of the stream.
+     */
+    int peek() throws IOException
+    {
+        for (; ; )
+        {
+            if (pos == limit && !fill())
+            {
+                return -1;
+            }
+            char c = buffer[pos];
+            if (c == ' ' || c == '\n' || c == '\r' || c == '\t')
+            {
+                pos++;
+                continue;
+            }
+            return c;
+        }
+    }
+
+    void beginObject() throws IOException
+    {
+        expect('{');
+    }
+
+    void endObject() throws IOException
+    {
+        expect('}');
+    }
+
+    void beginArray() throws IOException
+    {
+        expect('[');
+    }
+
+    void endArray() throws IOException
+    {
+        expect(']');
+    }
+
+    /**
+     * Determines if the current object or array has another member, consuming the separating comma if there is one.
+     *
+     * @return true, if another name/value pair or element follows.
+     */
+    boolean hasNext() throws IOException
+    {
+        int c = peek();
+        if (c == ',')
+        {
+            pos++;
+            c = peek();
+        }
+        return c != '}' && c != ']' && c != -1;
+    }
+
+    /**
+     * Reads the name of the next object member along with its ':' separator.
+     *
+     * @return The member name.
+     */
+    String nextName() throws IOException
+    {
+        String name = nextSymbol();
+        expect(':');
+        return name;
+    }
+
+    /**
+     * Determines if the next value is a JSON null, consuming it if so.
+     *
+     * @return true, if a null was consumed.
+     */
+    boolean nextNull() throws IOException
+    {
+        if (peek() == 'n')
+        {
+            expectLiteral("null");
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Reads a string that is likely to repeat, such as a label or member name, returning its canonical instance from
+     * the SymbolTable if this reader has one.
+     *
+     * @return The string.
+     */
+    String nextSymbol() throws IOException
+    {
+        if (symbols == null)
+        {
+            return nextString();
+        }
+        if (peek() == '"')
+        {
+            // fast path: no escapes and the whole string is already buffered, look it up without building it.
+            for (int i = pos + 1; i < limit; i++)
+            {
+                char ch = buffer[i];
+                if (ch == '"')
+                {
+                    String symbol = symbols.intern(buffer, pos + 1, i - pos - 1);
+                    pos = i + 1;
+                    return symbol;
+                }
+                if (ch == '\\')
+                {
+                    break;
+                }
+            }
+        }
+        String value = nextString();
+        return value == null ? null : symbols.intern(value);
+    }
+
+    String nextString() throws IOException
+    {
+        int c = peek();
+        if (c == 'n')
+        {
+            expectLiteral("null");
+            return null;
+        }
+        if (c != '"')
+        {
+            throw syntaxError("Expected a string");
+        }
+        pos++;
+
+        // fast path: no escapes and the whole string is already buffered.
+        for (int i = pos; i < limit; i++)
+        {
+            char ch = buffer[i];
+            if (ch == '"')
+            {
+                String s = new String(buffer, pos, i - pos);
+                pos = i + 1;
+                return s;
+            }
+            if (ch == '\\')
+            {
+                break;
+            }
+        }
+
+        StringBuilder sb = new StringBuilder();
+        for (; ; )
+        {
+            char ch = read();
+            if (ch == '"')
+            {
+                return sb.toString();
+            }
+            if (ch == '\\')
+            {
+                sb.append(readEscape());
+            }
+            else
+            {
+                sb.append(ch);
+            }
+        }
+    }
+
+    /**
+     * Reads a long that may be encoded either as a number or as a quoted string, as Neo4J does for graph ids.
+     *
+     * @return The long value.
+     */
+    long nextLong() throws IOException
+    {
+        int c = peek();
+        if (c == '"')
+        {
+            String s = nextString();
+            try
+            {
+                return Long.parseLong(s);
+            }
+            catch (NumberFormatException e)
+            {
+                throw syntaxError("Expected a long but was \"" + s + "\"");
+            }
+        }
+        if (!nextPrimitiveNumber())
+        {
+            throw syntaxError("Expected a long but was " + doubleValue);
+        }
+        return longValue;
+    }
+
+    boolean nextBoolean() throws IOException
+    {
+        int c = peek();
+        if (c == 't')
+        {
+            expectLiteral("true");
+            return true;
+        }
+        if (c == 'f')
+        {
+            expectLiteral("false");
+            return false;
+        }
+        throw syntaxError("Expected a boolean");
+    }
+
+    /**
+     * Reads any JSON value. Objects become HashMaps, arrays become Lists (see nextList()) and null becomes null.
+     *
+     * @return The decoded value.
+     */
+    Object nextValue() throws IOException
+    {
+        switch (peek())
+        {
+            case '{':
+                return nextMap();
+            case '[':
+                return nextList();
+            case '"':
+                return nextString();
+            case 't':
+            case 'f':
+                return nextBoolean();
+            case 'n':
+                expectLiteral("null");
+                return null;
+            case -1:
+                throw syntaxError("Unexpected end of input");
+            default:
+                return nextNumber();
+        }
+    }
+
+    Map<String, Object> nextMap() throws IOException
+    {
+        Map<String, Object> map = new HashMap<>();
+        beginObject();
+        while (hasNext())
+        {
+            String name = nextName();
+            map.put(name, nextValue());
+        }
+        endObject();
+        return map;
+    }
+
+    /**
+     * Reads an array. Arrays holding only integers or only floating point numbers, as Neo4J array properties do, are
+     * collected straight into a LongList or DoubleList without boxing. Anything else becomes an ArrayList.
+     *
+     * @return The decoded list.
+     */
+    List<?> nextList() throws IOException
+    {
+        beginArray();
+        if (!hasNext())
+        {
+            endArray();
+            return new ArrayList<>();
+        }
+
+        List<Object> list = new ArrayList<>();
+        if (isNumberStart(peek()))
+        {
+            List<?> numbers = nextNumbers(list);
+            if (numbers != null)
+            {
+                return numbers;
+            }
+        }
+
+        while (hasNext())
+        {
+            list.add(nextValue());
+        }
+        endArray();
+        return list;
+    }
+
+    /**
+     * Collects numbers of the same kind into a primitive array until the end of the array. If an element of another
+     * kind turns up, the values read so far are boxed into the given list instead and null is returned so the caller
+     * can carry on element by element.
+     */
+    private List<?> nextNumbers(List<Object> list) throws IOException
+    {
+        boolean integral = nextPrimitiveNumber();
+        long[] longs = integral ? new long[16] : null;
+        double[] doubles = integral ? null : new double[16];
+        int size = 0;
+
+        for (; ; )
+        {
+            if (integral)
+            {
+                if (size == longs.length)
+                {
+                    longs = Arrays.copyOf(longs, size * 2);
+                }
+                longs[size++] = longValue;
+            }
+            else
+            {
+                if (size == doubles.length)
+                {
+                    doubles = Arrays.copyOf(doubles, size * 2);
+                }
+                doubles[size++] = doubleValue;
+            }
+
+            if (!hasNext())
+            {
+                endArray();
+                // trim so that results held on to do not keep up to twice the memory they need.
+                return integral ?
+                       new LongList(size == longs.length ? longs : Arrays.copyOf(longs, size), size) :
+                       new DoubleList(size == doubles.length ? doubles : Arrays.copyOf(doubles, size), size);
+            }
+            if (!isNumberStart(peek()))
+            {
+                break;
+            }
+            if (nextPrimitiveNumber() != integral)
+            {
+                // mixed integers and floats keep their own boxed types, as JSONArray would give them.
+                box(longs, doubles, size, list);
+                list.add(integral ? (Object) doubleValue : boxLong(longValue));
+                return null;
+            }
+        }
+        box(longs, doubles, size, list);
+        return null;
+    }
+
+    private static void box(long[] longs, double[] doubles, int size, List<Object> list)
+    {
+        for (int i = 0; i < size; i++)
+        {
+            list.add(longs != null ? boxLong(longs[i]) : (Object) doubles[i]);
+        }
+    }
+
+    private static boolean isNumberStart(int c)
+    {
+        return c == '-' || (c >= '0' && c <= '9');
+    }
+
+    /**
+     * Skips over the next value, including any nested objects or arrays, without decoding it.
+     */
+    void skipValue() throws IOException
+    {
+        int c = peek();
+        switch (c)
+        {
+            case '{':
+            case '[':
+                int depth = 0;
+                do
+                {
+                    char ch = read();
+                    if (ch == '"')
+                    {
+                        skipStringBody();
+                    }
+                    else if (ch == '{' || ch == '[')
+                    {
+                        depth++;
+                    }
+                    else if (ch == '}' || ch == ']')
+                    {
+                        depth--;
+                    }
+                } while (depth > 0);
+                break;
+            case '"':
+                pos++;
+                skipStringBody();
+                break;
+            default:
+                nextValue();
+        }
+    }
+
+    /**
+     * Skips over the next value as skipValue() does but returns its JSON text, so that it can be decoded later.
+     *
+     * @return The characters of the value exactly as they appeared in the input.
+     */
+    char[] nextRawValue() throws IOException
+    {
+        peek();
+        if (captured == null)
+        {
+            captured = new char[256];
+        }
+        capturing = true;
+        captureStart = pos;
+        capturedLength = 0;
+        try
+        {
+            skipValue();
+            appendCaptured();
+        }
+        finally
+        {
+            capturing = false;
+        }
+        return Arrays.copyOf(captured, capturedLength);
+    }
+
+    private void appendCaptured()
+    {
+        int length = pos - captureStart;
+        if (capturedLength + length > captured.length)
+        {
+            captured = Arrays.copyOf(captured, Math.max(captured.length * 2, capturedLength + length));
+        }
+        System.arraycopy(buffer, captureStart, captured, capturedLength, length);
+        capturedLength += length;
+        captureStart = 0;
+    }
+
+    private void skipStringBody() throws IOException
+    {
+        for (; ; )
+        {
+            char ch = read();
+            if (ch == '\\')
+            {
+                read();
+            }
+            else if (ch == '"')
+            {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Reads a number without boxing it. The value is then available from longValue() if the number is integral and
+     * from doubleValue() otherwise.
+     *
+     * @return true, if the number was integral and fits in a long.
+     */
+    boolean nextPrimitiveNumber() throws IOException
+    {
+        int length = 0;
+        boolean decimal = false;
+
+        for (; ; )
+        {
+            if (pos == limit && !fill())
+            {
+                break;
+            }
+            char c = buffer[pos];
+            if ((c >= '0' && c <= '9') || c == '-' || c == '+')
+            {
+                // digits and signs.
+            }
+            else if (c == '.' || c == 'e' || c == 'E')
+            {
+                decimal = true;
+            }
+            else
+            {
+                break;
+            }
+            if (length == scratch.length)
+            {
+                char[] grown = new char[length * 2];
+                System.arraycopy(scratch, 0, grown, 0, length);
+                scratch = grown;
+            }
+            scratch[length++] = c;
+            pos++;
+        }
+
+        if (length == 0)
+        {
+            throw syntaxError("Expected a value");
+        }
+
+        if (decimal)
+        {
+            try
+            {
+                doubleValue = Double.parseDouble(new String(scratch, 0, length));
+                return false;
+            }
+            catch (NumberFormatException e)
+            {
+                throw syntaxError("Invalid number " + new String(scratch, 0, length));
+            }
+        }
+
+        boolean negative = scratch[0] == '-';
+        int i = negative ? 1 : 0;
+        if (i == length || length - i > 18)
+        {
+            // too long to accumulate safely, let the JDK deal with range checks.
+            try
+            {
+                longValue = Long.parseLong(new String(scratch, 0, length));
+                return true;
+            }
+            catch (NumberFormatException e)
+            {
+                doubleValue = Double.parseDouble(new String(scratch, 0, length));
+                return false;
+            }
+        }
+
+        long value = 0;
+        for (; i < length; i++)
+        {
+            char c = scratch[i];
+            if (c < '0' || c > '9')
+            {
+                throw syntaxError("Invalid number " + new String(scratch, 0, length));
+            }
+            value = value * 10 + (c - '0');
+        }
+        longValue = negative ? -value : value;
+        return true;
+    }
+
+    /**
+     * @return The value of the last integral number read by nextPrimitiveNumber().
+     */
+    long longValue()
+    {
+        return longValue;
+    }
+
+    /**
+     * @return The value of the last non integral number read by nextPrimitiveNumber().
+     */
+    double doubleValue()
+    {
+        return doubleValue;
+    }
+
+    private Object nextNumber() throws IOException
+    {
+        if (!nextPrimitiveNumber())
+        {
+            return doubleValue;
+        }
+        return boxLong(longValue);
+    }
+
+    private static Object boxLong(long value)
+    {
+        return value == (int) value ? (Object) (int) value : (Object) value;
+    }
+
+    private char readEscape() throws IOException
+    {
+        char c = read();
+        switch (c)
+        {
+            case 'b':
+                return '\b';
+            case 't':
+                return '\t';
+            case 'n':
+                return '\n';
+            case 'f':
+                return '\f';
+            case 'r':
+                return '\r';
+            case 'u':
+                int value = 0;
+                for (int i = 0; i < 4; i++)
+                {
+                    int digit = Character.digit(read(), 16);
+                    if (digit == -1)
+                    {
+                        throw syntaxError("Illegal unicode escape");
+                    }
+                    value = (value << 4) | digit;
+                }
+                return (char) value;
+            case '"':
+            case '\'':
+            case '\\':
+            case '/':
+                return c;
+            default:
+                throw syntaxError("Illegal escape");
+        }
+    }
+
+    private void expectLiteral(String literal) throws IOException
+    {
+        peek();
+        for (int i = 0; i < literal.length(); i++)
+        {
+            if (read() != literal.charAt(i))
+            {
+                throw syntaxError("Expected '" + literal + "'");
+            }
+        }
+    }
+
+    private void expect(char expected) throws IOException
+    {
+        int c = peek();
+        if (c != expected)
+        {
+            throw syntaxError("Expected '" + expected + "' and instead saw '" + (c == -1 ? "EOF" : (char) c) + "'");
+        }
+        pos++;
+    }
+
+    private char read() throws IOException
+    {
+        if (pos == limit && !fill())
+        {
+            throw syntaxError("Unexpected end of input");
+        }
+        return buffer[pos++];
+    }
+
+    private boolean fill() throws IOException
+    {
+        if (capturing)
+        {
+            // keep what has been captured so far before the buffer is overwritten.
+            appendCaptured();
+        }
+        if (reader == null)
+        {
+            return false;
+        }
+        consumed += limit;
+        pos = 0;
+        limit = 0;
+        int read = reader.read(buffer, 0, buffer.length);
+        if (read <= 0)
+        {
+            return false;
+        }
+        limit = read;
+        return true;
+    }
+
+    JSONException syntaxError(String message)
+    {
+        return new JSONException(message + " at character " + (consumed + pos));
+    }
+}
@@ -0,0 +1,74 @@
+package io.innerloop.neo4j.client.spi.impl.rest;
+
+import java.util.AbstractMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * A read only property map that holds the JSON text of a <code>properties</code> object and only decodes it the first
+ * time it is used. Callers that never look at properties only pay for a copy of their characters.
+ */
+class LazyProperties extends AbstractMap<String, Object>
+{
+    private final PropertyDecoder decoder;
+
+    private char[] json;
+
+    private volatile Map<String, Object> properties;
+
+    LazyProperties(PropertyDecoder decoder, char[] json)
+    {
+        this.decoder = decoder;
+        this.json = json;
+    }
+
+    private Map<String, Object> properties()
+    {
+        Map<String, Object> result = properties;
+        if (result == null)
+        {
+            synchronized (this)
+            {
+                result = properties;
+                if (result == null)
+                {
+                    result = decoder.decode(json);
+                    properties = result;
+                    json = null;
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public int size()
+    {
+        return properties().size();
+    }
+
+    @Override
+    public boolean containsKey(Object key)
+    {
+        return properties().containsKey(key);
+    }
+
+    @Override
+    public Object get(Object key)
+    {
+        return properties().get(key);
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet()
+    {
+        return properties().entrySet();
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super String, ? super Object> action)
+    {
+        properties().forEach(action);
+    }
+}
@@ -0,0 +1,108 @@
+package io.innerloop.neo4j.client.spi.impl.rest;
+
+/**
+ * A set of longs held in a single open addressed array, used to remember which graph ids have already been seen without
+ * boxing each one into a HashSet entry.
+ */
+class LongHashSet
+{
+    private static final long EMPTY = 0;
+
+    private long[] table;
+
+    private int size;
+
+    private boolean containsEmpty;
+
+    LongHashSet()
+    {
+        this.table = new long[64];
+    }
+
+    /**
+     * Adds a value to this set.
+     *
+     * @return true, if the value was not already present.
+     */
+    boolean add(long value)
+    {
+        if (value == EMPTY)
+        {
+            boolean added = !containsEmpty;
+            containsEmpty = true;
+            return added;
+        }
+
+        int mask = table.length - 1;
+        for (int i = index(value, mask); ; i = (i + 1) & mask)
+        {
+            long current = table[i];
+            if (current == value)
+            {
+                return false;
+            }
+            if (current == EMPTY)
+            {
+                table[i] = value;
+                if (++size * 2 > table.length)
+                {
+                    grow();
+                }
+                return true;
+            }
+        }
+    }
+
+    boolean contains(long value)
+    {
+        if (value == EMPTY)
+        {
+            return containsEmpty;
+        }
+
+        int mask = table.length - 1;
+        for (int i = index(value, mask); ; i = (i + 1) & mask)
+        {
+            long current = table[i];
+            if (current == value)
+            {
+                return true;
+            }
+            if (current == EMPTY)
+            {
+                return false;
+            }
+        }
+    }
+
+    int size()
+    {
+        return containsEmpty ? size + 1 : size;
+    }
+
+    private void grow()
+    {
+        long[] old = table;
+        table = new long[old.length * 2];
+        int mask = table.length - 1;
+        for (long value : old)
+        {
+            if (value != EMPTY)
+            {
+                int i = index(value, mask);
+                while (table[i] != EMPTY)
+                {
+                    i = (i + 1) & mask;
+                }
+                table[i] = value;
+            }
+        }
+    }
+
+    private static int index(long value, int mask)
+    {
+        // ids are mostly sequential, spread them so runs do not cluster.
+        long hash = value * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+}
@@ -0,0 +1,120 @@
+package io.innerloop.neo4j.client.spi.impl.rest;
+
+/**
+ * Maps longs to objects using two parallel open addressed arrays, so graph entities can be found by id without boxing
+ * each id into a HashMap entry.
+ *
+ * @param <V>
+ *         The type of value.
+ */
+class LongObjectHashMap<V>
+{
+    private static final long EMPTY = 0;
+
+    private long[] keys;
+
+    private Object[] values;
+
+    private int size;
+
+    private V emptyKeyValue;
+
+    LongObjectHashMap()
+    {
+        this.keys = new long[64];
+        this.values = new Object[64];
+    }
+
+    @SuppressWarnings("unchecked")
+    V get(long key)
+    {
+        if (key == EMPTY)
+        {
+            return emptyKeyValue;
+        }
+
+        int mask = keys.length - 1;
+        for (int i = index(key, mask); ; i = (i + 1) & mask)
+        {
+            if (keys[i] == key)
+            {
+                return (V) values[i];
+            }
+            if (values[i] == null)
+            {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Associates a value with a key unless it already has one.
+     *
+     * @return The value now held for the key.
+     */
+    @SuppressWarnings("unchecked")
+    V putIfAbsent(long key, V value)
+    {
+        if (key == EMPTY)
+        {
+            if (emptyKeyValue == null)
+            {
+                emptyKeyValue = value;
+            }
+            return emptyKeyValue;
+        }
+
+        int mask = keys.length - 1;
+        for (int i = index(key, mask); ; i = (i + 1) & mask)
+        {
+            if (keys[i] == key)
+            {
+                return (V) values[i];
+            }
+            if (values[i] == null)
+            {
+                keys[i] = key;
+                values[i] = value;
+                if (++size * 2 > keys.length)
+                {
+                    grow();
+                }
+                return value;
+            }
+        }
+    }
+
+    int size()
+    {
+        return emptyKeyValue != null ? size + 1 : size;
+    }
+
+    private void grow()
+    {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new Object[oldValues.length * 2];
+        int mask = keys.length - 1;
+        for (int j = 0; j < oldKeys.length; j++)
+        {
+            if (oldValues[j] != null)
+            {
+                int i = index(oldKeys[j], mask);
+                while (values[i] != null)
+                {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[j];
+                values[i] = oldValues[j];
+            }
+        }
+    }
+
+    private static int index(long value, int mask)
+    {
+        // ids are mostly sequential, spread them so runs do not cluster.
+        long hash = value * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+}
@@ -0,0 +1,109 @@
+package io.innerloop.neo4j.client.spi.impl.rest;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Decodes <code>properties</code> objects into ShapedProperties, either straight away or, for lazy statements, on
+ * first use.
+ * <p>
+ * Every map decoded by one PropertyDecoder, which is one per response, shares its tree of PropertyShapes. Lazy maps
+ * may be decoded later on other threads, so decoding is synchronized on the PropertyDecoder.
+ */
+class PropertyDecoder
+{
+    private final SymbolTable symbols;
+
+    private final PropertyShape rootShape;
+
+    private final Map<String, Object> emptyProperties;
+
+    private Object[] values;
+
+    PropertyDecoder(SymbolTable symbols)
+    {
+        this.symbols = symbols;
+        this.rootShape = new PropertyShape();
+        this.emptyProperties = new ShapedProperties(rootShape, new Object[0]);
+        this.values = new Object[16];
+    }
+
+    /**
+     * @return The map used for entities without properties.
+     */
+    Map<String, Object> empty()
+    {
+        return emptyProperties;
+    }
+
+    /**
+     * Decodes the next value, which must be an object or null.
+     */
+    synchronized Map<String, Object> read(JsonStreamReader reader) throws IOException
+    {
+        if (reader.nextNull())
+        {
+            return emptyProperties;
+        }
+
+        PropertyShape shape = rootShape;
+        int size = 0;
+
+        reader.beginObject();
+        while (reader.hasNext())
+        {
+            String key = reader.nextName();
+            Object value = reader.nextValue();
+
+            int existing = shape.indexOf(key);
+            if (existing >= 0)
+            {
+                // a repeated key replaces the earlier value, as it would in a HashMap.
+                values[existing] = value;
+                continue;
+            }
+
+            shape = shape.with(key);
+            if (size == values.length)
+            {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+        reader.endObject();
+
+        if (size == 0)
+        {
+            return emptyProperties;
+        }
+        Object[] result = Arrays.copyOf(values, size);
+        Arrays.fill(values, 0, size, null);
+        return new ShapedProperties(shape, result);
+    }
+
+    /**
+     * Skips over the next value, which must be an object or null, keeping its JSON text to decode on first use.
+     */
+    Map<String, Object> readLazily(JsonStreamReader reader) throws IOException
+    {
+        if (reader.nextNull())
+        {
+            return emptyProperties;
+        }
+        return new LazyProperties(this, reader.nextRawValue());
+    }
+
+    Map<String, Object> decode(char[] json)
+    {
+        try
+        {
+            return read(new JsonStreamReader(json, symbols));
+        }
+        catch (IOException e)
+        {
+            // the characters are already in memory so this cannot happen.
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package io.innerloop.neo4j.client.spi.impl.rest;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The ordered set of property keys shared by every Node or Relationship that has exactly those keys.
+ * <p>
+ * Shapes form a tree rooted at the empty shape: adding a key to a shape leads to the child shape for that key, which is
+ * created the first time it is needed and reused afterwards. Decoding thousands of entities with the same keys
+ * therefore walks the same few shapes and allocates only the values of each entity.
+ * <p>
+ * A tree belongs to the PropertyDecoder of a single response rather than to the client. A tree shared by the client
+ * would need to be thread safe and would keep every key layout it has ever seen, while the large results that benefit
+ * from shapes are decoded from one response anyway.
+ */
+class PropertyShape
+{
+    private static final int LINEAR_SEARCH_LIMIT = 8;
+
+    private final String[] keys;
+
+    private final Map<String, Integer> index;
+
+    private final Map<String, PropertyShape> children;
+
+    PropertyShape()
+    {
+        this(new String[0]);
+    }
+
+    private PropertyShape(String[] keys)
+    {
+        this.keys = keys;
+        this.children = new HashMap<>(4);
+
+        if (keys.length > LINEAR_SEARCH_LIMIT)
+        {
+            this.index = new HashMap<>(keys.length * 2);
+            for (int i = 0; i < keys.length; i++)
+            {
+                index.put(keys[i], i);
+            }
+        }
+        else
+        {
+            this.index = null;
+        }
+    }
+
+    /**
+     * Finds the shape with the given key added after the keys of this one.
+     *
+     * @return The child shape.
+     */
+    PropertyShape with(String key)
+    {
+        PropertyShape child = children.get(key);
+        if (child == null)
+        {
+            String[] childKeys = new String[keys.length + 1];
+            System.arraycopy(keys, 0, childKeys, 0, keys.length);
+            childKeys[keys.length] = key;
+            child = new PropertyShape(childKeys);
+            children.put(key, child);
+        }
+        return child;
+    }
+
+    int size()
+    {
+        return keys.length;
+    }
+
+    String key(int position)
+    {
+        return keys[position];
+    }
+
+    /**
+     * @return The position of a key's value or -1 if this shape does not have the key.
+     */
+    int indexOf(Object key)
+    {
+        if (index != null)
+        {
+            Integer position = index.get(key);
+            return position == null ? -1 : position;
+        }
+        for (int i = 0; i < keys.length; i++)
+        {
+            if (keys[i].equals(key))
+            {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
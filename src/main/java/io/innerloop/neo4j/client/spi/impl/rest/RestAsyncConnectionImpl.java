@@ -0,0 +1,225 @@
+package io.innerloop.neo4j.client.spi.impl.rest;
+
+import io.innerloop.neo4j.client.AsyncConnection;
+import io.innerloop.neo4j.client.Neo4jClientException;
+import io.innerloop.neo4j.client.Neo4jServerException;
+import io.innerloop.neo4j.client.Neo4jServerMultiException;
+import io.innerloop.neo4j.client.Statement;
+import io.innerloop.neo4j.client.spi.impl.rest.http.HttpClient;
+import io.innerloop.neo4j.client.spi.impl.rest.json.JSONException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * An AsyncConnection over the Neo4J transactional REST endpoint.
+ * <p>
+ * Each operation is chained onto the one before it so that the transaction url returned by one request is used by the
+ * next, while the calling thread returns as soon as the request has been queued.
+ */
+public class RestAsyncConnectionImpl implements AsyncConnection
+{
+    private static final Logger LOG = LoggerFactory.getLogger(RestAsyncConnectionImpl.class);
+
+    private final HttpClient client;
+
+    private final SymbolTable symbols;
+
+    private final List<Statement> statements;
+
+    private volatile String activeTransactionEndpointUrl;
+
+    private volatile OffsetDateTime transactionExpires;
+
+    private volatile boolean transactionStarted;
+
+    private CompletableFuture<?> tail;
+
+    public RestAsyncConnectionImpl(HttpClient client, String transactionEndpointUrl)
+    {
+        this(client, transactionEndpointUrl, null);
+    }
+
+    RestAsyncConnectionImpl(HttpClient client, String transactionEndpointUrl, SymbolTable symbols)
+    {
+        this.client = client;
+        this.symbols = symbols;
+        this.activeTransactionEndpointUrl = transactionEndpointUrl;
+        this.statements = new ArrayList<>();
+        this.tail = CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public synchronized void add(Statement statement)
+    {
+        this.statements.add(statement);
+    }
+
+    @Override
+    public synchronized List<Statement> getStatements()
+    {
+        return statements;
+    }
+
+    @Override
+    public OffsetDateTime getExpiry()
+    {
+        return transactionExpires;
+    }
+
+    @Override
+    public synchronized CompletableFuture<List<Statement>> flushAsync()
+    {
+        List<Statement> batch = drainStatements();
+
+        CompletableFuture<List<Statement>> flushed = tail.thenCompose(ignored -> {
+            LOG.debug("Flushing to [{}]", activeTransactionEndpointUrl);
+            return execute(activeTransactionEndpointUrl, batch);
+        }).thenApply(result -> {
+            updateTransaction(result);
+            LOG.debug("Next endpoint is now: [{}] which expires at: [{}]",
+                      activeTransactionEndpointUrl,
+                      transactionExpires);
+            return batch;
+        }).handle((result, e) -> {
+            if (e != null)
+            {
+                throw translate(e, null);
+            }
+            return result;
+        });
+
+        tail = flushed;
+        return flushed;
+    }
+
+    @Override
+    public synchronized CompletableFuture<List<Statement>> commitAsync()
+    {
+        List<Statement> batch = drainStatements();
+
+        CompletableFuture<List<Statement>> committed = tail.thenCompose(ignored -> {
+            String commitEndpoint = activeTransactionEndpointUrl + "/commit";
+            LOG.debug("Committing to [{}]", commitEndpoint);
+            return execute(commitEndpoint, batch);
+        }).handle((result, e) -> {
+            if (e != null)
+            {
+                throw translate(e,
+                                "Encountered an error when trying to commit to Neo4J. See exception for details.");
+            }
+            return batch;
+        });
+
+        tail = committed;
+        return committed;
+    }
+
+    @Override
+    public synchronized CompletableFuture<Void> rollbackAsync()
+    {
+        CompletableFuture<Void> rolledBack = tail.handle((result, e) -> null).thenCompose(ignored -> {
+            if (!transactionStarted)
+            {
+                // nothing was ever sent so there is nothing to roll back on the server.
+                return CompletableFuture.<Void>completedFuture(null);
+            }
+            TransactionResponseDecoder decoder = new TransactionResponseDecoder(Collections.emptyList());
+            return client.deleteAsync(activeTransactionEndpointUrl, (response, body) -> decoder.decode(body))
+                           .thenAccept(er -> RestConnectionImpl.checkErrors(er.getErrors()));
+        }).handle((result, e) -> {
+            if (e != null)
+            {
+                throw translate(e, null);
+            }
+            return null;
+        });
+
+        tail = rolledBack;
+        return rolledBack;
+    }
+
+    private List<Statement> drainStatements()
+    {
+        List<Statement> batch = new ArrayList<>(statements);
+        statements.clear();
+        return batch;
+    }
+
+    private CompletableFuture<ExecutionResult> execute(String endpointUrl, List<Statement> batch)
+    {
+        TransactionRequestEncoder payload = new TransactionRequestEncoder(batch);
+        LOG.info("Executing [{}] statements.", batch.size());
+        if (LOG.isDebugEnabled())
+        {
+            LOG.debug("Statements are: [{}]", payload.toString());
+        }
+        TransactionResponseDecoder decoder = new TransactionResponseDecoder(batch, symbols);
+        // as in RestConnectionImpl only a request that begins a new transaction may be resent on a stale connection.
+        boolean retryable = !transactionStarted && !endpointUrl.endsWith("/commit");
+
+        return client.postAsync(endpointUrl,
+                                payload,
+                                (response, body) -> decoder.decode(body),
+                                retryable).thenApply(er -> {
+            RestConnectionImpl.checkErrors(er.getErrors());
+            RestConnectionImpl.assignResults(batch, er);
+            return er;
+        });
+    }
+
+    private void updateTransaction(ExecutionResult result)
+    {
+        if (result.getCommit() == null || result.getExpires() == null)
+        {
+            throw new JSONException("Response did not include an open transaction.");
+        }
+        this.activeTransactionEndpointUrl = result.getCommit().replace("/commit", "");
+        this.transactionExpires = OffsetDateTime.parse(result.getExpires(), RestConnectionImpl.FORMATTER);
+        this.transactionStarted = true;
+    }
+
+    /**
+     * Converts a failure into the exceptions thrown by the blocking Connection.
+     *
+     * @param e
+     *         The failure, possibly wrapped in a CompletionException.
+     * @param message
+     *         If not null, every failure is wrapped in a Neo4jClientException with this message.
+     *
+     * @return The exception to complete the future with.
+     */
+    private static CompletionException translate(Throwable e, String message)
+    {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        RuntimeException translated;
+
+        if (message != null)
+        {
+            translated = cause instanceof Neo4jClientException && message.equals(cause.getMessage()) ?
+                         (RuntimeException) cause :
+                         new Neo4jClientException(message, cause);
+        }
+        else if (cause instanceof Neo4jServerException || cause instanceof Neo4jServerMultiException ||
+                 cause instanceof Neo4jClientException)
+        {
+            translated = (RuntimeException) cause;
+        }
+        else if (cause instanceof JSONException)
+        {
+            translated = new Neo4jClientException("Error when processing JSON response.", cause);
+        }
+        else
+        {
+            translated = new Neo4jClientException(cause);
+        }
+
+        return new CompletionException(translated);
+    }
+}
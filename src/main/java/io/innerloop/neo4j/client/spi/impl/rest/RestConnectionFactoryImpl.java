@@ -1,38 +1,122 @@
 package io.innerloop.neo4j.client.spi.impl.rest;
 
+import io.innerloop.neo4j.client.AsyncConnection;
 import io.innerloop.neo4j.client.Connection;
 import io.innerloop.neo4j.client.spi.ConnectionFactory;
 import io.innerloop.neo4j.client.spi.impl.rest.http.HttpClient;
+import io.innerloop.neo4j.client.spi.impl.rest.http.HttpConnectionPool;
+
+import java.util.concurrent.TimeUnit;
 
 /**
  * Created by markangrish on 11/12/2014.
  */
 public class RestConnectionFactoryImpl implements ConnectionFactory
 {
+    private static final int SYMBOL_TABLE_SIZE = 4096;
+
     private final HttpClient client;
 
     private final String baseUrl;
 
     private final String transactionEndpointUrl;
 
+    private final SymbolTable symbols;
+
+    private final TransactionKeepAlive keepAlive;
+
     public RestConnectionFactoryImpl(String url)
     {
-        this.client = new HttpClient();
+        this(url, new HttpConnectionPool());
+    }
+
+    public RestConnectionFactoryImpl(String url, String userName, String password)
+    {
+        this(url);
+        client.authenticate(userName, password);
+    }
+
+    public RestConnectionFactoryImpl(String url, HttpConnectionPool connectionPool)
+    {
+        this.client = new HttpClient(connectionPool);
         this.client.addHeader("X-Stream", "true");
         this.baseUrl = url.endsWith("/") ? url : url + "/";
         this.transactionEndpointUrl = this.baseUrl + "transaction";
+        this.symbols = new SymbolTable(SYMBOL_TABLE_SIZE);
+        this.keepAlive = new TransactionKeepAlive();
     }
 
-    public RestConnectionFactoryImpl(String url, String userName, String password)
+    public RestConnectionFactoryImpl(String url, String userName, String password, HttpConnectionPool connectionPool)
     {
-        this(url);
+        this(url, connectionPool);
         client.authenticate(userName, password);
     }
 
+    /**
+     * Retrieves the pool of HTTP connections shared by every Connection created by this factory.
+     *
+     * @return The connection pool.
+     */
+    public HttpConnectionPool getConnectionPool()
+    {
+        return client.getConnectionPool();
+    }
+
+    /**
+     * Keeps open transactions alive in the background. Each transaction is sent an empty statement batch
+     * <code>margin</code> before it would expire, for as long as its Connection keeps being used. Calling this again
+     * changes the settings, which open transactions pick up from their next flush or keep-alive.
+     *
+     * @param margin
+     *         How long before expiry to send the keep-alive.
+     * @param maxIdle
+     *         Transactions whose Connection has not been used for this long are left to expire.
+     * @param unit
+     *         The unit of margin and maxIdle.
+     *
+     * @return this factory, to support chained method calls
+     */
+    public RestConnectionFactoryImpl enableTransactionKeepAlive(long margin, long maxIdle, TimeUnit unit)
+    {
+        keepAlive.enable(margin, maxIdle, unit);
+        return this;
+    }
+
+    /**
+     * Stops keeping open transactions alive. Keep-alives already scheduled do nothing when they come due, so open
+     * transactions expire as if keep-alive had never been enabled unless resetExpiry() is called on them.
+     *
+     * @return this factory, to support chained method calls
+     */
+    public RestConnectionFactoryImpl disableTransactionKeepAlive()
+    {
+        keepAlive.disable();
+        return this;
+    }
+
     @Override
     public Connection getConnection()
     {
-        return RestConnectionImpl.getConnection(client, transactionEndpointUrl);
+        return RestConnectionImpl.getConnection(client, transactionEndpointUrl, keepAlive, symbols);
+    }
+
+    @Override
+    public Connection openConnection()
+    {
+        return new RestConnectionImpl(client, transactionEndpointUrl, keepAlive, symbols);
+    }
+
+    @Override
+    public AsyncConnection getAsyncConnection()
+    {
+        return new RestAsyncConnectionImpl(client, transactionEndpointUrl, symbols);
+    }
+
+    @Override
+    public void close()
+    {
+        keepAlive.close();
+        client.close();
     }
 
 }
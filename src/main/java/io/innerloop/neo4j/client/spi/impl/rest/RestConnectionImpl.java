@@ -10,18 +10,22 @@ import io.innerloop.neo4j.client.RowSet;
 import io.innerloop.neo4j.client.RowStatement;
 import io.innerloop.neo4j.client.Statement;
 import io.innerloop.neo4j.client.spi.impl.rest.json.JSONException;
-import io.innerloop.neo4j.client.spi.impl.rest.json.JSONObject;
 import io.innerloop.neo4j.client.spi.impl.rest.http.HttpClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.time.OffsetDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.locks.ReentrantLock;
 
 
 /**
@@ -31,18 +35,26 @@ public class RestConnectionImpl implements Connection
 {
     private static final Logger LOG = LoggerFactory.getLogger(RestConnectionImpl.class);
 
-    private final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("EEE, dd MMM yyyy HH:mm:ss Z").withLocale(Locale.ENGLISH);
+    static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("EEE, dd MMM yyyy HH:mm:ss Z").withLocale(Locale.ENGLISH);
 
     private static ThreadLocal<RestConnectionImpl> connectionHolder = new ThreadLocal<>();
 
     public static Connection getConnection(HttpClient client, String transactionEndpointUrl)
+    {
+        return getConnection(client, transactionEndpointUrl, null, null);
+    }
+
+    static Connection getConnection(HttpClient client,
+                                    String transactionEndpointUrl,
+                                    TransactionKeepAlive keepAlive,
+                                    SymbolTable symbols)
     {
         RestConnectionImpl connection = connectionHolder.get();
 
-        if (connection == null)
+        if (connection == null || connection.finished)
         {
             LOG.debug("Getting new Connection for Thread: [{}]", Thread.currentThread().getName());
-            connection = new RestConnectionImpl(client, transactionEndpointUrl);
+            connection = new RestConnectionImpl(client, transactionEndpointUrl, keepAlive, symbols);
             connectionHolder.set(connection);
         }
 
@@ -56,24 +68,104 @@ public class RestConnectionImpl implements Connection
 
     private final HttpClient client;
 
+    private final TransactionKeepAlive keepAlive;
+
+    private final SymbolTable symbols;
+
+    private final ReentrantLock lock;
+
     private List<Statement> statements;
 
     private String activeTransactionEndpointUrl;
 
-    private OffsetDateTime transactionExpires;
+    private volatile OffsetDateTime transactionExpires;
+
+    private boolean pipelined;
+
+    private IdentityMap identityMap;
+
+    private PendingFlush pendingFlush;
+
+    private int autoFlushStatements;
+
+    private long autoFlushBytes;
+
+    private long pendingBytes;
+
+    private boolean finished;
+
+    private volatile ScheduledFuture<?> keepAliveTask;
+
+    private volatile boolean keepAliveMissed;
+
+    private volatile long lastUsedAt;
 
     public RestConnectionImpl(HttpClient client, String transactionEndpointUrl)
+    {
+        this(client, transactionEndpointUrl, null, null);
+    }
+
+    RestConnectionImpl(HttpClient client,
+                       String transactionEndpointUrl,
+                       TransactionKeepAlive keepAlive,
+                       SymbolTable symbols)
     {
         this.activeTransactionEndpointUrl = transactionEndpointUrl;
         this.statements = new ArrayList<>();
         this.client = client;
+        this.keepAlive = keepAlive;
+        this.symbols = symbols;
+        this.lock = new ReentrantLock();
+        this.lastUsedAt = System.currentTimeMillis();
     }
 
 
     @Override
     public void add(Statement statement)
     {
-        this.statements.add(statement);
+        lock.lock();
+        try
+        {
+            checkOpen();
+            lastUsedAt = System.currentTimeMillis();
+            this.statements.add(statement);
+
+            if (autoFlushBytes > 0)
+            {
+                pendingBytes += TransactionRequestEncoder.estimateSize(statement);
+            }
+
+            if ((autoFlushStatements > 0 && statements.size() >= autoFlushStatements) ||
+                (autoFlushBytes > 0 && pendingBytes >= autoFlushBytes))
+            {
+                LOG.debug("Auto flushing [{}] statements of roughly [{}] bytes.", statements.size(), pendingBytes);
+                flush();
+            }
+        }
+        finally
+        {
+            unlock();
+        }
+    }
+
+    @Override
+    public void setAutoFlush(int maxStatements, long maxBytes)
+    {
+        lock.lock();
+        try
+        {
+            this.autoFlushStatements = maxStatements;
+            this.autoFlushBytes = maxBytes;
+            this.pendingBytes = 0;
+            for (Statement statement : statements)
+            {
+                pendingBytes += maxBytes > 0 ? TransactionRequestEncoder.estimateSize(statement) : 0;
+            }
+        }
+        finally
+        {
+            unlock();
+        }
     }
 
     @Override
@@ -89,17 +181,70 @@ public class RestConnectionImpl implements Connection
     }
 
 
+    @Override
+    public void setPipelined(boolean pipelined)
+    {
+        lock.lock();
+        try
+        {
+            if (!pipelined)
+            {
+                awaitPendingFlush();
+            }
+            this.pipelined = pipelined;
+        }
+        catch (IOException e)
+        {
+            unbind();
+            throw new Neo4jClientException(e);
+        }
+        finally
+        {
+            unlock();
+        }
+    }
+
+    @Override
+    public void setIdentityMap(boolean enabled)
+    {
+        lock.lock();
+        try
+        {
+            if (!enabled)
+            {
+                this.identityMap = null;
+            }
+            else if (this.identityMap == null)
+            {
+                this.identityMap = new IdentityMap();
+            }
+        }
+        finally
+        {
+            unlock();
+        }
+    }
+
     @Override
     public void flush()
     {
+        lock.lock();
         try
         {
+            checkOpen();
+            lastUsedAt = System.currentTimeMillis();
+            if (pipelined && transactionExpires != null && isHttp(activeTransactionEndpointUrl))
+            {
+                pipelineFlush();
+                return;
+            }
+
+            awaitPendingFlush();
             LOG.debug("Flushing to [{}]", activeTransactionEndpointUrl);
-            JSONObject jsonResult = execute(activeTransactionEndpointUrl);
-            this.activeTransactionEndpointUrl = jsonResult.getString("commit").replace("/commit", "");
-            this.transactionExpires = OffsetDateTime.parse(jsonResult.getJSONObject("transaction").getString("expires"),
-                                                          FORMATTER);
+            ExecutionResult result = execute(activeTransactionEndpointUrl);
+            updateTransaction(result);
             this.statements.clear();
+            this.pendingBytes = 0;
             LOG.debug("Next endpoint is now: [{}] which expires at: [{}]",
                       activeTransactionEndpointUrl,
                       transactionExpires);
@@ -108,21 +253,28 @@ public class RestConnectionImpl implements Connection
 
         catch (IOException e)
         {
-            close();
+            unbind();
             throw new Neo4jClientException(e);
         }
         catch (JSONException e)
         {
-            close();
+            unbind();
             throw new Neo4jClientException("Error when processing JSON response.", e);
         }
+        finally
+        {
+            unlock();
+        }
     }
 
     @Override
     public void commit()
     {
+        lock.lock();
         try
         {
+            checkOpen();
+            awaitPendingFlush();
             String commitEndpoint = activeTransactionEndpointUrl + "/commit";
             LOG.debug("Committing to [{}]", commitEndpoint);
             execute(commitEndpoint);
@@ -135,86 +287,358 @@ public class RestConnectionImpl implements Connection
         finally
         {
             LOG.debug("Closing connection.");
-            close();
+            finish();
+            unlock();
         }
     }
 
     @Override
     public void resetExpiry()
     {
+        lock.lock();
         try
         {
-            final JSONObject payload = new JSONObject().put("statements", new ArrayList<JSONObject>());
-            LOG.info("Executing [{}] statements.", statements.size());
-            LOG.debug("Statements are: [{}]", payload.toString());
-            String result = client.post(activeTransactionEndpointUrl, payload);
-            LOG.debug("Raw result is: [{}]", result);
-            JSONObject jsonResult = new JSONObject(result);
-            ExecutionResult er = new ExecutionResult(jsonResult);
-            checkErrors(er.getErrors());
-            this.activeTransactionEndpointUrl = jsonResult.getString("commit").replace("/commit", "");
-            this.transactionExpires = OffsetDateTime.parse(jsonResult.getJSONObject("transaction").getString("expires"),
-                                                          FORMATTER);
+            checkOpen();
+            lastUsedAt = System.currentTimeMillis();
+            awaitPendingFlush();
+            sendKeepAlive();
         }
         catch (Exception e)
         {
-            close();
+            unbind();
             throw new Neo4jClientException(e);
         }
+        finally
+        {
+            unlock();
+        }
+    }
+
+    /**
+     * Called by the TransactionKeepAlive shortly before the transaction expires. Does nothing if the Connection is
+     * finished or if the caller has not touched it for longer than the keep-alive's maximum idle time, so abandoned
+     * transactions still expire.
+     */
+    void keepAlive()
+    {
+        if (!lock.tryLock())
+        {
+            // the caller is using this Connection right now. Only the lock holder may reschedule, so leave it a note
+            // and let unlock() retry, unless it finished in the meantime.
+            keepAliveMissed = true;
+            if (!lock.tryLock())
+            {
+                return;
+            }
+        }
+
+        try
+        {
+            keepAliveMissed = false;
+            if (finished || transactionExpires == null || !keepAlive.isEnabled())
+            {
+                return;
+            }
+            if (pendingFlush != null && !pendingFlush.received.isDone())
+            {
+                keepAliveTask = keepAlive.retry(this);
+                return;
+            }
+            if (System.currentTimeMillis() - lastUsedAt > keepAlive.getMaxIdleMillis())
+            {
+                LOG.warn("Transaction [{}] has been idle for too long and will be allowed to expire.",
+                         activeTransactionEndpointUrl);
+                return;
+            }
+
+            LOG.debug("Keeping transaction [{}] alive.", activeTransactionEndpointUrl);
+            sendKeepAlive();
+        }
+        catch (Exception e)
+        {
+            LOG.warn("Unable to keep transaction [" + activeTransactionEndpointUrl + "] alive.", e);
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    private void sendKeepAlive() throws IOException
+    {
+        final TransactionRequestEncoder payload = new TransactionRequestEncoder(Collections.emptyList());
+        TransactionResponseDecoder decoder = new TransactionResponseDecoder(Collections.emptyList());
+        ExecutionResult er = client.post(activeTransactionEndpointUrl,
+                                         payload,
+                                         (response, body) -> decoder.decode(body),
+                                         true);
+        checkErrors(er.getErrors());
+        updateTransaction(er);
     }
 
 
-    private JSONObject execute(String endpointUrl) throws IOException
+    private ExecutionResult execute(String endpointUrl) throws IOException
     {
-        List<JSONObject> statements = this.statements.stream().map(Statement::toJson).collect(Collectors.toList());
-        final JSONObject payload = new JSONObject().put("statements", (statements));
+        final TransactionRequestEncoder payload = new TransactionRequestEncoder(this.statements);
         LOG.info("Executing [{}] statements.", statements.size());
-        LOG.debug("Statements are: [{}]", payload.toString());
-        String result = client.post(endpointUrl, payload);
-        LOG.debug("Raw result is: [{}]", result);
-        JSONObject jsonResult = new JSONObject(result);
-        ExecutionResult er = new ExecutionResult(jsonResult);
+        if (LOG.isDebugEnabled())
+        {
+            LOG.debug("Statements are: [{}]", payload.toString());
+        }
+        TransactionResponseDecoder decoder = new TransactionResponseDecoder(this.statements, symbols, identityMap);
+        // Only a request that begins a new transaction may be resent on a stale connection: a duplicate leaves behind
+        // an uncommitted transaction that the server rolls back once it expires.
+        boolean retryable = transactionExpires == null && !endpointUrl.endsWith("/commit");
+        ExecutionResult er = client.post(endpointUrl, payload, (response, body) -> decoder.decode(body), retryable);
+        checkErrors(er.getErrors());
+        assignResults(this.statements, er);
+        return er;
+    }
+
+    /**
+     * Sends the pending statements without waiting for their results. The request is only sent once the server has
+     * finished responding to the previous flush, as Neo4J does not allow concurrent requests on a transaction, but the
+     * previous response is decoded while the server is executing this batch. Results and errors for this batch are
+     * picked up by the next flush(), commit(), resetExpiry() or rollback().
+     * <p>
+     * The previous batch's errors are only known once its response has been decoded, after this batch was sent. If it
+     * failed this batch goes to a transaction the server has already rolled back, and fails in turn.
+     * Only called for http urls, as the request is sent through HttpClient#postAsync.
+     */
+    private void pipelineFlush() throws IOException
+    {
+        List<Statement> batch = new ArrayList<>(this.statements);
+        this.statements.clear();
+        this.pendingBytes = 0;
+
+        // serialise while the previous batch is still in flight.
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(8192);
+        new TransactionRequestEncoder(batch).writeTo(bytes);
+        LOG.info("Executing [{}] statements.", batch.size());
+
+        PendingFlush previous = this.pendingFlush;
+        this.pendingFlush = null;
+        if (previous != null)
+        {
+            previous.received.join();
+        }
+
+        LOG.debug("Pipelining flush to [{}]", activeTransactionEndpointUrl);
+        TransactionResponseDecoder decoder = new TransactionResponseDecoder(batch, symbols, identityMap);
+        CompletableFuture<Void> received = new CompletableFuture<>();
+        CompletableFuture<ExecutionResult> result = client.postAsync(activeTransactionEndpointUrl,
+                                                                     bytes::writeTo,
+                                                                     (response, body) -> {
+                                                                         received.complete(null);
+                                                                         return decoder.decode(body);
+                                                                     });
+        result.whenComplete((er, e) -> received.complete(null));
+        this.pendingFlush = new PendingFlush(batch, received, result);
+
+        if (previous != null)
+        {
+            completeFlush(previous);
+        }
+    }
+
+    private static boolean isHttp(String url)
+    {
+        return url.regionMatches(true, 0, "http:", 0, 5);
+    }
+
+    private void awaitPendingFlush() throws IOException
+    {
+        PendingFlush previous = this.pendingFlush;
+        if (previous != null)
+        {
+            this.pendingFlush = null;
+            completeFlush(previous);
+        }
+    }
+
+    private void completeFlush(PendingFlush flush) throws IOException
+    {
+        ExecutionResult er;
+        try
+        {
+            er = flush.result.join();
+        }
+        catch (CompletionException e)
+        {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException)
+            {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException)
+            {
+                throw (RuntimeException) cause;
+            }
+            throw e;
+        }
         checkErrors(er.getErrors());
-        for (int i = 0; i < this.statements.size(); i++)
+        assignResults(flush.batch, er);
+        updateTransaction(er);
+    }
+
+    static void assignResults(List<Statement> statements, ExecutionResult er)
+    {
+        for (int i = 0; i < statements.size(); i++)
         {
-            Statement statement = this.statements.get(i);
-            JSONObject jsonObject = er.geResult(i);
+            Statement statement = statements.get(i);
+            Object result = er.getResult(i);
             if (statement.getType().equals("row"))
             {
-                RowSet rs = er.buildRowSet(jsonObject);
-                ((RowStatement) statement).setResult(rs);
+                ((RowStatement) statement).setResult((RowSet) result);
             }
             else
             {
-                Graph g = er.buildGraph(jsonObject);
-                ((GraphStatement) statement).setResult(g);
+                ((GraphStatement) statement).setResult((Graph) result);
             }
         }
-        return jsonResult;
+    }
+
+    private void updateTransaction(ExecutionResult result)
+    {
+        if (result.getCommit() == null || result.getExpires() == null)
+        {
+            throw new JSONException("Response did not include an open transaction.");
+        }
+        this.activeTransactionEndpointUrl = result.getCommit().replace("/commit", "");
+        this.transactionExpires = OffsetDateTime.parse(result.getExpires(), FORMATTER);
+
+        if (keepAlive != null)
+        {
+            // supersedes any keep-alive that found this Connection busy, though the new one may find it busy too.
+            keepAliveMissed = false;
+            cancelKeepAlive();
+            keepAliveTask = keepAlive.schedule(this, transactionExpires);
+        }
     }
 
     @Override
     public void rollback()
     {
+        lock.lock();
         try
         {
-            String json = client.delete(activeTransactionEndpointUrl);
-            ExecutionResult er = new ExecutionResult(new JSONObject(json));
+            if (finished)
+            {
+                return;
+            }
+            if (pendingFlush != null)
+            {
+                // the transaction is being thrown away so any error from the last flush no longer matters.
+                pendingFlush.result.handle((result, e) -> null).join();
+                pendingFlush = null;
+            }
+            if (transactionExpires == null)
+            {
+                // nothing has been flushed so Neo4J has no transaction to roll back.
+                return;
+            }
+            TransactionResponseDecoder decoder = new TransactionResponseDecoder(Collections.emptyList());
+            ExecutionResult er = client.delete(activeTransactionEndpointUrl, (response, body) -> decoder.decode(body));
             checkErrors(er.getErrors());
         }
         catch (Exception e)
         {
-            close();
             throw new Neo4jClientException(e);
         }
+        finally
+        {
+            finish();
+            unlock();
+        }
+    }
+
+    /**
+     * Rolls back this Connection unless it has already been committed or rolled back, and unbinds it from the current
+     * Thread if it was obtained through getConnection().
+     */
+    @Override
+    public void close()
+    {
+        rollback();
+    }
+
+    private void checkOpen()
+    {
+        if (finished)
+        {
+            throw new Neo4jClientException("This Connection has already been committed, rolled back or closed.");
+        }
+    }
+
+    private void finish()
+    {
+        finished = true;
+        cancelKeepAlive();
+        unbind();
+    }
+
+    /**
+     * Releases the lock, then retries a keep-alive that found this Connection busy. keepAlive() sets keepAliveMissed
+     * before trying the lock a second time, so either it gets the lock itself or the holder sees the flag here.
+     */
+    private void unlock()
+    {
+        lock.unlock();
+        if (keepAliveMissed && lock.tryLock())
+        {
+            try
+            {
+                if (keepAliveMissed && !finished && transactionExpires != null)
+                {
+                    cancelKeepAlive();
+                    keepAliveTask = keepAlive.retry(this);
+                }
+                keepAliveMissed = false;
+            }
+            finally
+            {
+                lock.unlock();
+            }
+        }
     }
 
-    private void close()
+    private void cancelKeepAlive()
     {
-        closeConnection();
+        ScheduledFuture<?> task = keepAliveTask;
+        if (task != null)
+        {
+            task.cancel(false);
+            keepAliveTask = null;
+        }
+    }
+
+    private void unbind()
+    {
+        if (connectionHolder.get() == this)
+        {
+            connectionHolder.remove();
+        }
+    }
+
+    private static class PendingFlush
+    {
+        private final List<Statement> batch;
+
+        private final CompletableFuture<Void> received;
+
+        private final CompletableFuture<ExecutionResult> result;
+
+        private PendingFlush(List<Statement> batch,
+                             CompletableFuture<Void> received,
+                             CompletableFuture<ExecutionResult> result)
+        {
+            this.batch = batch;
+            this.received = received;
+            this.result = result;
+        }
     }
 
-    void checkErrors(Neo4jServerException[] exceptions)
+    static void checkErrors(Neo4jServerException[] exceptions)
     {
         int length = exceptions.length;
 
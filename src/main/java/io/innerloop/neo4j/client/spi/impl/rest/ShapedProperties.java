@@ -0,0 +1,92 @@
+package io.innerloop.neo4j.client.spi.impl.rest;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * A read only property map made of a shared PropertyShape and a flat array of values, one per key in the shape. This
+ * costs one small object and one array per Node or Relationship rather than a HashMap with an entry per property.
+ */
+class ShapedProperties extends AbstractMap<String, Object>
+{
+    private final PropertyShape shape;
+
+    private final Object[] values;
+
+    ShapedProperties(PropertyShape shape, Object[] values)
+    {
+        this.shape = shape;
+        this.values = values;
+    }
+
+    @Override
+    public int size()
+    {
+        return values.length;
+    }
+
+    @Override
+    public boolean containsKey(Object key)
+    {
+        return shape.indexOf(key) >= 0;
+    }
+
+    @Override
+    public Object get(Object key)
+    {
+        int position = shape.indexOf(key);
+        return position < 0 ? null : values[position];
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet()
+    {
+        return new AbstractSet<Entry<String, Object>>()
+        {
+            @Override
+            public Iterator<Entry<String, Object>> iterator()
+            {
+                return new Iterator<Entry<String, Object>>()
+                {
+                    private int next;
+
+                    @Override
+                    public boolean hasNext()
+                    {
+                        return next < values.length;
+                    }
+
+                    @Override
+                    public Entry<String, Object> next()
+                    {
+                        if (next >= values.length)
+                        {
+                            throw new NoSuchElementException();
+                        }
+                        int position = next++;
+                        return new SimpleImmutableEntry<>(shape.key(position), values[position]);
+                    }
+                };
+            }
+
+            @Override
+            public int size()
+            {
+                return values.length;
+            }
+        };
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super String, ? super Object> action)
+    {
+        for (int i = 0; i < values.length; i++)
+        {
+            action.accept(shape.key(i), values[i]);
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package io.innerloop.neo4j.client.spi.impl.rest;
+
+import io.innerloop.neo4j.client.Row;
+
+import java.util.Arrays;
+
+/**
+ * The Row handed to a RowHandler. A single instance is refilled for every row of a result so streaming a result
+ * allocates nothing per row beyond the strings, maps and lists in it.
+ */
+class StreamedRow implements Row
+{
+    private static final byte NULL = 0;
+
+    private static final byte LONG = 1;
+
+    private static final byte DOUBLE = 2;
+
+    private static final byte BOOLEAN = 3;
+
+    private static final byte OBJECT = 4;
+
+    private String[] columnNames;
+
+    private byte[] types;
+
+    private long[] longs;
+
+    private double[] doubles;
+
+    private Object[] objects;
+
+    private int size;
+
+    StreamedRow(String[] columnNames)
+    {
+        this.columnNames = columnNames;
+        this.types = new byte[8];
+        this.longs = new long[8];
+        this.doubles = new double[8];
+        this.objects = new Object[8];
+    }
+
+    void setColumnNames(String[] columnNames)
+    {
+        this.columnNames = columnNames;
+    }
+
+    void clear()
+    {
+        Arrays.fill(objects, 0, size, null);
+        size = 0;
+    }
+
+    void addNull()
+    {
+        ensureCapacity();
+        types[size++] = NULL;
+    }
+
+    void addLong(long value)
+    {
+        ensureCapacity();
+        longs[size] = value;
+        types[size++] = LONG;
+    }
+
+    void addDouble(double value)
+    {
+        ensureCapacity();
+        doubles[size] = value;
+        types[size++] = DOUBLE;
+    }
+
+    void addBoolean(boolean value)
+    {
+        ensureCapacity();
+        longs[size] = value ? 1 : 0;
+        types[size++] = BOOLEAN;
+    }
+
+    void add(Object value)
+    {
+        ensureCapacity();
+        objects[size] = value;
+        types[size++] = value == null ? NULL : OBJECT;
+    }
+
+    @Override
+    public String[] getColumnNames()
+    {
+        return columnNames;
+    }
+
+    @Override
+    public int size()
+    {
+        return Math.max(size, columnNames.length);
+    }
+
+    @Override
+    public boolean isNull(int column)
+    {
+        return type(column) == NULL;
+    }
+
+    @Override
+    public Object getObject(int column)
+    {
+        switch (type(column))
+        {
+            case LONG:
+                long value = longs[column];
+                return value == (int) value ? (Object) (int) value : (Object) value;
+            case DOUBLE:
+                return doubles[column];
+            case BOOLEAN:
+                return longs[column] != 0;
+            case OBJECT:
+                return objects[column];
+            default:
+                return null;
+        }
+    }
+
+    @Override
+    public String getString(int column)
+    {
+        return (String) getObject(column);
+    }
+
+    @Override
+    public int getInt(int column)
+    {
+        switch (type(column))
+        {
+            case LONG:
+                return (int) longs[column];
+            case NULL:
+                return 0;
+            default:
+                return (int) getObject(column);
+        }
+    }
+
+    @Override
+    public long getLong(int column)
+    {
+        switch (type(column))
+        {
+            case LONG:
+                return longs[column];
+            case NULL:
+                return 0;
+            default:
+                return ((Number) getObject(column)).longValue();
+        }
+    }
+
+    @Override
+    public double getDouble(int column)
+    {
+        switch (type(column))
+        {
+            case DOUBLE:
+                return doubles[column];
+            case LONG:
+                return longs[column];
+            case NULL:
+                return 0;
+            default:
+                return (double) getObject(column);
+        }
+    }
+
+    @Override
+    public boolean getBoolean(int column)
+    {
+        switch (type(column))
+        {
+            case BOOLEAN:
+                return longs[column] != 0;
+            case NULL:
+                return false;
+            default:
+                return (boolean) getObject(column);
+        }
+    }
+
+    @Override
+    public Object[] toArray()
+    {
+        Object[] values = new Object[size()];
+        for (int i = 0; i < size; i++)
+        {
+            values[i] = getObject(i);
+        }
+        return values;
+    }
+
+    private byte type(int column)
+    {
+        if (column < 0 || column >= size())
+        {
+            throw new ArrayIndexOutOfBoundsException(column);
+        }
+        // columns the server left off the end of the row are null.
+        return column < size ? types[column] : NULL;
+    }
+
+    private void ensureCapacity()
+    {
+        if (size == types.length)
+        {
+            int capacity = size * 2;
+            types = Arrays.copyOf(types, capacity);
+            longs = Arrays.copyOf(longs, capacity);
+            doubles = Arrays.copyOf(doubles, capacity);
+            objects = Arrays.copyOf(objects, capacity);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package io.innerloop.neo4j.client.spi.impl.rest;
+
+/**
+ * A bounded table of canonical Strings for the small vocabulary that repeats throughout responses: labels,
+ * relationship types, column names and property keys.
+ * <p>
+ * Lookups match directly against the decoder's character buffer so a String is only built the first time a symbol is
+ * seen. The table is a fixed size array shared by every Connection of a client. Entries are plain String references,
+ * which are safe to publish without locking, so a lookup never blocks. Each symbol may sit in one of two neighbouring
+ * slots; when both are taken the newer symbol replaces an older one, which keeps memory bounded however many distinct
+ * keys a client encounters.
+ */
+class SymbolTable
+{
+    private static final int MAX_LENGTH = 64;
+
+    private static final int WAYS = 2;
+
+    private final String[] symbols;
+
+    private final int mask;
+
+    /**
+     * Creates a new SymbolTable.
+     *
+     * @param capacity
+     *         The maximum number of symbols to hold, rounded up to a power of two.
+     */
+    SymbolTable(int capacity)
+    {
+        int size = 16;
+        while (size < capacity)
+        {
+            size <<= 1;
+        }
+        this.symbols = new String[size];
+        this.mask = size - 1;
+    }
+
+    /**
+     * Finds the canonical String for a run of characters, adding it if it is not yet known. Long runs are unlikely to
+     * be symbols and are returned as new Strings without being cached.
+     *
+     * @return The canonical String.
+     */
+    String intern(char[] chars, int offset, int length)
+    {
+        if (length > MAX_LENGTH)
+        {
+            return new String(chars, offset, length);
+        }
+
+        int hash = 0;
+        for (int i = 0; i < length; i++)
+        {
+            hash = 31 * hash + chars[offset + i];
+        }
+
+        // the hash matches String.hashCode() so stored symbols can be compared on it first.
+        int slot = slot(hash);
+        for (int i = 0; i < WAYS; i++)
+        {
+            String symbol = symbols[(slot + i) & mask];
+            if (symbol != null && symbol.hashCode() == hash && matches(symbol, chars, offset, length))
+            {
+                return symbol;
+            }
+        }
+        return store(slot, new String(chars, offset, length));
+    }
+
+    /**
+     * Finds the canonical instance of a String, adding it if it is not yet known.
+     *
+     * @return The canonical String.
+     */
+    String intern(String value)
+    {
+        if (value.length() > MAX_LENGTH)
+        {
+            return value;
+        }
+
+        int slot = slot(value.hashCode());
+        for (int i = 0; i < WAYS; i++)
+        {
+            String symbol = symbols[(slot + i) & mask];
+            if (value.equals(symbol))
+            {
+                return symbol;
+            }
+        }
+        return store(slot, value);
+    }
+
+    private int slot(int hash)
+    {
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    private String store(int slot, String symbol)
+    {
+        // take a free way if there is one, otherwise evict the first.
+        for (int i = 0; i < WAYS; i++)
+        {
+            if (symbols[(slot + i) & mask] == null)
+            {
+                symbols[(slot + i) & mask] = symbol;
+                return symbol;
+            }
+        }
+        symbols[slot] = symbol;
+        return symbol;
+    }
+
+    private static boolean matches(String symbol, char[] chars, int offset, int length)
+    {
+        if (symbol.length() != length)
+        {
+            return false;
+        }
+        for (int i = 0; i < length; i++)
+        {
+            if (symbol.charAt(i) != chars[offset + i])
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+}
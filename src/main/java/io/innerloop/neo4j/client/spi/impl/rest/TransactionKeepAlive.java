@@ -0,0 +1,105 @@
+package io.innerloop.neo4j.client.spi.impl.rest;
+
+import java.time.OffsetDateTime;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps open transactions alive by sending an empty statement batch to each one shortly before it expires.
+ * <p>
+ * Every Connection created by a factory shares a single timer with a couple of threads, rather than a thread per
+ * transaction. Each flush reschedules its Connection's keep-alive against the new expiry, and committing, rolling back
+ * or closing the Connection cancels it. Transactions whose Connection has not been used for longer than
+ * <code>maxIdle</code> are no longer kept alive, so that Connections that are simply forgotten still expire.
+ * <p>
+ * The timer lives as long as its factory. Enabling, disabling or changing the settings only affects what the next
+ * scheduled keep-alive does, and once the timer is closed scheduling does nothing, so a Connection never fails a flush
+ * because of its keep-alive.
+ */
+class TransactionKeepAlive
+{
+    private static final long RETRY_MILLIS = 1000;
+
+    private final ScheduledThreadPoolExecutor timer;
+
+    private volatile boolean enabled;
+
+    private volatile long marginMillis;
+
+    private volatile long maxIdleMillis;
+
+    TransactionKeepAlive()
+    {
+        AtomicInteger count = new AtomicInteger();
+        this.timer = new ScheduledThreadPoolExecutor(2, r -> {
+            Thread thread = new Thread(r, "neo4j-client-keep-alive-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        // most keep-alives are cancelled by the next flush, don't let them pile up in the queue.
+        this.timer.setRemoveOnCancelPolicy(true);
+    }
+
+    void enable(long margin, long maxIdle, TimeUnit unit)
+    {
+        this.marginMillis = unit.toMillis(margin);
+        this.maxIdleMillis = unit.toMillis(maxIdle);
+        this.enabled = true;
+    }
+
+    void disable()
+    {
+        this.enabled = false;
+    }
+
+    boolean isEnabled()
+    {
+        return enabled && !timer.isShutdown();
+    }
+
+    /**
+     * Schedules a keep-alive for a Connection's transaction.
+     *
+     * @return The scheduled keep-alive, or null if keep-alives are disabled or the timer has been closed.
+     */
+    ScheduledFuture<?> schedule(RestConnectionImpl connection, OffsetDateTime expires)
+    {
+        long delay = expires.toInstant().toEpochMilli() - marginMillis - System.currentTimeMillis();
+        return submit(connection, Math.max(0, delay));
+    }
+
+    ScheduledFuture<?> retry(RestConnectionImpl connection)
+    {
+        return submit(connection, RETRY_MILLIS);
+    }
+
+    long getMaxIdleMillis()
+    {
+        return maxIdleMillis;
+    }
+
+    void close()
+    {
+        timer.shutdownNow();
+    }
+
+    private ScheduledFuture<?> submit(RestConnectionImpl connection, long delayMillis)
+    {
+        if (!isEnabled())
+        {
+            return null;
+        }
+        try
+        {
+            return timer.schedule(connection::keepAlive, delayMillis, TimeUnit.MILLISECONDS);
+        }
+        catch (RejectedExecutionException e)
+        {
+            // closed since the check above.
+            return null;
+        }
+    }
+}
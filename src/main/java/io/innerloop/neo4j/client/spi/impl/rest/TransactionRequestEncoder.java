@@ -0,0 +1,368 @@
+package io.innerloop.neo4j.client.spi.impl.rest;
+
+import io.innerloop.neo4j.client.DoubleList;
+import io.innerloop.neo4j.client.LongList;
+import io.innerloop.neo4j.client.Statement;
+import io.innerloop.neo4j.client.spi.impl.rest.http.RequestBody;
+import io.innerloop.neo4j.client.spi.impl.rest.json.JSONArray;
+import io.innerloop.neo4j.client.spi.impl.rest.json.JSONException;
+import io.innerloop.neo4j.client.spi.impl.rest.json.JSONObject;
+import io.innerloop.neo4j.client.spi.impl.rest.json.JSONString;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.lang.reflect.Array;
+import java.nio.DoubleBuffer;
+import java.nio.LongBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes a batch of statements in the Neo4J transactional request format straight to the connection as UTF-8.
+ * <p>
+ * Statements and their parameter maps are serialised as they are written, so neither a JSONObject per statement nor the
+ * full payload String is ever built. Primitive arrays, LongLists and DoubleLists are written element by element without
+ * boxing.
+ */
+class TransactionRequestEncoder implements RequestBody
+{
+    private final List<Statement> statements;
+
+    TransactionRequestEncoder(List<Statement> statements)
+    {
+        this.statements = statements;
+    }
+
+    @Override
+    public void writeTo(OutputStream out) throws IOException
+    {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 8192);
+        write(writer);
+        writer.flush();
+    }
+
+    void write(Writer writer) throws IOException
+    {
+        writer.write("{\"statements\":[");
+        for (int i = 0; i < statements.size(); i++)
+        {
+            if (i > 0)
+            {
+                writer.write(',');
+            }
+            writeStatement(writer, statements.get(i));
+        }
+        writer.write("]}");
+    }
+
+    private void writeStatement(Writer writer, Statement statement) throws IOException
+    {
+        writer.write("{\"statement\":");
+        JSONObject.quote(statement.getQuery(), writer);
+        writer.write(",\"resultDataContents\":[\"");
+        writer.write(statement.getType());
+        writer.write("\"],\"includeStats\":");
+        writer.write(statement.isIncludeStats() ? "true" : "false");
+        writer.write(",\"parameters\":");
+        writeMap(writer, statement.getParameters());
+        writer.write('}');
+    }
+
+    private void writeMap(Writer writer, Map<?, ?> map) throws IOException
+    {
+        writer.write('{');
+        boolean first = true;
+        for (Map.Entry<?, ?> entry : map.entrySet())
+        {
+            if (entry.getValue() == null)
+            {
+                // JSONObject drops null values, keep the same wire format.
+                continue;
+            }
+            if (!first)
+            {
+                writer.write(',');
+            }
+            first = false;
+            JSONObject.quote(String.valueOf(entry.getKey()), writer);
+            writer.write(':');
+            writeValue(writer, entry.getValue());
+        }
+        writer.write('}');
+    }
+
+    private void writeValue(Writer writer, Object value) throws IOException
+    {
+        if (value == null || JSONObject.NULL.equals(value))
+        {
+            writer.write("null");
+        }
+        else if (value instanceof String)
+        {
+            JSONObject.quote((String) value, writer);
+        }
+        else if (value instanceof Integer || value instanceof Long || value instanceof Short ||
+                 value instanceof Byte)
+        {
+            writer.write(Long.toString(((Number) value).longValue()));
+        }
+        else if (value instanceof Number)
+        {
+            JSONObject.testValidity(value);
+            writer.write(JSONObject.numberToString((Number) value));
+        }
+        else if (value instanceof Boolean)
+        {
+            writer.write(value.toString());
+        }
+        else if (value instanceof Character)
+        {
+            JSONObject.quote(value.toString(), writer);
+        }
+        else if (value instanceof Map)
+        {
+            writeMap(writer, (Map<?, ?>) value);
+        }
+        else if (value instanceof LongList)
+        {
+            writeLongs(writer, ((LongList) value).asLongBuffer());
+        }
+        else if (value instanceof DoubleList)
+        {
+            writeDoubles(writer, ((DoubleList) value).asDoubleBuffer());
+        }
+        else if (value instanceof Collection)
+        {
+            writer.write('[');
+            boolean first = true;
+            for (Object element : (Collection<?>) value)
+            {
+                if (!first)
+                {
+                    writer.write(',');
+                }
+                first = false;
+                writeValue(writer, element);
+            }
+            writer.write(']');
+        }
+        else if (value instanceof long[])
+        {
+            writeLongs(writer, LongBuffer.wrap((long[]) value));
+        }
+        else if (value instanceof int[])
+        {
+            int[] values = (int[]) value;
+            writer.write('[');
+            for (int i = 0; i < values.length; i++)
+            {
+                if (i > 0)
+                {
+                    writer.write(',');
+                }
+                writer.write(Integer.toString(values[i]));
+            }
+            writer.write(']');
+        }
+        else if (value instanceof double[])
+        {
+            writeDoubles(writer, DoubleBuffer.wrap((double[]) value));
+        }
+        else if (value instanceof float[])
+        {
+            float[] values = (float[]) value;
+            writer.write('[');
+            for (int i = 0; i < values.length; i++)
+            {
+                if (i > 0)
+                {
+                    writer.write(',');
+                }
+                if (Float.isNaN(values[i]) || Float.isInfinite(values[i]))
+                {
+                    throw new JSONException("JSON does not allow non-finite numbers.");
+                }
+                writeDecimal(writer, Float.toString(values[i]));
+            }
+            writer.write(']');
+        }
+        else if (value.getClass().isArray())
+        {
+            writer.write('[');
+            int length = Array.getLength(value);
+            for (int i = 0; i < length; i++)
+            {
+                if (i > 0)
+                {
+                    writer.write(',');
+                }
+                writeValue(writer, Array.get(value, i));
+            }
+            writer.write(']');
+        }
+        else if (value instanceof JSONObject)
+        {
+            ((JSONObject) value).write(writer);
+        }
+        else if (value instanceof JSONArray)
+        {
+            ((JSONArray) value).write(writer);
+        }
+        else if (value instanceof JSONString)
+        {
+            writer.write(JSONObject.valueToString(value));
+        }
+        else
+        {
+            Object wrapped = JSONObject.wrap(value);
+            if (wrapped == null)
+            {
+                throw new JSONException("Unable to serialise parameter of type " + value.getClass().getName());
+            }
+            writeValue(writer, wrapped);
+        }
+    }
+
+    private static void writeLongs(Writer writer, LongBuffer values) throws IOException
+    {
+        writer.write('[');
+        for (int i = values.position(); i < values.limit(); i++)
+        {
+            if (i > values.position())
+            {
+                writer.write(',');
+            }
+            writer.write(Long.toString(values.get(i)));
+        }
+        writer.write(']');
+    }
+
+    private static void writeDoubles(Writer writer, DoubleBuffer values) throws IOException
+    {
+        writer.write('[');
+        for (int i = values.position(); i < values.limit(); i++)
+        {
+            if (i > values.position())
+            {
+                writer.write(',');
+            }
+            double value = values.get(i);
+            if (Double.isNaN(value) || Double.isInfinite(value))
+            {
+                throw new JSONException("JSON does not allow non-finite numbers.");
+            }
+            writeDecimal(writer, Double.toString(value));
+        }
+        writer.write(']');
+    }
+
+    /**
+     * Writes a decimal the way JSONObject.numberToString() does, dropping trailing zeros and a trailing point, so
+     * primitive arrays go over the wire exactly as their boxed equivalents did.
+     */
+    private static void writeDecimal(Writer writer, String string) throws IOException
+    {
+        int end = string.length();
+        if (string.indexOf('.') > 0 && string.indexOf('e') < 0 && string.indexOf('E') < 0)
+        {
+            while (string.charAt(end - 1) == '0')
+            {
+                end--;
+            }
+            if (string.charAt(end - 1) == '.')
+            {
+                end--;
+            }
+        }
+        writer.write(string, 0, end);
+    }
+
+    /**
+     * Cheaply estimates how many bytes a statement will add to a request, without serialising it. Escaping and multi
+     * byte characters are not accounted for so the estimate is a lower bound for text heavy parameters.
+     *
+     * @param statement
+     *         The statement to measure.
+     *
+     * @return The approximate serialised size in bytes.
+     */
+    static long estimateSize(Statement statement)
+    {
+        // the fixed statement, resultDataContents, includeStats and parameters keys.
+        return 80 + statement.getQuery().length() + estimateValue(statement.getParameters());
+    }
+
+    private static long estimateValue(Object value)
+    {
+        if (value == null)
+        {
+            return 4;
+        }
+        if (value instanceof String)
+        {
+            return ((String) value).length() + 2;
+        }
+        if (value instanceof Number || value instanceof Boolean)
+        {
+            return 8;
+        }
+        if (value instanceof Map)
+        {
+            long size = 2;
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet())
+            {
+                size += String.valueOf(entry.getKey()).length() + 4 + estimateValue(entry.getValue());
+            }
+            return size;
+        }
+        if (value instanceof LongList || value instanceof DoubleList)
+        {
+            return 2 + ((List<?>) value).size() * 9L;
+        }
+        if (value instanceof Collection)
+        {
+            long size = 2;
+            for (Object element : (Collection<?>) value)
+            {
+                size += estimateValue(element) + 1;
+            }
+            return size;
+        }
+        if (value.getClass().isArray())
+        {
+            int length = Array.getLength(value);
+            if (value.getClass().getComponentType().isPrimitive())
+            {
+                return 2 + length * 9L;
+            }
+            long size = 2;
+            for (int i = 0; i < length; i++)
+            {
+                size += estimateValue(Array.get(value, i)) + 1;
+            }
+            return size;
+        }
+        return String.valueOf(value).length() + 2;
+    }
+
+    @Override
+    public String toString()
+    {
+        StringWriter writer = new StringWriter();
+        try
+        {
+            write(writer);
+        }
+        catch (IOException e)
+        {
+            throw new JSONException(e);
+        }
+        return writer.toString();
+    }
+}
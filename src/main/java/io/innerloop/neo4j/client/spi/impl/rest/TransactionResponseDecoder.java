@@ -0,0 +1,666 @@
+package io.innerloop.neo4j.client.spi.impl.rest;
+
+import io.innerloop.neo4j.client.Graph;
+import io.innerloop.neo4j.client.GraphStatement;
+import io.innerloop.neo4j.client.GraphVisitor;
+import io.innerloop.neo4j.client.Neo4jServerException;
+import io.innerloop.neo4j.client.Node;
+import io.innerloop.neo4j.client.Relationship;
+import io.innerloop.neo4j.client.RowHandler;
+import io.innerloop.neo4j.client.RowSet;
+import io.innerloop.neo4j.client.RowStatement;
+import io.innerloop.neo4j.client.Statement;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decodes a response from the Neo4J transactional endpoint in a single pass over the response stream.
+ * <p>
+ * The decoder understands the shape of the transactional envelope (<code>commit</code>, <code>results[].columns</code>,
+ * <code>data[].row</code>, <code>data[].graph</code>, <code>transaction.expires</code> and <code>errors</code>) and
+ * builds RowSets, Graphs, Nodes and Relationships directly as it reads, without an intermediate JSONObject tree.
+ * Nodes and Relationships that have already been seen in a result, or that are in the Connection's IdentityMap, are
+ * skipped rather than decoded again. Neo4J writes the id first; should it come later the properties before it are
+ * only copied as text, and decoded once the entity is known to be new. Rows of a RowStatement with a RowHandler, and
+ * Nodes and Relationships of a GraphStatement with a GraphVisitor, are passed on as they are read and not kept.
+ * <p>
+ * Property maps are read only ShapedProperties. Entities with the same property keys share one PropertyShape for the
+ * life of the decoder, so each only holds an array of its values. For statements with lazy properties, properties and
+ * maps in rows are kept as JSON text and only decoded when first used.
+ */
+class TransactionResponseDecoder
+{
+    private static final String[] NO_STRINGS = new String[0];
+
+    private final List<Statement> statements;
+
+    private final SymbolTable symbols;
+
+    private final PropertyDecoder propertyDecoder;
+
+    private final IdentityMap identityMap;
+
+    /**
+     * Creates a new decoder.
+     *
+     * @param statements
+     *         The statements that were sent, in order. Each statement's type determines how its result is decoded.
+     */
+    TransactionResponseDecoder(List<Statement> statements)
+    {
+        this(statements, null);
+    }
+
+    /**
+     * Creates a new decoder that resolves labels, relationship types, column names and property keys through a shared
+     * SymbolTable, so repeated names share one String instance.
+     *
+     * @param statements
+     *         The statements that were sent, in order. Each statement's type determines how its result is decoded.
+     * @param symbols
+     *         The symbol table, or null to build a new String for every name.
+     */
+    TransactionResponseDecoder(List<Statement> statements, SymbolTable symbols)
+    {
+        this(statements, symbols, null);
+    }
+
+    /**
+     * Creates a new decoder that also resolves graph entities through an IdentityMap, so an entity already decoded in
+     * the same Connection is reused and its JSON skipped.
+     *
+     * @param statements
+     *         The statements that were sent, in order. Each statement's type determines how its result is decoded.
+     * @param symbols
+     *         The symbol table, or null to build a new String for every name.
+     * @param identityMap
+     *         The Connection's identity map, or null to decode every entity.
+     */
+    TransactionResponseDecoder(List<Statement> statements, SymbolTable symbols, IdentityMap identityMap)
+    {
+        this.statements = statements;
+        this.symbols = symbols;
+        this.propertyDecoder = new PropertyDecoder(symbols);
+        this.identityMap = identityMap;
+    }
+
+    ExecutionResult decode(InputStream in) throws IOException
+    {
+        return decode(new JsonStreamReader(in, symbols));
+    }
+
+    ExecutionResult decode(JsonStreamReader reader) throws IOException
+    {
+        String commit = null;
+        String expires = null;
+        List<Object> results = new ArrayList<>(statements.size());
+        Neo4jServerException[] errors = new Neo4jServerException[0];
+
+        reader.beginObject();
+        while (reader.hasNext())
+        {
+            switch (reader.nextName())
+            {
+                case "commit":
+                    commit = reader.nextString();
+                    break;
+                case "results":
+                    readResults(reader, results);
+                    break;
+                case "transaction":
+                    expires = readExpires(reader);
+                    break;
+                case "errors":
+                    errors = readErrors(reader);
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        return new ExecutionResult(commit, expires, results, errors);
+    }
+
+    private void readResults(JsonStreamReader reader, List<Object> results) throws IOException
+    {
+        reader.beginArray();
+        while (reader.hasNext())
+        {
+            int index = results.size();
+            Statement statement = index < statements.size() ? statements.get(index) : null;
+
+            if (statement != null && statement.getType().equals("graph"))
+            {
+                results.add(readGraph(reader, new GraphBuilder(statement)));
+            }
+            else
+            {
+                RowHandler handler = statement instanceof RowStatement ?
+                                     ((RowStatement) statement).getRowHandler() :
+                                     null;
+                results.add(readRowSet(reader, handler, statement != null && statement.isLazyProperties()));
+            }
+        }
+        reader.endArray();
+    }
+
+    private RowSet readRowSet(JsonStreamReader reader, RowHandler handler, boolean lazy) throws IOException
+    {
+        RowSet.Builder rows = new RowSet.Builder();
+        StreamedRow row = handler != null ? new StreamedRow(NO_STRINGS) : null;
+
+        reader.beginObject();
+        while (reader.hasNext())
+        {
+            switch (reader.nextName())
+            {
+                case "columns":
+                    String[] columns = readStrings(reader);
+                    rows.setColumnNames(columns);
+                    if (row != null)
+                    {
+                        row.setColumnNames(columns);
+                    }
+                    break;
+                case "data":
+                    reader.beginArray();
+                    while (reader.hasNext())
+                    {
+                        reader.beginObject();
+                        while (reader.hasNext())
+                        {
+                            if (!reader.nextName().equals("row"))
+                            {
+                                reader.skipValue();
+                            }
+                            else if (row != null)
+                            {
+                                readRow(reader, row, lazy);
+                                handler.handle(row);
+                            }
+                            else
+                            {
+                                readRow(reader, rows, lazy);
+                            }
+                        }
+                        reader.endObject();
+                    }
+                    reader.endArray();
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        return rows.build();
+    }
+
+    private void readRow(JsonStreamReader reader, RowSet.Builder rows, boolean lazy) throws IOException
+    {
+        int column = 0;
+
+        reader.beginArray();
+        while (reader.hasNext())
+        {
+            // scalars go straight into the row set's primitive columns without being boxed.
+            switch (reader.peek())
+            {
+                case '{':
+                case '[':
+                case '"':
+                    rows.add(column, readRowValue(reader, lazy));
+                    break;
+                case 'n':
+                    reader.skipValue();
+                    rows.addNull(column);
+                    break;
+                case 't':
+                case 'f':
+                    rows.addBoolean(column, reader.nextBoolean());
+                    break;
+                default:
+                    if (reader.nextPrimitiveNumber())
+                    {
+                        rows.addLong(column, reader.longValue());
+                    }
+                    else
+                    {
+                        rows.addDouble(column, reader.doubleValue());
+                    }
+            }
+            column++;
+        }
+        reader.endArray();
+        rows.endRow();
+    }
+
+    private void readRow(JsonStreamReader reader, StreamedRow row, boolean lazy) throws IOException
+    {
+        row.clear();
+
+        reader.beginArray();
+        while (reader.hasNext())
+        {
+            switch (reader.peek())
+            {
+                case '{':
+                case '[':
+                case '"':
+                    row.add(readRowValue(reader, lazy));
+                    break;
+                case 'n':
+                    reader.skipValue();
+                    row.addNull();
+                    break;
+                case 't':
+                case 'f':
+                    row.addBoolean(reader.nextBoolean());
+                    break;
+                default:
+                    if (reader.nextPrimitiveNumber())
+                    {
+                        row.addLong(reader.longValue());
+                    }
+                    else
+                    {
+                        row.addDouble(reader.doubleValue());
+                    }
+            }
+        }
+        reader.endArray();
+    }
+
+    private Graph readGraph(JsonStreamReader reader, GraphBuilder graph) throws IOException
+    {
+        reader.beginObject();
+        while (reader.hasNext())
+        {
+            if (reader.nextName().equals("data"))
+            {
+                reader.beginArray();
+                while (reader.hasNext())
+                {
+                    reader.beginObject();
+                    while (reader.hasNext())
+                    {
+                        if (reader.nextName().equals("graph"))
+                        {
+                            readGraphEntry(reader, graph);
+                        }
+                        else
+                        {
+                            reader.skipValue();
+                        }
+                    }
+                    reader.endObject();
+                }
+                reader.endArray();
+            }
+            else
+            {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        return graph.build();
+    }
+
+    private void readGraphEntry(JsonStreamReader reader, GraphBuilder graph) throws IOException
+    {
+        reader.beginObject();
+        while (reader.hasNext())
+        {
+            switch (reader.nextName())
+            {
+                case "nodes":
+                    reader.beginArray();
+                    while (reader.hasNext())
+                    {
+                        readNode(reader, graph);
+                    }
+                    reader.endArray();
+                    break;
+                case "relationships":
+                    reader.beginArray();
+                    while (reader.hasNext())
+                    {
+                        readRelationship(reader, graph);
+                    }
+                    reader.endArray();
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+    }
+
+    private void readNode(JsonStreamReader reader, GraphBuilder graph) throws IOException
+    {
+        Long id = null;
+        String[] labels = NO_STRINGS;
+        Map<String, Object> properties = null;
+        char[] rawProperties = null;
+
+        reader.beginObject();
+        while (reader.hasNext())
+        {
+            switch (reader.nextName())
+            {
+                case "id":
+                    id = reader.nextLong();
+                    if (graph.seenNode(id))
+                    {
+                        skipRemaining(reader);
+                        return;
+                    }
+                    Node known = identityMap == null ? null : identityMap.getNode(id);
+                    if (known != null)
+                    {
+                        skipRemaining(reader);
+                        graph.add(known);
+                        return;
+                    }
+                    break;
+                case "labels":
+                    labels = readStrings(reader);
+                    break;
+                case "properties":
+                    if (id == null)
+                    {
+                        rawProperties = reader.nextNull() ? null : reader.nextRawValue();
+                    }
+                    else
+                    {
+                        properties = readProperties(reader, graph.isLazy());
+                    }
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        if (id == null)
+        {
+            throw reader.syntaxError("Node without an id");
+        }
+        if (rawProperties != null)
+        {
+            properties = decodeProperties(rawProperties, graph.isLazy());
+        }
+        Node node = new Node(id, labels, properties == null ? propertyDecoder.empty() : properties);
+        graph.add(identityMap == null ? node : identityMap.putNode(node));
+    }
+
+    private void readRelationship(JsonStreamReader reader, GraphBuilder graph) throws IOException
+    {
+        Long id = null;
+        String type = null;
+        long startNode = -1;
+        long endNode = -1;
+        Map<String, Object> properties = null;
+        char[] rawProperties = null;
+
+        reader.beginObject();
+        while (reader.hasNext())
+        {
+            switch (reader.nextName())
+            {
+                case "id":
+                    id = reader.nextLong();
+                    if (graph.seenRelationship(id))
+                    {
+                        skipRemaining(reader);
+                        return;
+                    }
+                    Relationship known = identityMap == null ? null : identityMap.getRelationship(id);
+                    if (known != null)
+                    {
+                        skipRemaining(reader);
+                        graph.add(known);
+                        return;
+                    }
+                    break;
+                case "type":
+                    type = reader.nextSymbol();
+                    break;
+                case "startNode":
+                    startNode = reader.nextLong();
+                    break;
+                case "endNode":
+                    endNode = reader.nextLong();
+                    break;
+                case "properties":
+                    if (id == null)
+                    {
+                        rawProperties = reader.nextNull() ? null : reader.nextRawValue();
+                    }
+                    else
+                    {
+                        properties = readProperties(reader, graph.isLazy());
+                    }
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        if (id == null)
+        {
+            throw reader.syntaxError("Relationship without an id");
+        }
+        if (rawProperties != null)
+        {
+            properties = decodeProperties(rawProperties, graph.isLazy());
+        }
+        Relationship relationship = new Relationship(id,
+                                                     type,
+                                                     startNode,
+                                                     endNode,
+                                                     properties == null ? propertyDecoder.empty() : properties);
+        graph.add(identityMap == null ? relationship : identityMap.putRelationship(relationship));
+    }
+
+    private Map<String, Object> readProperties(JsonStreamReader reader, boolean lazy) throws IOException
+    {
+        return lazy ? propertyDecoder.readLazily(reader) : propertyDecoder.read(reader);
+    }
+
+    /**
+     * Decodes properties that came before the entity's id and so were kept as JSON text until it was known that the
+     * entity had not been seen already.
+     */
+    private Map<String, Object> decodeProperties(char[] json, boolean lazy)
+    {
+        return lazy ? new LazyProperties(propertyDecoder, json) : propertyDecoder.decode(json);
+    }
+
+    private Object readRowValue(JsonStreamReader reader, boolean lazy) throws IOException
+    {
+        return lazy && reader.peek() == '{' ? propertyDecoder.readLazily(reader) : reader.nextValue();
+    }
+
+    private String readExpires(JsonStreamReader reader) throws IOException
+    {
+        String expires = null;
+
+        reader.beginObject();
+        while (reader.hasNext())
+        {
+            if (reader.nextName().equals("expires"))
+            {
+                expires = reader.nextString();
+            }
+            else
+            {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        return expires;
+    }
+
+    private Neo4jServerException[] readErrors(JsonStreamReader reader) throws IOException
+    {
+        List<Neo4jServerException> errors = new ArrayList<>();
+
+        reader.beginArray();
+        while (reader.hasNext())
+        {
+            String code = "";
+            String message = "";
+
+            reader.beginObject();
+            while (reader.hasNext())
+            {
+                switch (reader.nextName())
+                {
+                    case "code":
+                        code = reader.nextString();
+                        break;
+                    case "message":
+                        message = reader.nextString();
+                        break;
+                    default:
+                        reader.skipValue();
+                }
+            }
+            reader.endObject();
+
+            errors.add(new Neo4jServerException(code, message));
+        }
+        reader.endArray();
+
+        return errors.toArray(new Neo4jServerException[errors.size()]);
+    }
+
+    private String[] readStrings(JsonStreamReader reader) throws IOException
+    {
+        if (reader.nextNull())
+        {
+            return NO_STRINGS;
+        }
+
+        List<String> strings = new ArrayList<>();
+        reader.beginArray();
+        while (reader.hasNext())
+        {
+            strings.add(reader.nextSymbol());
+        }
+        reader.endArray();
+
+        return strings.isEmpty() ? NO_STRINGS : strings.toArray(new String[strings.size()]);
+    }
+
+    private void skipRemaining(JsonStreamReader reader) throws IOException
+    {
+        while (reader.hasNext())
+        {
+            reader.nextName();
+            reader.skipValue();
+        }
+        reader.endObject();
+    }
+
+    /**
+     * Collects the Nodes and Relationships of a graph result into a Graph, or hands them to the statement's
+     * GraphVisitor as they are read.
+     */
+    private static class GraphBuilder
+    {
+        private final GraphVisitor visitor;
+
+        private final Map<Long, Node> nodes;
+
+        private final Map<Long, Relationship> relationships;
+
+        private final LongHashSet nodeIds;
+
+        private final LongHashSet relationshipIds;
+
+        private final boolean lazy;
+
+        GraphBuilder(Statement statement)
+        {
+            GraphVisitor visitor = statement instanceof GraphStatement ?
+                                   ((GraphStatement) statement).getGraphVisitor() :
+                                   null;
+            boolean deduplicate = visitor == null || ((GraphStatement) statement).isDeduplicate();
+
+            this.visitor = visitor;
+            this.nodes = visitor == null ? new HashMap<>() : null;
+            this.relationships = visitor == null ? new HashMap<>() : null;
+            this.nodeIds = visitor != null && deduplicate ? new LongHashSet() : null;
+            this.relationshipIds = visitor != null && deduplicate ? new LongHashSet() : null;
+            this.lazy = statement.isLazyProperties();
+        }
+
+        boolean isLazy()
+        {
+            return lazy;
+        }
+
+        boolean seenNode(long id)
+        {
+            if (visitor == null)
+            {
+                return nodes.containsKey(id);
+            }
+            return nodeIds != null && !nodeIds.add(id);
+        }
+
+        boolean seenRelationship(long id)
+        {
+            if (visitor == null)
+            {
+                return relationships.containsKey(id);
+            }
+            return relationshipIds != null && !relationshipIds.add(id);
+        }
+
+        void add(Node node)
+        {
+            if (visitor == null)
+            {
+                nodes.put(node.getId(), node);
+            }
+            else
+            {
+                visitor.onNode(node);
+            }
+        }
+
+        void add(Relationship relationship)
+        {
+            if (visitor == null)
+            {
+                relationships.put(relationship.getId(), relationship);
+            }
+            else
+            {
+                visitor.onRelationship(relationship);
+            }
+        }
+
+        Graph build()
+        {
+            if (visitor == null)
+            {
+                return new Graph(new HashSet<>(nodes.values()), new HashSet<>(relationships.values()));
+            }
+            return new Graph(new HashSet<>(), new HashSet<>());
+        }
+    }
+}
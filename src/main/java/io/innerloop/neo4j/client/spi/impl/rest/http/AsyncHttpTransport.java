@@ -0,0 +1,596 @@
+package io.innerloop.neo4j.client.spi.impl.rest.http;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.net.StandardSocketOptions;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousChannelGroup;
+import java.nio.channels.AsynchronousSocketChannel;
+import java.nio.channels.CompletionHandler;
+import java.nio.channels.InterruptedByTimeoutException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends requests over non-blocking NIO.2 socket channels so that no thread is parked while a request is in flight.
+ * <p>
+ * Connections are kept alive and reused per route, honouring the limits and timeouts of the {@link HttpConnectionPool}
+ * the transport was created from. The transport keeps its own connections though, not the pool's: a route may have up
+ * to <code>maxConnectionsPerRoute</code> of each, so a client using both APIs can hold twice that many sockets to one
+ * host. When a route is at capacity further requests are queued and sent as soon as a connection is handed back, rather
+ * than blocking the caller. Each response is framed as it arrives and, once complete, handed to its
+ * {@link ResponseHandler} on one of the transport's I/O threads.
+ * <p>
+ * NIO.2 channels have no TLS, so https requests are sent with the blocking {@link Request} API instead, on a separate
+ * pool of up to <code>maxConnectionsPerRoute</code> threads. They still don't block the caller, but each one holds a
+ * thread while it is in flight, and they share the {@link HttpConnectionPool}'s connections and limits.
+ * <p>
+ * A request that fails on a reused connection before any of its response arrives is retried under the same rules as
+ * the blocking API: always if it could not be written, and otherwise only if it is retryable and did not time out.
+ */
+class AsyncHttpTransport
+{
+    private static final Logger LOG = LoggerFactory.getLogger(AsyncHttpTransport.class);
+
+    private final HttpConnectionPool settings;
+
+    private final ExecutorService ioThreads;
+
+    private final ThreadPoolExecutor blockingThreads;
+
+    private final ScheduledExecutorService connectTimeouts;
+
+    private final AsynchronousChannelGroup group;
+
+    private final ConcurrentMap<String, Route> routes;
+
+    private volatile boolean closed;
+
+    AsyncHttpTransport(HttpConnectionPool settings, int threads) throws IOException
+    {
+        AtomicInteger count = new AtomicInteger();
+        this.settings = settings;
+        this.routes = new ConcurrentHashMap<>();
+        this.ioThreads = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "neo4j-client-io-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.group = AsynchronousChannelGroup.withThreadPool(ioThreads);
+        // https requests block on a pooled connection, so there is no point in more threads than connections.
+        int size = settings.getMaxConnectionsPerRoute();
+        AtomicInteger blockingCount = new AtomicInteger();
+        ThreadFactory httpsThreads = r -> {
+            Thread thread = new Thread(r, "neo4j-client-https-" + blockingCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        this.blockingThreads =
+                new ThreadPoolExecutor(size, size, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), httpsThreads);
+        this.blockingThreads.allowCoreThreadTimeOut(true);
+        // NIO.2 has no connect timeout, so a connection attempt that takes too long is closed from this thread.
+        this.connectTimeouts = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "neo4j-client-connect-timeout");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Sends the given request without blocking.
+     *
+     * @param request
+     *         The request, carrying the url and headers.
+     * @param method
+     *         The HTTP method.
+     * @param payload
+     *         The request body, or null if there is none. It is encoded up front so it can be sent with a
+     *         Content-Length.
+     * @param handler
+     *         Decodes the response body once it has been received.
+     * @param <T>
+     *         The type the response is decoded into.
+     *
+     * @return A future completed with the decoded response, or exceptionally with the IOException or RuntimeException
+     * that prevented it.
+     */
+    <T> CompletableFuture<T> execute(Request request, String method, RequestBody payload, ResponseHandler<T> handler)
+    {
+        CompletableFuture<T> future = new CompletableFuture<>();
+
+        if (request.isSecure())
+        {
+            executeBlocking(request, method, payload, handler, future);
+            return future;
+        }
+
+        try
+        {
+            URL url = request.prepareUrl();
+
+            ByteBuffer[] message;
+            if (payload == null)
+            {
+                message = new ByteBuffer[]{ByteBuffer.wrap(request.encodeHead(method, null))};
+            }
+            else
+            {
+                ByteArrayOutputStream body = new ByteArrayOutputStream(4096);
+                payload.writeTo(body);
+                byte[] bytes = body.toByteArray();
+                message = new ByteBuffer[]{ByteBuffer.wrap(request.encodeHead(method, Request.fixedLength(bytes))),
+                                           ByteBuffer.wrap(bytes)};
+            }
+
+            dispatch(new Exchange<>(url, method, message, handler, future, request.isRetryable(method)));
+        }
+        catch (IOException | RuntimeException e)
+        {
+            future.completeExceptionally(e);
+        }
+
+        return future;
+    }
+
+    private <T> void executeBlocking(Request request,
+                                     String method,
+                                     RequestBody payload,
+                                     ResponseHandler<T> handler,
+                                     CompletableFuture<T> future)
+    {
+        if (closed)
+        {
+            future.completeExceptionally(new IOException("Connection pool is closed."));
+            return;
+        }
+
+        try
+        {
+            blockingThreads.execute(() -> {
+                try
+                {
+                    future.complete(request.execute(method, payload, handler));
+                }
+                catch (IOException | RuntimeException e)
+                {
+                    future.completeExceptionally(e);
+                }
+            });
+        }
+        catch (RejectedExecutionException e)
+        {
+            // closed since the check above.
+            future.completeExceptionally(new IOException("Connection pool is closed."));
+        }
+    }
+
+    /**
+     * Closes all idle connections and fails any queued requests. Requests already in flight, and https requests
+     * already handed to a thread, are allowed to finish.
+     */
+    void close()
+    {
+        closed = true;
+        for (Route route : routes.values())
+        {
+            Deque<Exchange<?>> waiting;
+            synchronized (route)
+            {
+                for (Channel channel : route.idle)
+                {
+                    channel.close();
+                    route.open--;
+                }
+                route.idle.clear();
+                waiting = new ArrayDeque<>(route.waiting);
+                route.waiting.clear();
+            }
+            for (Exchange<?> exchange : waiting)
+            {
+                exchange.future.completeExceptionally(new IOException("Connection pool is closed."));
+            }
+        }
+        group.shutdown();
+        blockingThreads.shutdown();
+        connectTimeouts.shutdownNow();
+    }
+
+    private void dispatch(Exchange<?> exchange)
+    {
+        Route route = routes.computeIfAbsent(routeKey(exchange.url), k -> new Route(exchange.url));
+        Channel channel = null;
+
+        synchronized (route)
+        {
+            if (closed)
+            {
+                exchange.future.completeExceptionally(new IOException("Connection pool is closed."));
+                return;
+            }
+
+            long now = System.currentTimeMillis();
+            Channel idle;
+            while ((idle = route.idle.pollFirst()) != null)
+            {
+                if (isReusable(idle, now))
+                {
+                    channel = idle;
+                    break;
+                }
+                idle.close();
+                route.open--;
+            }
+
+            if (channel == null)
+            {
+                if (route.open >= settings.getMaxConnectionsPerRoute())
+                {
+                    route.waiting.addLast(exchange);
+                    return;
+                }
+                route.open++;
+            }
+        }
+
+        if (channel != null)
+        {
+            channel.reused = true;
+            send(route, channel, exchange);
+        }
+        else
+        {
+            connect(route, exchange);
+        }
+    }
+
+    private void connect(Route route, Exchange<?> exchange)
+    {
+        AsynchronousSocketChannel socket;
+        try
+        {
+            socket = AsynchronousSocketChannel.open(group);
+            socket.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            socket.setOption(StandardSocketOptions.SO_KEEPALIVE, true);
+        }
+        catch (IOException | RuntimeException e)
+        {
+            release(route, null, false);
+            exchange.future.completeExceptionally(e);
+            return;
+        }
+
+        int connectTimeoutMillis = settings.getConnectTimeoutMillis();
+        ScheduledFuture<?> timeout = connectTimeoutMillis > 0 ?
+                                     connectTimeouts.schedule(() -> closeQuietly(socket),
+                                                              connectTimeoutMillis,
+                                                              TimeUnit.MILLISECONDS) :
+                                     null;
+
+        socket.connect(route.address, null, new CompletionHandler<Void, Void>()
+        {
+            @Override
+            public void completed(Void result, Void attachment)
+            {
+                if (timeout != null && !timeout.cancel(false))
+                {
+                    failed(new SocketTimeoutException("connect timed out"), null);
+                    return;
+                }
+                send(route, new Channel(socket), exchange);
+            }
+
+            @Override
+            public void failed(Throwable e, Void attachment)
+            {
+                if (timeout != null && !timeout.cancel(false) && !(e instanceof SocketTimeoutException))
+                {
+                    e = new SocketTimeoutException("connect timed out");
+                }
+                closeQuietly(socket);
+                release(route, null, false);
+                exchange.future.completeExceptionally(e);
+            }
+        });
+    }
+
+    private void send(Route route, Channel channel, Exchange<?> exchange)
+    {
+        ByteBuffer[] message = exchange.message();
+
+        channel.socket.write(message, 0, message.length, 0, TimeUnit.MILLISECONDS, null,
+                             new CompletionHandler<Long, Void>()
+                             {
+                                 @Override
+                                 public void completed(Long written, Void attachment)
+                                 {
+                                     if (message[message.length - 1].hasRemaining())
+                                     {
+                                         channel.socket.write(message, 0, message.length, 0,
+                                                              TimeUnit.MILLISECONDS, null, this);
+                                         return;
+                                     }
+                                     receive(route, channel, exchange, new ResponseParser(exchange.method));
+                                 }
+
+                                 @Override
+                                 public void failed(Throwable e, Void attachment)
+                                 {
+                                     fail(route, channel, exchange, e, false, false);
+                                 }
+                             });
+    }
+
+    private void receive(Route route, Channel channel, Exchange<?> exchange, ResponseParser parser)
+    {
+        ByteBuffer buffer = ByteBuffer.allocate(16384);
+
+        channel.socket.read(buffer, settings.getReadTimeoutMillis(), TimeUnit.MILLISECONDS, null,
+                            new CompletionHandler<Integer, Void>()
+                            {
+                                @Override
+                                public void completed(Integer read, Void attachment)
+                                {
+                                    try
+                                    {
+                                        if (read == -1)
+                                        {
+                                            parser.endOfStream();
+                                        }
+                                        else
+                                        {
+                                            buffer.flip();
+                                            parser.feed(buffer);
+                                            buffer.clear();
+                                        }
+                                    }
+                                    catch (IOException | RuntimeException e)
+                                    {
+                                        fail(route, channel, exchange, e, true, parser.hasStarted());
+                                        return;
+                                    }
+
+                                    if (parser.isComplete())
+                                    {
+                                        complete(route, channel, exchange, parser, read != -1);
+                                    }
+                                    else
+                                    {
+                                        channel.socket.read(buffer, settings.getReadTimeoutMillis(),
+                                                            TimeUnit.MILLISECONDS, null, this);
+                                    }
+                                }
+
+                                @Override
+                                public void failed(Throwable e, Void attachment)
+                                {
+                                    fail(route, channel, exchange, e, true, parser.hasStarted());
+                                }
+                            });
+    }
+
+    private <T> void complete(Route route, Channel channel, Exchange<T> exchange, ResponseParser parser, boolean open)
+    {
+        // hand the connection on before decoding so the next request can be sent while this one is decoded.
+        release(route, channel, open && parser.isKeepAlive());
+
+        try
+        {
+            exchange.future.complete(exchange.handler.handle(parser.getResponse(), parser.getBody()));
+        }
+        catch (IOException | RuntimeException e)
+        {
+            exchange.future.completeExceptionally(e);
+        }
+    }
+
+    private void fail(Route route,
+                      Channel channel,
+                      Exchange<?> exchange,
+                      Throwable e,
+                      boolean written,
+                      boolean responseStarted)
+    {
+        release(route, channel, false);
+
+        boolean safe = !written || (exchange.retryable && !(e instanceof InterruptedByTimeoutException));
+        if (channel.reused && !responseStarted && !exchange.retried && !closed && safe)
+        {
+            LOG.debug("Pooled connection to [{}] was stale, retrying on a new connection.", exchange.url);
+            exchange.retried = true;
+            dispatch(exchange);
+            return;
+        }
+
+        exchange.future.completeExceptionally(e);
+    }
+
+    /**
+     * Hands a connection back to its route, passing it straight on to the next queued request if there is one.
+     *
+     * @param route
+     *         The route the connection belongs to.
+     * @param channel
+     *         The connection, or null if a connection attempt failed.
+     * @param reusable
+     *         Whether the connection can carry another request.
+     */
+    private void release(Route route, Channel channel, boolean reusable)
+    {
+        Exchange<?> next;
+        boolean connect = false;
+
+        synchronized (route)
+        {
+            if (channel != null && !(reusable && !closed && isReusable(channel, System.currentTimeMillis())))
+            {
+                channel.close();
+                channel = null;
+            }
+            if (channel == null)
+            {
+                route.open--;
+            }
+            else
+            {
+                channel.lastUsedAt = System.currentTimeMillis();
+            }
+
+            next = route.waiting.pollFirst();
+            if (next == null)
+            {
+                if (channel != null)
+                {
+                    route.idle.offerFirst(channel);
+                }
+                return;
+            }
+
+            if (channel == null)
+            {
+                if (route.open >= settings.getMaxConnectionsPerRoute())
+                {
+                    route.waiting.addFirst(next);
+                    return;
+                }
+                route.open++;
+                connect = true;
+            }
+        }
+
+        if (connect)
+        {
+            connect(route, next);
+        }
+        else
+        {
+            channel.reused = true;
+            send(route, channel, next);
+        }
+    }
+
+    private boolean isReusable(Channel channel, long now)
+    {
+        return channel.socket.isOpen() && now - channel.lastUsedAt < settings.getIdleTimeoutMillis() &&
+               now - channel.createdAt < settings.getMaxLifetimeMillis();
+    }
+
+    private static String routeKey(URL url)
+    {
+        return url.getHost().toLowerCase() + ":" + HttpConnectionPool.port(url);
+    }
+
+    private static void closeQuietly(AsynchronousSocketChannel socket)
+    {
+        try
+        {
+            socket.close();
+        }
+        catch (IOException e)
+        {
+            LOG.debug("Error closing connection", e);
+        }
+    }
+
+    private static class Route
+    {
+        private final InetSocketAddress address;
+
+        private final Deque<Channel> idle = new ArrayDeque<>();
+
+        private final Deque<Exchange<?>> waiting = new ArrayDeque<>();
+
+        private int open;
+
+        private Route(URL url)
+        {
+            this.address = new InetSocketAddress(url.getHost(), HttpConnectionPool.port(url));
+        }
+    }
+
+    private static class Channel
+    {
+        private final AsynchronousSocketChannel socket;
+
+        private final long createdAt;
+
+        private volatile long lastUsedAt;
+
+        private volatile boolean reused;
+
+        private Channel(AsynchronousSocketChannel socket)
+        {
+            this.socket = socket;
+            this.createdAt = System.currentTimeMillis();
+            this.lastUsedAt = createdAt;
+        }
+
+        private void close()
+        {
+            closeQuietly(socket);
+        }
+    }
+
+    private static class Exchange<T>
+    {
+        private final URL url;
+
+        private final String method;
+
+        private final ByteBuffer[] message;
+
+        private final ResponseHandler<T> handler;
+
+        private final CompletableFuture<T> future;
+
+        private final boolean retryable;
+
+        private volatile boolean retried;
+
+        private Exchange(URL url,
+                         String method,
+                         ByteBuffer[] message,
+                         ResponseHandler<T> handler,
+                         CompletableFuture<T> future,
+                         boolean retryable)
+        {
+            this.url = url;
+            this.method = method;
+            this.message = message;
+            this.handler = handler;
+            this.future = future;
+            this.retryable = retryable;
+        }
+
+        /**
+         * @return Fresh views over the encoded request so it can be written again on retry.
+         */
+        private ByteBuffer[] message()
+        {
+            ByteBuffer[] buffers = new ByteBuffer[message.length];
+            for (int i = 0; i < message.length; i++)
+            {
+                buffers[i] = message[i].duplicate();
+            }
+            return buffers;
+        }
+    }
+}
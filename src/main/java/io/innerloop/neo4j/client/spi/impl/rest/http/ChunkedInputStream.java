@@ -0,0 +1,130 @@
+package io.innerloop.neo4j.client.spi.impl.rest.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Decodes an HTTP/1.1 chunked message body. Closing this stream drains any unread chunks but leaves the underlying
+ * connection open so that it can be returned to the pool.
+ */
+class ChunkedInputStream extends InputStream
+{
+    private final InputStream in;
+
+    private long remaining;
+
+    private boolean started;
+
+    private boolean eof;
+
+    private boolean closed;
+
+    ChunkedInputStream(InputStream in)
+    {
+        this.in = in;
+        this.remaining = 0;
+    }
+
+    @Override
+    public int read() throws IOException
+    {
+        if (!prepareChunk())
+        {
+            return -1;
+        }
+        int b = in.read();
+        if (b == -1)
+        {
+            throw new IOException("Premature end of chunked response body.");
+        }
+        remaining--;
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException
+    {
+        if (len == 0)
+        {
+            return 0;
+        }
+        if (!prepareChunk())
+        {
+            return -1;
+        }
+        int read = in.read(b, off, (int) Math.min(len, remaining));
+        if (read == -1)
+        {
+            throw new IOException("Premature end of chunked response body.");
+        }
+        remaining -= read;
+        return read;
+    }
+
+    @Override
+    public int available() throws IOException
+    {
+        return eof ? 0 : (int) Math.min(in.available(), remaining);
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        if (!closed)
+        {
+            closed = true;
+            byte[] skip = new byte[4096];
+            while (read(skip, 0, skip.length) != -1)
+            {
+                // drain so the connection can be reused.
+            }
+        }
+    }
+
+    private boolean prepareChunk() throws IOException
+    {
+        if (eof)
+        {
+            return false;
+        }
+        if (remaining > 0)
+        {
+            return true;
+        }
+        if (started)
+        {
+            // consume the CRLF that terminates the previous chunk's data.
+            HttpIO.readLine(in);
+        }
+        started = true;
+
+        String line = HttpIO.readLine(in);
+        if (line == null)
+        {
+            throw new IOException("Premature end of chunked response body.");
+        }
+        int extension = line.indexOf(';');
+        String size = (extension >= 0 ? line.substring(0, extension) : line).trim();
+        try
+        {
+            remaining = Long.parseLong(size, 16);
+        }
+        catch (NumberFormatException e)
+        {
+            throw new IOException("Invalid chunk size: " + line);
+        }
+
+        if (remaining == 0)
+        {
+            // skip trailers up to the terminating empty line.
+            String trailer;
+            while ((trailer = HttpIO.readLine(in)) != null && !trailer.isEmpty())
+            {
+                // trailers are not used by Neo4J.
+            }
+            eof = true;
+            return false;
+        }
+        return true;
+    }
+}
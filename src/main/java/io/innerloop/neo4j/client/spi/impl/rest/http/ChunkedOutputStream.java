@@ -0,0 +1,96 @@
+package io.innerloop.neo4j.client.spi.impl.rest.http;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Encodes an HTTP/1.1 chunked message body. Writes are buffered into chunks of up to 8KB. Finishing this stream writes
+ * the terminating chunk but leaves the underlying connection open so that it can be returned to the pool.
+ */
+class ChunkedOutputStream extends OutputStream
+{
+    private static final byte[] CRLF = {'\r', '\n'};
+
+    private final OutputStream out;
+
+    private final byte[] buffer;
+
+    private int count;
+
+    private boolean finished;
+
+    ChunkedOutputStream(OutputStream out)
+    {
+        this.out = out;
+        this.buffer = new byte[8192];
+    }
+
+    @Override
+    public void write(int b) throws IOException
+    {
+        if (count == buffer.length)
+        {
+            writeChunk();
+        }
+        buffer[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException
+    {
+        while (len > 0)
+        {
+            if (count == buffer.length)
+            {
+                writeChunk();
+            }
+            int n = Math.min(len, buffer.length - count);
+            System.arraycopy(b, off, buffer, count, n);
+            count += n;
+            off += n;
+            len -= n;
+        }
+    }
+
+    @Override
+    public void flush() throws IOException
+    {
+        writeChunk();
+        out.flush();
+    }
+
+    /**
+     * Writes any buffered bytes followed by the terminating zero length chunk.
+     */
+    void finish() throws IOException
+    {
+        if (!finished)
+        {
+            finished = true;
+            writeChunk();
+            out.write('0');
+            out.write(CRLF);
+            out.write(CRLF);
+            out.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        finish();
+    }
+
+    private void writeChunk() throws IOException
+    {
+        if (count > 0)
+        {
+            out.write(Integer.toHexString(count).getBytes(StandardCharsets.ISO_8859_1));
+            out.write(CRLF);
+            out.write(buffer, 0, count);
+            out.write(CRLF);
+            count = 0;
+        }
+    }
+}
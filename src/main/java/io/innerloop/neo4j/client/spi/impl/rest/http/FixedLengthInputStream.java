@@ -0,0 +1,79 @@
+package io.innerloop.neo4j.client.spi.impl.rest.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Limits reads to a message body of a known Content-Length. Closing this stream drains any unread bytes but leaves the
+ * underlying connection open so that it can be returned to the pool.
+ */
+class FixedLengthInputStream extends InputStream
+{
+    private final InputStream in;
+
+    private long remaining;
+
+    private boolean closed;
+
+    FixedLengthInputStream(InputStream in, long length)
+    {
+        this.in = in;
+        this.remaining = length;
+    }
+
+    @Override
+    public int read() throws IOException
+    {
+        if (remaining <= 0)
+        {
+            return -1;
+        }
+        int b = in.read();
+        if (b == -1)
+        {
+            throw new IOException("Premature end of response body, expected " + remaining + " more bytes.");
+        }
+        remaining--;
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException
+    {
+        if (remaining <= 0)
+        {
+            return -1;
+        }
+        if (len == 0)
+        {
+            return 0;
+        }
+        int read = in.read(b, off, (int) Math.min(len, remaining));
+        if (read == -1)
+        {
+            throw new IOException("Premature end of response body, expected " + remaining + " more bytes.");
+        }
+        remaining -= read;
+        return read;
+    }
+
+    @Override
+    public int available() throws IOException
+    {
+        return (int) Math.min(in.available(), remaining);
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        if (!closed)
+        {
+            closed = true;
+            byte[] skip = new byte[4096];
+            while (read(skip, 0, skip.length) != -1)
+            {
+                // drain so the connection can be reused.
+            }
+        }
+    }
+}
@@ -5,6 +5,7 @@ import io.innerloop.neo4j.client.spi.impl.rest.json.JSONObject;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Created by markangrish on 28/03/2015.
@@ -13,9 +14,24 @@ public class HttpClient
 {
     private final Map<String, String> headers;
 
+    private final HttpConnectionPool connectionPool;
+
+    private AsyncHttpTransport asyncTransport;
+
     public HttpClient()
+    {
+        this(new HttpConnectionPool());
+    }
+
+    public HttpClient(HttpConnectionPool connectionPool)
     {
         this.headers = new HashMap<>();
+        this.connectionPool = connectionPool;
+    }
+
+    public HttpConnectionPool getConnectionPool()
+    {
+        return connectionPool;
     }
 
     public void addHeader(String name, String value)
@@ -25,28 +41,103 @@ public class HttpClient
 
     public String post(String endpoint, JSONObject payload) throws IOException
     {
-        Request request = new Request(endpoint);
-        for (Map.Entry<String, String> entry : headers.entrySet())
-        {
-            request.addHeader(entry.getKey(), entry.getValue());
-        }
-
-        Response httpResponse = request.addHeader("Content-Type", "application/json")
+        Response httpResponse = newRequest(endpoint).addHeader("Content-Type", "application/json")
                                         .setBody(payload.toString())
                                         .postResource();
         return httpResponse.getBody();
     }
 
+    public <T> T post(String endpoint, RequestBody payload, ResponseHandler<T> handler) throws IOException
+    {
+        return post(endpoint, payload, handler, false);
+    }
+
+    /**
+     * As {@link #post(String, RequestBody, ResponseHandler)}, but the request may be sent a second time if the pooled
+     * connection it went out on turns out to be stale. Only pass true if running the request twice is harmless.
+     */
+    public <T> T post(String endpoint, RequestBody payload, ResponseHandler<T> handler, boolean retryable)
+            throws IOException
+    {
+        return newRequest(endpoint).addHeader("Content-Type", "application/json; charset=UTF-8")
+                       .setRetryable(retryable)
+                       .postResource(payload, handler);
+    }
+
     public String delete(String endpoint) throws IOException
     {
-        Request request = new Request(endpoint);
+        Response httpResponse = newRequest(endpoint).deleteResource();
+
+        return httpResponse.getBody();
+    }
+
+    public <T> T delete(String endpoint, ResponseHandler<T> handler) throws IOException
+    {
+        return newRequest(endpoint).deleteResource(handler);
+    }
+
+    public <T> CompletableFuture<T> postAsync(String endpoint, RequestBody payload, ResponseHandler<T> handler)
+    {
+        return postAsync(endpoint, payload, handler, false);
+    }
+
+    /**
+     * As {@link #postAsync(String, RequestBody, ResponseHandler)}, but the request may be sent a second time if the
+     * connection it went out on turns out to be stale. Only pass true if running the request twice is harmless.
+     */
+    public <T> CompletableFuture<T> postAsync(String endpoint,
+                                              RequestBody payload,
+                                              ResponseHandler<T> handler,
+                                              boolean retryable)
+    {
+        return executeAsync(endpoint, "POST", payload, handler, retryable);
+    }
+
+    public <T> CompletableFuture<T> deleteAsync(String endpoint, ResponseHandler<T> handler)
+    {
+        return executeAsync(endpoint, "DELETE", null, handler, false);
+    }
+
+    private <T> CompletableFuture<T> executeAsync(String endpoint,
+                                                  String method,
+                                                  RequestBody payload,
+                                                  ResponseHandler<T> handler,
+                                                  boolean retryable)
+    {
+        try
+        {
+            Request request = newRequest(endpoint).setRetryable(retryable);
+            if (payload != null)
+            {
+                request.addHeader("Content-Type", "application/json; charset=UTF-8");
+            }
+            return asyncTransport().execute(request, method, payload, handler);
+        }
+        catch (IOException e)
+        {
+            CompletableFuture<T> future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+            return future;
+        }
+    }
+
+    private synchronized AsyncHttpTransport asyncTransport() throws IOException
+    {
+        if (asyncTransport == null)
+        {
+            asyncTransport = new AsyncHttpTransport(connectionPool, 2);
+        }
+        return asyncTransport;
+    }
+
+    private Request newRequest(String endpoint) throws IOException
+    {
+        Request request = new Request(endpoint, connectionPool);
         for (Map.Entry<String, String> entry : headers.entrySet())
         {
             request.addHeader(entry.getKey(), entry.getValue());
         }
-        Response httpResponse = request.deleteResource();
-
-        return httpResponse.getBody();
+        return request;
     }
 
     public void authenticate(String username, String password)
@@ -55,4 +146,16 @@ public class HttpClient
         String encoding = new sun.misc.BASE64Encoder().encode(userPassword.getBytes());
         addHeader("Authorization", "Basic " + encoding);
     }
+
+    public void close()
+    {
+        synchronized (this)
+        {
+            if (asyncTransport != null)
+            {
+                asyncTransport.close();
+            }
+        }
+        connectionPool.close();
+    }
 }
@@ -0,0 +1,420 @@
+package io.innerloop.neo4j.client.spi.impl.rest.http;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.net.ssl.SSLSocketFactory;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URL;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded pool of persistent HTTP/1.1 connections, keyed by scheme, host and port.
+ * <p>
+ * Each route may have at most <code>maxConnectionsPerRoute</code> connections leased or idle at any one time. Callers
+ * that cannot obtain a connection within the checkout timeout receive an IOException rather than opening yet another
+ * socket. Idle connections are reused most recently used first so that the oldest ones are the first to be evicted once
+ * they exceed the idle timeout or their maximum lifetime.
+ * <p>
+ * There is no background eviction thread. Expired idle connections are closed whenever a connection to the same route
+ * is checked out or released, so a route that sees no traffic at all keeps its idle sockets open until
+ * {@link #evictExpired()} is called.
+ * <p>
+ * This class is thread safe. Settings may be changed at any time and apply to subsequent checkouts.
+ */
+public class HttpConnectionPool
+{
+    private static final Logger LOG = LoggerFactory.getLogger(HttpConnectionPool.class);
+
+    private final ConcurrentMap<String, Route> routes;
+
+    private final AtomicLong created = new AtomicLong();
+
+    private final AtomicLong reused = new AtomicLong();
+
+    private final AtomicLong evicted = new AtomicLong();
+
+    private final AtomicLong timeouts = new AtomicLong();
+
+    private volatile int maxConnectionsPerRoute;
+
+    private volatile long idleTimeoutMillis;
+
+    private volatile long maxLifetimeMillis;
+
+    private volatile long checkoutTimeoutMillis;
+
+    private volatile int connectTimeoutMillis;
+
+    private volatile int readTimeoutMillis;
+
+    private volatile boolean closed;
+
+    /**
+     * Creates a new pool with 20 connections per route, a 30 second idle timeout, a 5 minute maximum lifetime and a 10
+     * second checkout timeout.
+     */
+    public HttpConnectionPool()
+    {
+        this.routes = new ConcurrentHashMap<>();
+        this.maxConnectionsPerRoute = 20;
+        this.idleTimeoutMillis = TimeUnit.SECONDS.toMillis(30);
+        this.maxLifetimeMillis = TimeUnit.MINUTES.toMillis(5);
+        this.checkoutTimeoutMillis = TimeUnit.SECONDS.toMillis(10);
+        this.connectTimeoutMillis = (int) TimeUnit.SECONDS.toMillis(10);
+        this.readTimeoutMillis = 0;
+    }
+
+    /**
+     * Sets the maximum number of connections, leased or idle, held open to a single host. Only applies to routes that
+     * have not yet been used. Asynchronous http requests keep their own connections within the same limit, so a
+     * client that sends both can hold up to twice this many.
+     *
+     * @param maxConnectionsPerRoute
+     *         The maximum number of connections per route.
+     *
+     * @return this pool, to support chained method calls
+     */
+    public HttpConnectionPool setMaxConnectionsPerRoute(int maxConnectionsPerRoute)
+    {
+        if (maxConnectionsPerRoute < 1)
+        {
+            throw new IllegalArgumentException("maxConnectionsPerRoute must be at least 1");
+        }
+        this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+        return this;
+    }
+
+    /**
+     * Sets how long a connection may sit idle in the pool before it is closed.
+     *
+     * @param timeout
+     *         The idle timeout.
+     * @param unit
+     *         The unit of the timeout.
+     *
+     * @return this pool, to support chained method calls
+     */
+    public HttpConnectionPool setIdleTimeout(long timeout, TimeUnit unit)
+    {
+        this.idleTimeoutMillis = unit.toMillis(timeout);
+        return this;
+    }
+
+    /**
+     * Sets how long a connection may live, in total, before it is closed rather than returned to the pool.
+     *
+     * @param lifetime
+     *         The maximum lifetime.
+     * @param unit
+     *         The unit of the lifetime.
+     *
+     * @return this pool, to support chained method calls
+     */
+    public HttpConnectionPool setMaxLifetime(long lifetime, TimeUnit unit)
+    {
+        this.maxLifetimeMillis = unit.toMillis(lifetime);
+        return this;
+    }
+
+    /**
+     * Sets how long a caller will wait for a connection to become available when the route is at capacity.
+     *
+     * @param timeout
+     *         The checkout timeout.
+     * @param unit
+     *         The unit of the timeout.
+     *
+     * @return this pool, to support chained method calls
+     */
+    public HttpConnectionPool setCheckoutTimeout(long timeout, TimeUnit unit)
+    {
+        this.checkoutTimeoutMillis = unit.toMillis(timeout);
+        return this;
+    }
+
+    /**
+     * Sets the socket connect timeout used when opening new connections.
+     *
+     * @param timeout
+     *         The connect timeout.
+     * @param unit
+     *         The unit of the timeout.
+     *
+     * @return this pool, to support chained method calls
+     */
+    public HttpConnectionPool setConnectTimeout(long timeout, TimeUnit unit)
+    {
+        this.connectTimeoutMillis = (int) unit.toMillis(timeout);
+        return this;
+    }
+
+    /**
+     * Sets the socket read timeout used on new connections. Zero, the default, waits forever.
+     *
+     * @param timeout
+     *         The read timeout.
+     * @param unit
+     *         The unit of the timeout.
+     *
+     * @return this pool, to support chained method calls
+     */
+    public HttpConnectionPool setReadTimeout(long timeout, TimeUnit unit)
+    {
+        this.readTimeoutMillis = (int) unit.toMillis(timeout);
+        return this;
+    }
+
+    int getMaxConnectionsPerRoute()
+    {
+        return maxConnectionsPerRoute;
+    }
+
+    long getIdleTimeoutMillis()
+    {
+        return idleTimeoutMillis;
+    }
+
+    long getMaxLifetimeMillis()
+    {
+        return maxLifetimeMillis;
+    }
+
+    int getConnectTimeoutMillis()
+    {
+        return connectTimeoutMillis;
+    }
+
+    int getReadTimeoutMillis()
+    {
+        return readTimeoutMillis;
+    }
+
+    /**
+     * Leases a connection to the host of the given URL, reusing an idle one if possible.
+     *
+     * @param url
+     *         The url that will be requested.
+     *
+     * @return A connection that must be handed back via {@link #release(PooledConnection, boolean)}.
+     *
+     * @throws IOException
+     *         If the pool is closed, no connection became available in time or a new socket could not be opened.
+     */
+    PooledConnection checkout(URL url) throws IOException
+    {
+        if (closed)
+        {
+            throw new IOException("Connection pool has been closed.");
+        }
+
+        String key = routeKey(url);
+        Route route = routes.computeIfAbsent(key, k -> new Route(maxConnectionsPerRoute));
+
+        try
+        {
+            if (!route.permits.tryAcquire(checkoutTimeoutMillis, TimeUnit.MILLISECONDS))
+            {
+                timeouts.incrementAndGet();
+                throw new IOException("Timed out after " + checkoutTimeoutMillis + "ms waiting for a connection to " +
+                                      key);
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted waiting for a connection to " + key, e);
+        }
+
+        try
+        {
+            long now = System.currentTimeMillis();
+            purge(route, now);
+
+            PooledConnection connection;
+            while ((connection = route.idle.pollFirst()) != null)
+            {
+                if (isReusable(connection, now))
+                {
+                    reused.incrementAndGet();
+                    return connection;
+                }
+                evict(connection);
+            }
+
+            connection = open(key, url);
+            created.incrementAndGet();
+            LOG.debug("Opened new connection to [{}]", key);
+            return connection;
+        }
+        catch (IOException | RuntimeException e)
+        {
+            route.permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns a leased connection to the pool.
+     *
+     * @param connection
+     *         The connection to return.
+     * @param reusable
+     *         true, if the response was fully consumed and the server did not ask for the connection to be closed.
+     */
+    void release(PooledConnection connection, boolean reusable)
+    {
+        Route route = routes.get(connection.getRoute());
+        connection.touch();
+
+        if (reusable && !closed && isReusable(connection, connection.getLastUsedAt()))
+        {
+            connection.markReused();
+            route.idle.offerFirst(connection);
+            purge(route, connection.getLastUsedAt());
+        }
+        else
+        {
+            connection.close();
+        }
+
+        route.permits.release();
+    }
+
+    /**
+     * Closes any idle connections that have exceeded the idle timeout or their maximum lifetime.
+     */
+    public void evictExpired()
+    {
+        long now = System.currentTimeMillis();
+        for (Route route : routes.values())
+        {
+            Iterator<PooledConnection> it = route.idle.iterator();
+            while (it.hasNext())
+            {
+                PooledConnection connection = it.next();
+                if (!isReusable(connection, now) && route.idle.removeFirstOccurrence(connection))
+                {
+                    evict(connection);
+                }
+            }
+        }
+    }
+
+    /**
+     * Retrieves a snapshot of this pool's usage.
+     *
+     * @return The current pool statistics.
+     */
+    public PoolStats getStats()
+    {
+        int leased = 0;
+        int idle = 0;
+        for (Route route : routes.values())
+        {
+            idle += route.idle.size();
+            leased += route.maxConnections - route.permits.availablePermits();
+        }
+        return new PoolStats(leased, idle, created.get(), reused.get(), evicted.get(), timeouts.get());
+    }
+
+    /**
+     * Closes all idle connections and stops any further checkouts. Leased connections are closed as they are
+     * released.
+     */
+    public void close()
+    {
+        this.closed = true;
+        for (Route route : routes.values())
+        {
+            PooledConnection connection;
+            while ((connection = route.idle.pollFirst()) != null)
+            {
+                connection.close();
+            }
+        }
+    }
+
+    private void purge(Route route, long now)
+    {
+        PooledConnection oldest;
+        while ((oldest = route.idle.peekLast()) != null && !isReusable(oldest, now))
+        {
+            if (route.idle.removeLastOccurrence(oldest))
+            {
+                evict(oldest);
+            }
+        }
+    }
+
+    private void evict(PooledConnection connection)
+    {
+        evicted.incrementAndGet();
+        connection.close();
+    }
+
+    private boolean isReusable(PooledConnection connection, long now)
+    {
+        return connection.isOpen() && now - connection.getLastUsedAt() < idleTimeoutMillis &&
+               now - connection.getCreatedAt() < maxLifetimeMillis;
+    }
+
+    private PooledConnection open(String key, URL url) throws IOException
+    {
+        Socket socket = new Socket();
+        try
+        {
+            socket.setTcpNoDelay(true);
+            socket.setKeepAlive(true);
+            socket.setSoTimeout(readTimeoutMillis);
+            socket.connect(new InetSocketAddress(url.getHost(), port(url)), connectTimeoutMillis);
+
+            if ("https".equalsIgnoreCase(url.getProtocol()))
+            {
+                SSLSocketFactory factory = (SSLSocketFactory) SSLSocketFactory.getDefault();
+                socket = factory.createSocket(socket, url.getHost(), port(url), true);
+            }
+
+            return new PooledConnection(key, socket);
+        }
+        catch (IOException e)
+        {
+            socket.close();
+            throw e;
+        }
+    }
+
+    static int port(URL url)
+    {
+        return url.getPort() == -1 ? url.getDefaultPort() : url.getPort();
+    }
+
+    private static String routeKey(URL url)
+    {
+        return url.getProtocol().toLowerCase() + "://" + url.getHost().toLowerCase() + ":" + port(url);
+    }
+
+    private static class Route
+    {
+        private final int maxConnections;
+
+        private final Semaphore permits;
+
+        private final ConcurrentLinkedDeque<PooledConnection> idle;
+
+        Route(int maxConnections)
+        {
+            this.maxConnections = maxConnections;
+            this.permits = new Semaphore(maxConnections, true);
+            this.idle = new ConcurrentLinkedDeque<>();
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package io.innerloop.neo4j.client.spi.impl.rest.http;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Low level helpers for reading the HTTP/1.1 wire format.
+ */
+final class HttpIO
+{
+    private HttpIO()
+    {
+    }
+
+    /**
+     * Reads a single CRLF (or LF) terminated line in ISO-8859-1, as used by HTTP status lines, headers and chunk sizes.
+     *
+     * @param in
+     *         The stream to read from.
+     *
+     * @return The line without its terminator, or null if the stream ended before any byte was read.
+     *
+     * @throws IOException
+     *         If the stream could not be read.
+     */
+    static String readLine(InputStream in) throws IOException
+    {
+        ByteArrayOutputStream line = new ByteArrayOutputStream(64);
+        int b;
+        boolean read = false;
+        while ((b = in.read()) != -1)
+        {
+            read = true;
+            if (b == '\n')
+            {
+                break;
+            }
+            line.write(b);
+        }
+
+        if (!read)
+        {
+            return null;
+        }
+
+        byte[] bytes = line.toByteArray();
+        int length = bytes.length;
+        if (length > 0 && bytes[length - 1] == '\r')
+        {
+            length--;
+        }
+        return new String(bytes, 0, length, StandardCharsets.ISO_8859_1);
+    }
+}
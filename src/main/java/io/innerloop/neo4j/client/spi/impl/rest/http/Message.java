@@ -86,6 +86,16 @@ abstract class Message<T extends Message<T>>
         return (T) this;
     }
 
+    /**
+     * Returns all of the headers on this Message.
+     *
+     * @return A Map of headers, where the header name is a String, and the value is a List of one or more values.
+     */
+    public Map<String, List<String>> getHeaders()
+    {
+        return this.headers;
+    }
+
     /**
      * Sets all of the headers in one call.
      *
@@ -0,0 +1,84 @@
+package io.innerloop.neo4j.client.spi.impl.rest.http;
+
+/**
+ * A point in time snapshot of a {@link HttpConnectionPool}'s usage.
+ */
+public class PoolStats
+{
+    private final int leased;
+
+    private final int idle;
+
+    private final long created;
+
+    private final long reused;
+
+    private final long evicted;
+
+    private final long timeouts;
+
+    PoolStats(int leased, int idle, long created, long reused, long evicted, long timeouts)
+    {
+        this.leased = leased;
+        this.idle = idle;
+        this.created = created;
+        this.reused = reused;
+        this.evicted = evicted;
+        this.timeouts = timeouts;
+    }
+
+    /**
+     * @return The number of connections currently handed out to requests.
+     */
+    public int getLeased()
+    {
+        return leased;
+    }
+
+    /**
+     * @return The number of open connections waiting in the pool.
+     */
+    public int getIdle()
+    {
+        return idle;
+    }
+
+    /**
+     * @return The total number of sockets opened by the pool.
+     */
+    public long getCreated()
+    {
+        return created;
+    }
+
+    /**
+     * @return The total number of checkouts served by an already open connection.
+     */
+    public long getReused()
+    {
+        return reused;
+    }
+
+    /**
+     * @return The total number of idle connections closed because they expired or went stale.
+     */
+    public long getEvicted()
+    {
+        return evicted;
+    }
+
+    /**
+     * @return The total number of checkouts that gave up waiting for a free connection.
+     */
+    public long getTimeouts()
+    {
+        return timeouts;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "PoolStats{leased=" + leased + ", idle=" + idle + ", created=" + created + ", reused=" + reused +
+               ", evicted=" + evicted + ", timeouts=" + timeouts + "}";
+    }
+}
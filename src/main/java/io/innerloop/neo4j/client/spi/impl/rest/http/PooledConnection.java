@@ -0,0 +1,101 @@
+package io.innerloop.neo4j.client.spi.impl.rest.http;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+
+/**
+ * A persistent HTTP/1.1 socket that is leased from, and returned to, a {@link HttpConnectionPool}.
+ */
+class PooledConnection
+{
+    private final String route;
+
+    private final Socket socket;
+
+    private final InputStream in;
+
+    private final OutputStream out;
+
+    private final long createdAt;
+
+    private volatile long lastUsedAt;
+
+    private boolean reused;
+
+    PooledConnection(String route, Socket socket) throws IOException
+    {
+        this.route = route;
+        this.socket = socket;
+        this.in = new BufferedInputStream(socket.getInputStream(), 8192);
+        this.out = new BufferedOutputStream(socket.getOutputStream(), 8192);
+        this.createdAt = System.currentTimeMillis();
+        this.lastUsedAt = createdAt;
+    }
+
+    String getRoute()
+    {
+        return route;
+    }
+
+    InputStream getInputStream()
+    {
+        return in;
+    }
+
+    OutputStream getOutputStream()
+    {
+        return out;
+    }
+
+    long getCreatedAt()
+    {
+        return createdAt;
+    }
+
+    long getLastUsedAt()
+    {
+        return lastUsedAt;
+    }
+
+    void touch()
+    {
+        this.lastUsedAt = System.currentTimeMillis();
+    }
+
+    /**
+     * Determines if this connection has already served a request. A failure on a reused connection before any response
+     * is read usually means the server closed it while it was idle, so the request may be retried if that is safe.
+     *
+     * @return true, if this connection has been returned to the pool at least once.
+     */
+    boolean isReused()
+    {
+        return reused;
+    }
+
+    void markReused()
+    {
+        this.reused = true;
+    }
+
+    boolean isOpen()
+    {
+        return !socket.isClosed() && !socket.isInputShutdown() && !socket.isOutputShutdown();
+    }
+
+    void close()
+    {
+        try
+        {
+            socket.close();
+        }
+        catch (IOException e)
+        {
+            // nothing more we can do with this socket.
+        }
+    }
+}
@@ -1,30 +1,40 @@
 package io.innerloop.neo4j.client.spi.impl.rest.http;
 
-import java.io.BufferedReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.OutputStreamWriter;
-import java.net.HttpURLConnection;
+import java.io.OutputStream;
 import java.net.MalformedURLException;
+import java.net.SocketTimeoutException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 
 /**
  * This class represents an HTTP Request message.
+ * <p>
+ * Requests are sent as HTTP/1.1 over a persistent connection leased from a {@link HttpConnectionPool}. The connection is
+ * handed back to the pool once the response has been fully read.
  */
 public class Request extends Message<Request>
 {
-    private HttpURLConnection connection;
+    private static final Logger LOG = LoggerFactory.getLogger(Request.class);
 
-    private OutputStreamWriter writer;
+    private final HttpConnectionPool pool;
 
     private URL url;
 
     private Map<String, String> query = new HashMap<>();
 
+    private boolean retryable;
+
     /**
      * The Constructor takes the url as a String.
      *
@@ -32,14 +42,15 @@ public class Request extends Message<Request>
      *         The url parameter does not need the query string parameters if they are going to be supplied via calls to
      *         {@link #addQueryParameter(String, String)}.  You can, however, supply the query parameters in the URL if
      *         you wish.
+     * @param pool
+     *         The pool to lease a connection from when this Request is issued.
      *
      * @throws IOException
      */
-    public Request(String url) throws IOException
+    public Request(String url, HttpConnectionPool pool) throws IOException
     {
         this.url = new URL(url);
-
-        connection = (HttpURLConnection) this.url.openConnection();
+        this.pool = pool;
     }
 
     /**
@@ -73,6 +84,22 @@ public class Request extends Message<Request>
         return this;
     }
 
+    /**
+     * Marks this Request as safe to send a second time, as a GET, PUT or DELETE always is. Only such requests are
+     * retried when a reused connection is closed by the server after the request was written but before any response
+     * arrived, because the server may have acted on the request before closing.
+     *
+     * @param retryable
+     *         true, if sending this Request twice has the same effect as sending it once.
+     *
+     * @return this Request, to support chained method calls
+     */
+    public Request setRetryable(boolean retryable)
+    {
+        this.retryable = retryable;
+        return this;
+    }
+
     /**
      * Sets the URL that this Request will be sent to.
      *
@@ -99,15 +126,9 @@ public class Request extends Message<Request>
         return actionResponse("GET");
     }
 
-    private Response actionResponse(String get) throws IOException
+    private Response actionResponse(String method) throws IOException
     {
-        buildQueryString();
-        buildHeaders();
-
-        connection.setDoOutput(true);
-        connection.setRequestMethod(get);
-
-        return readResponse();
+        return execute(method, null, this::bufferBody);
     }
 
     /**
@@ -146,6 +167,61 @@ public class Request extends Message<Request>
         return actionResponse("DELETE");
     }
 
+    /**
+     * Issues a POST to the server, handing the response body to the given handler as it streams in.
+     *
+     * @param handler
+     *         The handler that decodes the response.
+     * @param <T>
+     *         The type the response is decoded into.
+     *
+     * @return The decoded response.
+     *
+     * @throws IOException
+     */
+    public <T> T postResource(ResponseHandler<T> handler) throws IOException
+    {
+        return execute("POST", encode(this.body), handler);
+    }
+
+    /**
+     * Issues a POST to the server, streaming the given body to the connection with chunked transfer encoding (unless
+     * its length is known) and handing the response body to the given handler as it streams in. The String body of
+     * this Request, if any, is ignored.
+     *
+     * @param body
+     *         Writes the request body.
+     * @param handler
+     *         The handler that decodes the response.
+     * @param <T>
+     *         The type the response is decoded into.
+     *
+     * @return The decoded response.
+     *
+     * @throws IOException
+     */
+    public <T> T postResource(RequestBody body, ResponseHandler<T> handler) throws IOException
+    {
+        return execute("POST", body, handler);
+    }
+
+    /**
+     * Issues a DELETE to the server, handing the response body to the given handler as it streams in.
+     *
+     * @param handler
+     *         The handler that decodes the response.
+     * @param <T>
+     *         The type the response is decoded into.
+     *
+     * @return The decoded response.
+     *
+     * @throws IOException
+     */
+    public <T> T deleteResource(ResponseHandler<T> handler) throws IOException
+    {
+        return execute("DELETE", null, handler);
+    }
+
     /**
      * A private method that handles issuing POST and PUT requests
      *
@@ -159,51 +235,377 @@ public class Request extends Message<Request>
      * @throws IOException
      */
     private Response writeResource(String method, String body) throws IOException
+    {
+        return execute(method, encode(body), this::bufferBody);
+    }
+
+    private static RequestBody encode(String body)
+    {
+        return fixedLength(body == null ? new byte[0] : body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static RequestBody fixedLength(final byte[] bytes)
+    {
+        return new RequestBody()
+        {
+            @Override
+            public void writeTo(OutputStream out) throws IOException
+            {
+                out.write(bytes);
+            }
+
+            @Override
+            public long getContentLength()
+            {
+                return bytes.length;
+            }
+        };
+    }
+
+    /**
+     * Sends this Request on a pooled connection and reads the response. If a reused connection
+     * turns out to have been closed by the server while it sat idle the request is retried once on a fresh connection,
+     * as long as that cannot run it twice: see {@link #isSafeToRetry(String, boolean, IOException)}.
+     *
+     * @param method
+     *         The HTTP method.
+     * @param payload
+     *         Writes the body, or null if this Request has no body.
+     * @param handler
+     *         Decodes the response body straight from the connection.
+     *
+     * @return the decoded response
+     *
+     * @throws IOException
+     */
+    <T> T execute(String method, RequestBody payload, ResponseHandler<T> handler) throws IOException
     {
         buildQueryString();
-        buildHeaders();
 
-        connection.setDoOutput(true);
-        connection.setRequestMethod(method);
+        for (int attempt = 0; ; attempt++)
+        {
+            PooledConnection connection = pool.checkout(url);
+            boolean reusable = false;
+            boolean written = false;
+            boolean responseStarted = false;
+
+            try
+            {
+                writeRequest(connection.getOutputStream(), method, payload);
+                written = true;
+
+                if (!awaitResponse(connection.getInputStream()))
+                {
+                    throw new IOException("Connection closed by server before a response was received.");
+                }
+                responseStarted = true;
+
+                String statusLine = HttpIO.readLine(connection.getInputStream());
+
+                Response response = readResponse(connection.getInputStream(), statusLine);
+                boolean keepAlive = isKeepAlive(statusLine, response.getHeaders());
+
+                InputStream body = openBody(connection.getInputStream(), method, response);
+                if (body == null)
+                {
+                    keepAlive = false;
+                    body = connection.getInputStream();
+                }
+
+                T result = handler.handle(response, body);
+
+                if (keepAlive)
+                {
+                    // drain anything the handler left unread so the connection can be reused.
+                    body.close();
+                    reusable = true;
+                }
+
+                return result;
+            }
+            catch (IOException e)
+            {
+                if (connection.isReused() && !responseStarted && attempt == 0 && isSafeToRetry(method, written, e))
+                {
+                    LOG.debug("Pooled connection to [{}] was stale, retrying on a new connection.", url);
+                    continue;
+                }
+                throw e;
+            }
+            finally
+            {
+                pool.release(connection, reusable);
+            }
+        }
+    }
+
+    /**
+     * Decides if a request that failed on a stale connection, before any of the response arrived, may be sent again.
+     * <p>
+     * If writing the request failed the server cannot have received all of it. Once it has been written the server may
+     * have run it before closing the connection, so only a retryable request may be sent again, and never after a read
+     * timeout, which means the server is most likely still working on it.
+     */
+    private boolean isSafeToRetry(String method, boolean written, IOException e)
+    {
+        if (!written)
+        {
+            return true;
+        }
+        if (e instanceof SocketTimeoutException)
+        {
+            return false;
+        }
+        return isRetryable(method);
+    }
+
+    /**
+     * @return true, if this Request may be sent twice, because it is idempotent or was marked retryable.
+     */
+    boolean isRetryable(String method)
+    {
+        return retryable || "GET".equals(method) || "PUT".equals(method) || "DELETE".equals(method);
+    }
+
+    /**
+     * Waits for the first byte of the response without consuming it.
+     *
+     * @return false, if the server closed the connection without sending anything.
+     */
+    private static boolean awaitResponse(InputStream in) throws IOException
+    {
+        in.mark(1);
+        if (in.read() == -1)
+        {
+            return false;
+        }
+        in.reset();
+        return true;
+    }
+
+    private void writeRequest(OutputStream out, String method, RequestBody payload) throws IOException
+    {
+        out.write(encodeHead(method, payload));
+
+        long contentLength = payload == null ? -1 : payload.getContentLength();
+        if (contentLength >= 0)
+        {
+            payload.writeTo(out);
+        }
+        else if (payload != null)
+        {
+            ChunkedOutputStream chunked = new ChunkedOutputStream(out);
+            payload.writeTo(chunked);
+            chunked.finish();
+        }
+        out.flush();
+    }
+
+    /**
+     * Encodes the request line and headers for this Request.
+     *
+     * @param method
+     *         The HTTP method.
+     * @param payload
+     *         The body that will follow, or null if there is none.
+     *
+     * @return the request head, terminated by an empty line.
+     */
+    byte[] encodeHead(String method, RequestBody payload)
+    {
+        StringBuilder head = new StringBuilder(256);
+        String path = url.getFile();
+
+        head.append(method).append(' ').append(path.isEmpty() ? "/" : path).append(" HTTP/1.1\r\n");
+        head.append("Host: ").append(url.getHost());
+        if (url.getPort() != -1)
+        {
+            head.append(':').append(url.getPort());
+        }
+        head.append("\r\n");
+
+        if (!headers.containsKey("Accept"))
+        {
+            head.append("Accept: application/json; charset=UTF-8\r\n");
+        }
+        buildHeaders(head);
 
-        writer = new OutputStreamWriter(connection.getOutputStream());
-        writer.write(body);
-        writer.flush();
-        writer.close();
+        long contentLength = payload == null ? -1 : payload.getContentLength();
+        if (contentLength >= 0)
+        {
+            head.append("Content-Length: ").append(contentLength).append("\r\n");
+        }
+        else if (payload != null)
+        {
+            head.append("Transfer-Encoding: chunked\r\n");
+        }
+        head.append("\r\n");
 
-        return readResponse();
+        return head.toString().getBytes(StandardCharsets.ISO_8859_1);
     }
 
     /**
      * A private method that handles reading the Responses from the server.
      *
-     * @return a {@link Response} from the server.
+     * @param in
+     *         The connection's input stream, positioned after the status line.
+     * @param statusLine
+     *         The status line already read from the connection.
+     *
+     * @return a {@link Response} from the server, without a body.
      *
      * @throws IOException
      */
-    private Response readResponse() throws IOException
+    static Response readResponse(InputStream in, String statusLine) throws IOException
     {
-        connection.getResponseCode();
-        InputStream stream = connection.getErrorStream();
-        if (stream == null) {
-            stream = connection.getInputStream();
+        Map<String, List<String>> responseHeaders = readHeaders(in);
+
+        // skip any interim 1xx responses.
+        while (statusCode(statusLine) / 100 == 1)
+        {
+            statusLine = HttpIO.readLine(in);
+            if (statusLine == null)
+            {
+                throw new IOException("Connection closed by server before a response was received.");
+            }
+            responseHeaders = readHeaders(in);
         }
 
-        BufferedReader reader = new BufferedReader(new InputStreamReader(stream));
+        int code = statusCode(statusLine);
+        int messageStart = statusLine.indexOf(' ', statusLine.indexOf(' ') + 1);
 
-        StringBuilder builder = new StringBuilder();
+        return new Response().setResponseCode(code)
+                       .setResponseMessage(messageStart == -1 ? "" : statusLine.substring(messageStart + 1))
+                       .setHeaders(responseHeaders);
+    }
+
+    private static Map<String, List<String>> readHeaders(InputStream in) throws IOException
+    {
+        Map<String, List<String>> responseHeaders = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
         String line;
 
-        while ((line = reader.readLine()) != null)
+        while ((line = HttpIO.readLine(in)) != null && !line.isEmpty())
+        {
+            int colon = line.indexOf(':');
+            if (colon <= 0)
+            {
+                continue;
+            }
+            String name = line.substring(0, colon).trim();
+            String value = line.substring(colon + 1).trim();
+            responseHeaders.computeIfAbsent(name, k -> new ArrayList<>()).add(value);
+        }
+
+        return responseHeaders;
+    }
+
+    /**
+     * Opens a stream over the response body that ends where the body ends.
+     *
+     * @return the body stream, or null if the body is delimited by the server closing the connection.
+     */
+    static InputStream openBody(InputStream in, String method, Response response) throws IOException
+    {
+        int code = response.getResponseCode();
+        if ("HEAD".equals(method) || code == 204 || code == 304)
+        {
+            return new FixedLengthInputStream(in, 0);
+        }
+
+        String transferEncoding = firstHeader(response.getHeaders(), "Transfer-Encoding");
+        if (transferEncoding != null && transferEncoding.toLowerCase().contains("chunked"))
+        {
+            return new ChunkedInputStream(in);
+        }
+
+        String contentLength = firstHeader(response.getHeaders(), "Content-Length");
+        if (contentLength != null)
+        {
+            try
+            {
+                return new FixedLengthInputStream(in, Long.parseLong(contentLength));
+            }
+            catch (NumberFormatException e)
+            {
+                throw new IOException("Invalid Content-Length: " + contentLength);
+            }
+        }
+
+        return null;
+    }
+
+    private Response bufferBody(Response response, InputStream body) throws IOException
+    {
+        return response.setBody(readBody(body));
+    }
+
+    private String readBody(InputStream body) throws IOException
+    {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(4096);
+        byte[] bytes = new byte[4096];
+        int read;
+
+        while ((read = body.read(bytes)) != -1)
+        {
+            buffer.write(bytes, 0, read);
+        }
+
+        return new String(buffer.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    static boolean isKeepAlive(String statusLine, Map<String, List<String>> responseHeaders)
+    {
+        String connectionHeader = firstHeader(responseHeaders, "Connection");
+        if (statusLine.startsWith("HTTP/1.0"))
+        {
+            return "keep-alive".equalsIgnoreCase(connectionHeader);
+        }
+        return !"close".equalsIgnoreCase(connectionHeader);
+    }
+
+    static String firstHeader(Map<String, List<String>> responseHeaders, String name)
+    {
+        List<String> values = responseHeaders.get(name);
+        return values == null || values.isEmpty() ? null : values.get(0);
+    }
+
+    static int statusCode(String statusLine) throws IOException
+    {
+        int start = statusLine.indexOf(' ');
+        if (!statusLine.startsWith("HTTP/") || start == -1)
+        {
+            throw new IOException("Invalid HTTP status line: " + statusLine);
+        }
+        int end = statusLine.indexOf(' ', start + 1);
+        try
+        {
+            return Integer.parseInt(statusLine.substring(start + 1, end == -1 ? statusLine.length() : end));
+        }
+        catch (NumberFormatException e)
         {
-            builder.append(line);
+            throw new IOException("Invalid HTTP status line: " + statusLine);
         }
-        reader.close();
+    }
 
-        return new Response().setResponseCode(connection.getResponseCode())
-                       .setResponseMessage(connection.getResponseMessage())
-                       .setHeaders(connection.getHeaderFields())
-                       .setBody(builder.toString());
+    /**
+     * @return true, if this Request goes to an https url.
+     */
+    boolean isSecure()
+    {
+        return "https".equalsIgnoreCase(url.getProtocol());
+    }
+
+    /**
+     * Appends any query parameters to the url and returns it, ready for this Request to be sent.
+     *
+     * @return the url this Request will be sent to.
+     *
+     * @throws MalformedURLException
+     */
+    URL prepareUrl() throws MalformedURLException
+    {
+        buildQueryString();
+        return url;
     }
 
     /**
@@ -238,9 +640,9 @@ public class Request extends Message<Request>
     }
 
     /**
-     * A private method that loops through the headers Map, putting them on the Request or Response object.
+     * A private method that loops through the headers Map, writing them out as request header lines.
      */
-    private void buildHeaders()
+    private void buildHeaders(StringBuilder head)
     {
         if (!headers.isEmpty())
         {
@@ -250,7 +652,7 @@ public class Request extends Message<Request>
 
                 for (String value : values)
                 {
-                    connection.addRequestProperty(entry.getKey(), value);
+                    head.append(entry.getKey()).append(": ").append(value).append("\r\n");
                 }
             }
         }
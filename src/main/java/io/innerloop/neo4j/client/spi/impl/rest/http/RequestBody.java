@@ -0,0 +1,37 @@
+package io.innerloop.neo4j.client.spi.impl.rest.http;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes a request body directly to the connection it is sent on, so that large payloads never have to be built in
+ * memory as a whole.
+ * <p>
+ * Implementations must be able to write the same body more than once, as a request may be retried on a fresh
+ * connection if a pooled one turns out to be stale.
+ */
+@FunctionalInterface
+public interface RequestBody
+{
+    /**
+     * Writes this body.
+     *
+     * @param out
+     *         The stream to write to. Implementations should flush, but not close, this stream.
+     *
+     * @throws IOException
+     *         If the body could not be written.
+     */
+    void writeTo(OutputStream out) throws IOException;
+
+    /**
+     * Retrieves the length of this body in bytes, if known up front.
+     *
+     * @return The number of bytes that will be written, or -1 if the body should be sent with chunked transfer
+     * encoding.
+     */
+    default long getContentLength()
+    {
+        return -1;
+    }
+}
@@ -0,0 +1,31 @@
+package io.innerloop.neo4j.client.spi.impl.rest.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Consumes a response body directly from the connection it arrives on, so that large responses can be decoded as they
+ * stream in rather than being buffered in memory first.
+ *
+ * @param <T>
+ *         The type this handler decodes the response into.
+ */
+@FunctionalInterface
+public interface ResponseHandler<T>
+{
+    /**
+     * Decodes a response. The body stream ends where the response body ends and must not be used after this method
+     * returns. Any part of the body left unread is discarded.
+     *
+     * @param response
+     *         The response status and headers. The body of this Response is not set.
+     * @param body
+     *         The response body as sent by the server.
+     *
+     * @return The decoded response.
+     *
+     * @throws IOException
+     *         If the body could not be read.
+     */
+    T handle(Response response, InputStream body) throws IOException;
+}
@@ -0,0 +1,282 @@
+package io.innerloop.neo4j.client.spi.impl.rest.http;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Incrementally frames an HTTP/1.1 response from bytes as they arrive on a non-blocking channel.
+ * <p>
+ * The status line and headers are parsed as soon as they are complete. The body is accumulated until its
+ * Content-Length has been received, the terminating chunk has arrived or the server closes the connection, at which
+ * point it can be handed to a {@link ResponseHandler} as a stream, exactly as the blocking transport would.
+ */
+class ResponseParser
+{
+    private final String method;
+
+    private byte[] data;
+
+    private int length;
+
+    private int headEnd;
+
+    private Response response;
+
+    private boolean keepAlive;
+
+    private boolean chunked;
+
+    private boolean untilClose;
+
+    private long contentLength;
+
+    private int chunkCursor;
+
+    private boolean complete;
+
+    ResponseParser(String method)
+    {
+        this.method = method;
+        this.data = new byte[16384];
+        this.headEnd = -1;
+    }
+
+    /**
+     * Determines if any part of a response has been received.
+     *
+     * @return true, if at least one byte has arrived.
+     */
+    boolean hasStarted()
+    {
+        return length > 0 || response != null;
+    }
+
+    boolean isComplete()
+    {
+        return complete;
+    }
+
+    boolean isKeepAlive()
+    {
+        return keepAlive;
+    }
+
+    Response getResponse()
+    {
+        return response;
+    }
+
+    void feed(ByteBuffer buffer) throws IOException
+    {
+        int count = buffer.remaining();
+        ensureCapacity(length + count);
+        buffer.get(data, length, count);
+        int searchFrom = Math.max(0, length - 3);
+        length += count;
+
+        while (headEnd < 0)
+        {
+            int end = indexOfHeadEnd(searchFrom);
+            if (end < 0)
+            {
+                return;
+            }
+            parseHead(end);
+            searchFrom = 0;
+        }
+
+        checkComplete();
+    }
+
+    /**
+     * Signals that the server closed the connection.
+     *
+     * @throws IOException
+     *         If the response was not yet complete and cannot be delimited by the close.
+     */
+    void endOfStream() throws IOException
+    {
+        if (untilClose && headEnd >= 0)
+        {
+            complete = true;
+            return;
+        }
+        if (!complete)
+        {
+            throw new IOException("Connection closed by server before the response was complete.");
+        }
+    }
+
+    InputStream getBody()
+    {
+        if (chunked)
+        {
+            return new ChunkedInputStream(new ByteArrayInputStream(data, headEnd, length - headEnd));
+        }
+        if (untilClose)
+        {
+            return new ByteArrayInputStream(data, headEnd, length - headEnd);
+        }
+        return new ByteArrayInputStream(data, headEnd, (int) contentLength);
+    }
+
+    private void parseHead(int end) throws IOException
+    {
+        InputStream in = new ByteArrayInputStream(data, 0, end);
+        String statusLine = HttpIO.readLine(in);
+
+        if (Request.statusCode(statusLine) / 100 == 1)
+        {
+            // discard interim responses and wait for the real one.
+            System.arraycopy(data, end, data, 0, length - end);
+            length -= end;
+            return;
+        }
+
+        Response parsed = Request.readResponse(in, statusLine);
+
+        this.response = parsed;
+        this.headEnd = end;
+        this.chunkCursor = end;
+        this.keepAlive = Request.isKeepAlive(statusLine, parsed.getHeaders());
+
+        int code = parsed.getResponseCode();
+        String transferEncoding = Request.firstHeader(parsed.getHeaders(), "Transfer-Encoding");
+        String length = Request.firstHeader(parsed.getHeaders(), "Content-Length");
+
+        if ("HEAD".equals(method) || code == 204 || code == 304)
+        {
+            contentLength = 0;
+        }
+        else if (transferEncoding != null && transferEncoding.toLowerCase().contains("chunked"))
+        {
+            chunked = true;
+        }
+        else if (length != null)
+        {
+            try
+            {
+                contentLength = Long.parseLong(length);
+            }
+            catch (NumberFormatException e)
+            {
+                throw new IOException("Invalid Content-Length: " + length);
+            }
+        }
+        else
+        {
+            untilClose = true;
+            keepAlive = false;
+        }
+    }
+
+    private void checkComplete() throws IOException
+    {
+        if (untilClose || complete)
+        {
+            return;
+        }
+
+        if (!chunked)
+        {
+            complete = length - headEnd >= contentLength;
+            return;
+        }
+
+        int pos = chunkCursor;
+        for (; ; )
+        {
+            int lineEnd = indexOf('\n', pos);
+            if (lineEnd < 0)
+            {
+                return;
+            }
+
+            long size = chunkSize(pos, lineEnd);
+            if (size == 0)
+            {
+                // the last chunk, wait for the (usually empty) trailers to end with a blank line.
+                int line = lineEnd + 1;
+                for (; ; )
+                {
+                    int end = indexOf('\n', line);
+                    if (end < 0)
+                    {
+                        return;
+                    }
+                    if (end == line || (end == line + 1 && data[line] == '\r'))
+                    {
+                        complete = true;
+                        return;
+                    }
+                    line = end + 1;
+                }
+            }
+
+            long next = lineEnd + 1 + size + 2;
+            if (next > length)
+            {
+                return;
+            }
+            pos = (int) next;
+            chunkCursor = pos;
+        }
+    }
+
+    private long chunkSize(int start, int lineEnd) throws IOException
+    {
+        int end = lineEnd;
+        if (end > start && data[end - 1] == '\r')
+        {
+            end--;
+        }
+        String line = new String(data, start, end - start, StandardCharsets.ISO_8859_1);
+        int extension = line.indexOf(';');
+        String size = (extension >= 0 ? line.substring(0, extension) : line).trim();
+        try
+        {
+            return Long.parseLong(size, 16);
+        }
+        catch (NumberFormatException e)
+        {
+            throw new IOException("Invalid chunk size: " + line);
+        }
+    }
+
+    private int indexOfHeadEnd(int from)
+    {
+        for (int i = from; i + 3 < length; i++)
+        {
+            if (data[i] == '\r' && data[i + 1] == '\n' && data[i + 2] == '\r' && data[i + 3] == '\n')
+            {
+                return i + 4;
+            }
+        }
+        return -1;
+    }
+
+    private int indexOf(char c, int from)
+    {
+        for (int i = from; i < length; i++)
+        {
+            if (data[i] == c)
+            {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void ensureCapacity(int capacity)
+    {
+        if (capacity > data.length)
+        {
+            byte[] grown = new byte[Math.max(capacity, data.length * 2)];
+            System.arraycopy(data, 0, grown, 0, length);
+            data = grown;
+        }
+    }
+}
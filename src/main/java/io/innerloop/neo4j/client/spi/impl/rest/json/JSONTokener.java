@@ -7,6 +7,7 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
 
 /*
 Copyright (c) 2002 JSON.org
@@ -76,14 +77,15 @@ public class JSONTokener
 
 
     /**
-     * Construct a JSONTokener from an InputStream.
+     * Construct a JSONTokener from a UTF-8 encoded InputStream. Characters are decoded as they are consumed so the
+     * source never needs to be held in memory as a whole.
      *
      * @param inputStream
      *         The source.
      */
     public JSONTokener(InputStream inputStream) throws io.innerloop.neo4j.client.spi.impl.rest.json.JSONException
     {
-        this(new InputStreamReader(inputStream));
+        this(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
     }
 
 
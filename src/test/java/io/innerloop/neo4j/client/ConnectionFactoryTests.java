@@ -0,0 +1,97 @@
+package io.innerloop.neo4j.client;
+
+import io.innerloop.neo4j.client.spi.ConnectionFactory;
+import org.junit.Test;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class ConnectionFactoryTests
+{
+    private final LegacyConnection connection = new LegacyConnection();
+
+    /**
+     * A factory written against the first release, implementing nothing but getConnection().
+     */
+    private final ConnectionFactory factory = () -> connection;
+
+    @Test
+    public void testFactoryWithOnlyGetConnectionStillWorks()
+    {
+        Neo4jClient client = new Neo4jClient(factory);
+        Connection bound = client.getConnection();
+        bound.setIdentityMap(true);
+        bound.setAutoFlush(1, 0);
+        bound.setPipelined(true);
+        bound.add(new RowStatement("MATCH (n) RETURN n"));
+        bound.commit();
+        bound.close();
+
+        assertEquals(1, connection.commits);
+        client.close();
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testOpenConnectionIsUnsupported()
+    {
+        factory.openConnection();
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testAsyncConnectionIsUnsupported()
+    {
+        new Neo4jClient(factory).getAsyncConnection();
+    }
+
+    private static class LegacyConnection implements Connection
+    {
+        private final List<Statement> statements = new ArrayList<>();
+
+        private int commits;
+
+        @Override
+        public void add(Statement statement)
+        {
+            statements.add(statement);
+        }
+
+        @Override
+        public List<Statement> getStatements()
+        {
+            return statements;
+        }
+
+        @Override
+        public OffsetDateTime getExpiry()
+        {
+            return null;
+        }
+
+        @Override
+        public void resetExpiry()
+        {
+        }
+
+        @Override
+        public void flush()
+        {
+            statements.clear();
+        }
+
+        @Override
+        public void commit()
+        {
+            statements.clear();
+            commits++;
+        }
+
+        @Override
+        public void rollback()
+        {
+            statements.clear();
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package io.innerloop.neo4j.client;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+public class CsrGraphTests
+{
+    /**
+     * 10 -A-> 20 -B-> 30 <-A- 40, with 50 on its own.
+     */
+    private static CsrGraph small()
+    {
+        Set<Node> nodes = new HashSet<>();
+        for (long id = 10; id <= 50; id += 10)
+        {
+            nodes.add(node(id));
+        }
+        Set<Relationship> relationships = new HashSet<>(Arrays.asList(relationship(1, "A", 10, 20),
+                                                                      relationship(2, "B", 20, 30),
+                                                                      relationship(3, "A", 40, 30),
+                                                                      relationship(4, "A", 40, 99)));
+        return new Graph(nodes, relationships).toCsr(true);
+    }
+
+    /**
+     * A star of 6000 leaves around node 0, joined by a path of 6000 more, and a separate path of 6000 nodes. Both the
+     * star's frontier and the node ranges are well above the size at which the work is split over the ForkJoinPool.
+     */
+    private static CsrGraph large()
+    {
+        Set<Node> nodes = new HashSet<>();
+        Set<Relationship> relationships = new HashSet<>();
+        long relationshipId = 0;
+        for (long id = 0; id < 18000; id++)
+        {
+            nodes.add(node(id));
+        }
+        for (long leaf = 1; leaf <= 6000; leaf++)
+        {
+            relationships.add(relationship(relationshipId++, "LEAF", 0, leaf));
+        }
+        for (long id = 6000; id < 12000; id++)
+        {
+            relationships.add(relationship(relationshipId++, "NEXT", id, id + 1));
+        }
+        for (long id = 12001; id < 18000; id++)
+        {
+            relationships.add(relationship(relationshipId++, "NEXT", id, id + 1));
+        }
+        return new Graph(nodes, relationships).toCsr();
+    }
+
+    @Test
+    public void testEdgesToNodesOutsideTheGraphAreLeftOut()
+    {
+        CsrGraph graph = small();
+
+        assertEquals(5, graph.getNodeCount());
+        assertEquals(3, graph.getEdgeCount());
+        assertEquals(-1, graph.indexOf(99));
+        assertEquals(40, graph.getNodeId(graph.indexOf(40)));
+    }
+
+    @Test
+    public void testDegrees()
+    {
+        CsrGraph graph = small();
+        int[] in = graph.inDegrees();
+        int[] out = graph.outDegrees();
+
+        assertEquals(2, in[graph.indexOf(30)]);
+        assertEquals(0, in[graph.indexOf(10)]);
+        assertEquals(1, out[graph.indexOf(40)]);
+        assertEquals(0, out[graph.indexOf(50)]);
+    }
+
+    @Test
+    public void testBfsFollowsEdgeDirection()
+    {
+        CsrGraph graph = small();
+        int[] distances = graph.bfs(graph.indexOf(10));
+
+        assertEquals(0, distances[graph.indexOf(10)]);
+        assertEquals(1, distances[graph.indexOf(20)]);
+        assertEquals(2, distances[graph.indexOf(30)]);
+        assertEquals(-1, distances[graph.indexOf(40)]);
+        assertEquals(-1, distances[graph.indexOf(50)]);
+    }
+
+    @Test
+    public void testTransposeReversesEveryEdgeAndKeepsTypes()
+    {
+        CsrGraph graph = small();
+        CsrGraph transposed = graph.transpose();
+
+        assertEquals(graph.getEdgeCount(), transposed.getEdgeCount());
+        assertArrayEquals(graph.inDegrees(), transposed.outDegrees());
+        assertArrayEquals(graph.outDegrees(), transposed.inDegrees());
+
+        int[] distances = transposed.bfs(transposed.indexOf(30));
+        assertEquals(1, distances[transposed.indexOf(40)]);
+        assertEquals(2, distances[transposed.indexOf(10)]);
+
+        int from = transposed.indexOf(20);
+        int edge = transposed.getOffsets()[from];
+        assertEquals(transposed.indexOf(10), transposed.getTargets()[edge]);
+        assertEquals("A", transposed.getTypeNames()[transposed.getTypes()[edge]]);
+    }
+
+    @Test
+    public void testUndirectedFollowsEdgesBothWays()
+    {
+        CsrGraph graph = small().undirected();
+
+        assertEquals(6, graph.getEdgeCount());
+        assertEquals(3, graph.bfs(graph.indexOf(10))[graph.indexOf(40)]);
+        assertArrayEquals(graph.inDegrees(), graph.outDegrees());
+    }
+
+    @Test
+    public void testConnectedComponentsIgnoreDirection()
+    {
+        CsrGraph graph = small();
+        int[] components = graph.connectedComponents();
+
+        int component = components[graph.indexOf(10)];
+        assertEquals(component, components[graph.indexOf(40)]);
+        assertEquals(component, components[graph.indexOf(30)]);
+        assertNotEquals(component, components[graph.indexOf(50)]);
+        assertEquals(graph.indexOf(50), components[graph.indexOf(50)]);
+    }
+
+    @Test
+    public void testLargeGraphIsSplitOverThePool()
+    {
+        CsrGraph graph = large();
+
+        int[] distances = graph.bfs(graph.indexOf(0));
+        assertEquals(1, distances[graph.indexOf(6000)]);
+        assertEquals(1, distances[graph.indexOf(1)]);
+        assertEquals(6001, distances[graph.indexOf(12000)]);
+        assertEquals(-1, distances[graph.indexOf(12001)]);
+
+        int[] in = graph.inDegrees();
+        assertEquals(graph.getEdgeCount(), Arrays.stream(in).sum());
+        assertEquals(0, in[graph.indexOf(0)]);
+        assertEquals(1, in[graph.indexOf(17999)]);
+
+        int[] components = graph.connectedComponents();
+        assertEquals(components[graph.indexOf(1)], components[graph.indexOf(12000)]);
+        assertEquals(components[graph.indexOf(12001)], components[graph.indexOf(17999)]);
+        assertNotEquals(components[graph.indexOf(0)], components[graph.indexOf(17999)]);
+        assertEquals(2, Arrays.stream(components).distinct().count());
+
+        CsrGraph transposed = graph.transpose();
+        assertArrayEquals(in, transposed.outDegrees());
+        assertEquals(6001, transposed.bfs(transposed.indexOf(12000))[transposed.indexOf(0)]);
+    }
+
+    private static Node node(long id)
+    {
+        return new Node(id, new String[] {"Node"}, Collections.emptyMap());
+    }
+
+    private static Relationship relationship(long id, String type, long start, long end)
+    {
+        return new Relationship(id, type, start, end, Collections.emptyMap());
+    }
+}
@@ -3,6 +3,9 @@ package io.innerloop.neo4j.client;
 import ch.qos.logback.classic.Level;
 import ch.qos.logback.classic.Logger;
 import ch.qos.logback.classic.LoggerContext;
+import io.innerloop.neo4j.client.spi.impl.rest.RestConnectionFactoryImpl;
+import io.innerloop.neo4j.client.spi.impl.rest.http.HttpConnectionPool;
+import io.innerloop.neo4j.client.spi.impl.rest.http.PoolStats;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.BeforeClass;
@@ -20,16 +23,23 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.net.ServerSocket;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import static junit.framework.Assert.assertEquals;
 import static junit.framework.Assert.assertNotNull;
 import static junit.framework.TestCase.fail;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -175,6 +185,33 @@ public class EndToEndTests
         assertEquals(1, relationships.size());
     }
 
+    @Test
+    public void testGraphIndexes()
+    {
+        Connection connection1 = client.getConnection();
+
+        RowStatement statement1 = new RowStatement("MERGE (n1:Graph{id:\"id1\", prop1:\"property1\"})-[:connectedTo]->(n2:Graph{id:\"id2\", prop1:\"property2\"})");
+        connection1.add(statement1);
+        connection1.commit();
+
+        Connection connection2 = client.getConnection();
+
+        GraphStatement statement = new GraphStatement("MATCH (n:Graph)-[rels]-() RETURN rels");
+        connection2.add(statement);
+        connection2.commit();
+
+        Graph result = statement.getResult();
+        Relationship relationship = result.getRelationships().iterator().next();
+
+        assertEquals(relationship, result.getRelationship(relationship.getId()));
+        assertEquals(1, result.getOutgoingRelationships(relationship.getStartNodeId()).size());
+        assertEquals(1, result.getIncomingRelationships(relationship.getEndNodeId()).size());
+        assertEquals(result.getNode(relationship.getEndNodeId()),
+                     result.getNeighbours(relationship.getStartNodeId()).get(0));
+        assertEquals(2, result.getNodesByLabel("Graph").size());
+        assertEquals(1, result.getRelationshipsByType("connectedTo").size());
+    }
+
     @Test
     public void testBasicLongTransaction()
     {
@@ -251,6 +288,168 @@ public class EndToEndTests
 
     }
 
+    @Test
+    public void testConnectionsAreReusedAcrossTransactions() throws InterruptedException
+    {
+        HttpConnectionPool pool = new HttpConnectionPool().setMaxConnectionsPerRoute(2);
+        RestConnectionFactoryImpl factory = new RestConnectionFactoryImpl("http://localhost:" + neoServerPort() +
+                                                                          "/db/data", pool);
+        client = new Neo4jClient(factory);
+
+        ExecutorService service = Executors.newFixedThreadPool(10);
+        CountDownLatch latch = new CountDownLatch(1000);
+
+        for (int i = 1; i <= 100; i++)
+        {
+            service.execute(new InsertJob(latch, i));
+        }
+
+        latch.await();
+        service.shutdown();
+
+        PoolStats stats = pool.getStats();
+        assertEquals(0, stats.getLeased());
+        assertTrue(stats.getCreated() <= 2);
+        assertTrue(stats.getReused() >= 98);
+
+        client.close();
+    }
+
+    @Test
+    public void testAsyncConnectionsInsertCompoundStatements() throws Exception
+    {
+        List<CompletableFuture<List<Statement>>> commits = new ArrayList<>();
+
+        for (int i = 1; i <= 100; i++)
+        {
+            AsyncConnection connection = client.getAsyncConnection();
+            for (int j = 1; j <= 10; j++)
+            {
+                connection.add(new RowStatement("MERGE (n:AsyncInsert{id:\"id" + i + "-" + j + "\"})"));
+            }
+            commits.add(connection.commitAsync());
+        }
+
+        CompletableFuture.allOf(commits.toArray(new CompletableFuture[commits.size()])).get();
+
+        AsyncConnection connection = client.getAsyncConnection();
+        RowStatement statement = new RowStatement("MATCH (n:AsyncInsert) RETURN count(n) as number_of_nodes");
+        connection.add(statement);
+        connection.commitAsync().get();
+
+        RowSet result = statement.getResult();
+        assertNotNull(result);
+        assertEquals(1000, result.getInt(0));
+    }
+
+    @Test
+    public void testGroupCommitIsolatesFailingStatements() throws Exception
+    {
+        client.enableGroupCommit(50, 5, TimeUnit.MILLISECONDS);
+
+        List<CompletableFuture<RowStatement>> commits = new ArrayList<>();
+        for (int i = 1; i <= 100; i++)
+        {
+            String query = i == 42 ? "THIS IS NOT CYPHER" : "MERGE (n:GroupInsert{id:\"id" + i + "\"})";
+            commits.add(client.commitAsync(new RowStatement(query)));
+        }
+
+        int failures = 0;
+        for (CompletableFuture<RowStatement> commit : commits)
+        {
+            try
+            {
+                commit.get();
+            }
+            catch (ExecutionException e)
+            {
+                failures++;
+            }
+        }
+        assertEquals(1, failures);
+
+        RowStatement statement = new RowStatement("MATCH (n:GroupInsert) RETURN count(n) as number_of_nodes");
+        client.commitAsync(statement).get();
+        assertEquals(99, statement.getResult().getInt(0));
+    }
+
+    @Test
+    public void testOpenConnectionsAreIndependentOfThreads()
+    {
+        try (Connection kept = client.openConnection(); Connection discarded = client.openConnection())
+        {
+            kept.add(new RowStatement("MERGE (n:Handle{id:\"kept\"})"));
+            discarded.add(new RowStatement("MERGE (n:Handle{id:\"discarded\"})"));
+            kept.flush();
+            discarded.flush();
+            kept.commit();
+        }
+
+        try (Connection connection = client.openConnection())
+        {
+            RowStatement statement = new RowStatement("MATCH (n:Handle) RETURN count(n) as number_of_nodes");
+            connection.add(statement);
+            connection.commit();
+
+            assertEquals(1, statement.getResult().getInt(0));
+        }
+    }
+
+    @Test
+    public void testRowHandlerReceivesRowsWithoutBuildingRowSet()
+    {
+        Connection connection = client.getConnection();
+        connection.add(new RowStatement("UNWIND range(1, 1000) AS i CREATE (n:Streamed{value:i})"));
+        connection.commit();
+
+        long[] total = new long[2];
+        RowStatement statement = new RowStatement("MATCH (n:Streamed) RETURN n.value", row -> {
+            total[0] += row.getLong(0);
+            total[1]++;
+        });
+        connection = client.getConnection();
+        connection.add(statement);
+        connection.commit();
+
+        assertEquals(1000, total[1]);
+        assertEquals(500500, total[0]);
+        assertFalse(statement.getResult().hasNext());
+    }
+
+    @Test
+    public void testGraphVisitorReceivesEachNodeOnce()
+    {
+        Connection connection = client.getConnection();
+        connection.add(new RowStatement("MERGE (n1:Visited{id:\"id1\"})-[:connectedTo]->(n2:Visited{id:\"id2\"})-[:connectedTo]->(n3:Visited{id:\"id3\"})"));
+        connection.commit();
+
+        Set<Long> nodes = new HashSet<>();
+        int[] counts = new int[2];
+        GraphStatement statement = new GraphStatement("MATCH (a:Visited)-[r]->(b) RETURN a, r, b", new GraphVisitor()
+        {
+            @Override
+            public void onNode(Node node)
+            {
+                nodes.add(node.getId());
+                counts[0]++;
+            }
+
+            @Override
+            public void onRelationship(Relationship relationship)
+            {
+                counts[1]++;
+            }
+        }, true);
+        connection = client.getConnection();
+        connection.add(statement);
+        connection.commit();
+
+        assertEquals(3, nodes.size());
+        assertEquals(3, counts[0]);
+        assertEquals(2, counts[1]);
+        assertTrue(statement.getResult().getNodes().isEmpty());
+    }
+
     private class InsertJob implements Runnable
     {
         private final CountDownLatch latch;
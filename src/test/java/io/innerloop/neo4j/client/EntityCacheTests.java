@@ -0,0 +1,215 @@
+package io.innerloop.neo4j.client;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class EntityCacheTests
+{
+    private StubConnectionFactory factory;
+
+    private Neo4jClient client;
+
+    @Before
+    public void setUp()
+    {
+        factory = new StubConnectionFactory(EntityCacheTests::answer);
+        client = new Neo4jClient(factory).enableEntityCache(4, 1, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Answers id lookups as if every id below 100 existed, Nodes labelled Person and Relationships of type KNOWS.
+     * Anything else is taken to be a write and left without a result.
+     */
+    static void answer(Statement statement)
+    {
+        if (!(statement instanceof GraphStatement))
+        {
+            return;
+        }
+        Set<Node> nodes = new HashSet<>();
+        Set<Relationship> relationships = new HashSet<>();
+        for (long id : (long[]) statement.getParameters().get("ids"))
+        {
+            if (id >= 100)
+            {
+                continue;
+            }
+            if (statement.getQuery().contains("[r]"))
+            {
+                relationships.add(new Relationship(id, "KNOWS", id, id + 1, Collections.emptyMap()));
+            }
+            else
+            {
+                nodes.add(new Node(id, new String[] {"Person"}, Collections.emptyMap()));
+            }
+        }
+        ((GraphStatement) statement).setResult(new Graph(nodes, relationships));
+    }
+
+    @Test
+    public void testNodesComeBackInIdOrderWithoutMissingIds()
+    {
+        List<Node> nodes = client.getNodes(3, 1, 500, 3);
+
+        assertEquals(3, nodes.size());
+        assertEquals(3, nodes.get(0).getId());
+        assertEquals(1, nodes.get(1).getId());
+        assertSame(nodes.get(0), nodes.get(2));
+    }
+
+    @Test
+    public void testOnlyMissesAreFetched()
+    {
+        List<Node> first = client.getNodes(1, 2);
+        List<Node> second = client.getNodes(2, 3, 1);
+
+        assertArrayEquals(new long[] {1, 2}, sentIds(0));
+        assertArrayEquals(new long[] {3}, sentIds(1));
+        assertSame(first.get(1), second.get(0));
+        CacheStats stats = client.getEntityCacheStats();
+        assertEquals(2, stats.getHits());
+        assertEquals(3, stats.getMisses());
+    }
+
+    @Test
+    public void testFullyCachedLookupSendsNothing()
+    {
+        client.getRelationships(5, 6);
+        List<Relationship> relationships = client.getRelationships(6, 5);
+
+        assertEquals(1, factory.getCommits());
+        assertEquals(6, relationships.get(0).getId());
+        assertEquals("KNOWS", relationships.get(0).getType());
+    }
+
+    @Test
+    public void testExpiredEntitiesAreFetchedAgain() throws InterruptedException
+    {
+        client.enableEntityCache(4, 1, TimeUnit.MILLISECONDS);
+        client.getNodes(1);
+        Thread.sleep(5);
+        client.getNodes(1);
+
+        assertEquals(2, factory.getCommits());
+        assertEquals(1, client.getEntityCacheStats().getExpirations());
+    }
+
+    @Test
+    public void testNodesAndRelationshipsShareTheBound()
+    {
+        client.getNodes(1, 2, 3);
+        client.getRelationships(1, 2, 3);
+
+        CacheStats stats = client.getEntityCacheStats();
+        assertEquals(4, stats.getSize());
+        assertEquals(2, stats.getEvictions());
+    }
+
+    @Test
+    public void testCommitTaggedWithALabelInvalidatesItsNodes()
+    {
+        client.getNodes(1, 2);
+        client.getRelationships(1);
+
+        RowStatement write = new RowStatement("MATCH (p:Person) SET p.seen = true");
+        write.setCacheTags("Person");
+        Connection connection = client.getConnection();
+        connection.add(write);
+        connection.commit();
+
+        CacheStats stats = client.getEntityCacheStats();
+        assertEquals(1, stats.getSize());
+        assertEquals(2, stats.getInvalidations());
+
+        RowStatement knows = new RowStatement("MATCH ()-[r:KNOWS]->() DELETE r");
+        knows.setCacheTags("KNOWS");
+        client.commitAsync(knows).join();
+        assertEquals(0, client.getEntityCacheStats().getSize());
+    }
+
+    @Test
+    public void testFailedCommitForgetsItsTags()
+    {
+        StubConnectionFactory failing = new StubConnectionFactory(statement -> {
+            if (statement.getQuery().startsWith("FAIL"))
+            {
+                throw new RuntimeException("Commit failed.");
+            }
+            answer(statement);
+        });
+        Neo4jClient client = new Neo4jClient(failing).enableEntityCache(4, 1, TimeUnit.MINUTES);
+        client.getNodes(1);
+
+        RowStatement write = new RowStatement("FAIL MATCH (p:Person) SET p.seen = true");
+        write.setCacheTags("Person");
+        Connection connection = client.getConnection();
+        connection.add(write);
+        try
+        {
+            connection.commit();
+        }
+        catch (RuntimeException expected)
+        {
+            connection.getStatements().clear();
+        }
+        connection.add(new RowStatement("MATCH (c:Company) SET c.seen = true"));
+        connection.commit();
+
+        assertEquals(1, client.getEntityCacheStats().getSize());
+        assertEquals(0, client.getEntityCacheStats().getInvalidations());
+    }
+
+    @Test
+    public void testUntaggedWritesLeaveTheCacheAsItIs()
+    {
+        client.getNodes(1);
+        client.commitAsync(new RowStatement("MATCH (p:Person) SET p.seen = true")).join();
+
+        assertEquals(1, client.getEntityCacheStats().getSize());
+        // one fetch and the write, the second lookup is still answered from the cache.
+        client.getNodes(1);
+        assertEquals(2, factory.getCommits());
+    }
+
+    @Test
+    public void testFetchRacingAnInvalidationIsNotStored()
+    {
+        EntityCache cache = new EntityCache(10, 1, TimeUnit.MINUTES);
+        long startedAt = cache.begin();
+        cache.invalidate(Collections.singleton("Person"));
+        cache.putNodes(Collections.singleton(new Node(1, new String[] {"Person"}, Collections.emptyMap())), startedAt);
+        cache.putNodes(Collections.singleton(new Node(2, new String[] {"Company"}, Collections.emptyMap())), startedAt);
+
+        Node[] found = new Node[2];
+        assertEquals(1, cache.getNodes(new long[] {1, 2}, found));
+        assertNull(found[0]);
+        assertEquals(2, found[1].getId());
+    }
+
+    @Test
+    public void testClearDropsEverything()
+    {
+        client.getNodes(1);
+        client.clearEntityCache();
+        client.getNodes(1);
+
+        assertEquals(2, factory.getCommits());
+        assertNull(new Neo4jClient(factory).getEntityCacheStats());
+    }
+
+    private long[] sentIds(int index)
+    {
+        return (long[]) factory.getSent().get(index).getParameters().get("ids");
+    }
+}
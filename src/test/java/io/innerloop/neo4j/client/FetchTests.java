@@ -0,0 +1,93 @@
+package io.innerloop.neo4j.client;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class FetchTests
+{
+    private final StubConnectionFactory factory = new StubConnectionFactory(EntityCacheTests::answer);
+
+    private final Neo4jClient client = new Neo4jClient(factory);
+
+    @Test
+    public void testIdsAreSplitIntoChunksInOneTransaction()
+    {
+        Graph graph = client.fetchNodes(ids(2500));
+
+        List<Statement> sent = factory.getSent();
+        assertEquals(3, sent.size());
+        assertEquals(1000, chunk(sent, 0).length);
+        assertEquals(1000, chunk(sent, 1).length);
+        assertEquals(500, chunk(sent, 2).length);
+        assertEquals(2000, chunk(sent, 2)[0]);
+        assertEquals(1, factory.getCommits());
+
+        // the stub only knows ids below 100.
+        assertEquals(100, graph.getNodes().size());
+        assertNotNull(graph.getNode(99));
+        assertNull(graph.getNode(100));
+    }
+
+    @Test
+    public void testChunksAreSpreadOverParallelTransactions()
+    {
+        Graph graph = client.fetchRelationships(ids(3001), 2);
+
+        List<Statement> sent = factory.getSent();
+        assertEquals(4, sent.size());
+        assertEquals(1, chunk(sent, 3).length);
+        assertEquals(2, factory.getCommits());
+        assertEquals(100, graph.getRelationships().size());
+    }
+
+    @Test
+    public void testParallelismIsCappedByTheChunks()
+    {
+        client.fetchNodes(ids(1500), 8);
+
+        assertEquals(2, factory.getCommits());
+    }
+
+    @Test
+    public void testSingleChunkIsOneStatement()
+    {
+        Graph graph = client.fetchNodes(new long[] {7, 3}, 4);
+
+        assertEquals(1, factory.getSent().size());
+        assertEquals(2, graph.getNodes().size());
+    }
+
+    @Test
+    public void testNoIdsSendsNothing()
+    {
+        assertTrue(client.fetchNodes(new long[0]).getNodes().isEmpty());
+        assertEquals(0, factory.getCommits());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParallelismMustBePositive()
+    {
+        client.fetchNodes(ids(10), 0);
+    }
+
+    private static long[] ids(int count)
+    {
+        long[] ids = new long[count];
+        for (int i = 0; i < count; i++)
+        {
+            ids[i] = i;
+        }
+        return ids;
+    }
+
+    private static long[] chunk(List<Statement> sent, int index)
+    {
+        return (long[]) sent.get(index).getParameters().get("ids");
+    }
+}
@@ -0,0 +1,101 @@
+package io.innerloop.neo4j.client;
+
+import org.junit.Test;
+
+import java.nio.DoubleBuffer;
+import java.nio.LongBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class NumberListTests
+{
+    @Test
+    public void testIntegralElementsBoxLikeJson()
+    {
+        LongList list = new LongList(new long[] {7, 5000000000L, -1, 0}, 3);
+
+        // small values still box to Integer, only values outside the int range become Long.
+        assertEquals(Integer.class, list.get(0).getClass());
+        assertEquals(Long.class, list.get(1).getClass());
+        assertEquals(Integer.class, list.get(2).getClass());
+        assertEquals(3, list.size());
+        assertEquals(5000000000L, list.getLong(1));
+    }
+
+    @Test
+    public void testLongListEqualsTheArrayList()
+    {
+        LongList list = new LongList(new long[] {1, 5000000000L, 3}, 3);
+        List<Object> expected = new ArrayList<>(Arrays.asList(1, 5000000000L, 3));
+
+        assertEquals(expected, list);
+        assertEquals(list, expected);
+        assertEquals(expected.hashCode(), list.hashCode());
+        assertEquals(new LongList(new long[] {1, 5000000000L, 3, 9}, 3), list);
+        // a Long that fits in an int is not what JSON decoding would produce, so it is not equal.
+        assertNotEquals(Arrays.asList(1L, 5000000000L, 3L), list);
+    }
+
+    @Test
+    public void testLongListReadsWithoutBoxing()
+    {
+        LongList list = new LongList(new long[] {1, 2, 3, 4}, 3);
+
+        long[] copy = list.toLongArray();
+        assertArrayEquals(new long[] {1, 2, 3}, copy);
+        copy[0] = 42;
+        assertEquals(1, list.getLong(0));
+
+        LongBuffer buffer = list.asLongBuffer();
+        assertEquals(3, buffer.remaining());
+        assertEquals(3, buffer.get(2));
+        assertTrue(buffer.isReadOnly());
+    }
+
+    @Test
+    public void testDoubleListEqualsTheArrayList()
+    {
+        DoubleList list = new DoubleList(new double[] {1.5, -0.25, 3, 4}, 3);
+        List<Double> expected = new ArrayList<>(Arrays.asList(1.5, -0.25, 3.0));
+
+        assertEquals(expected, list);
+        assertEquals(list, expected);
+        assertEquals(expected.hashCode(), list.hashCode());
+        assertEquals(-0.25, list.getDouble(1), 0);
+        assertArrayEquals(new double[] {1.5, -0.25, 3}, list.toDoubleArray(), 0);
+
+        DoubleBuffer buffer = list.asDoubleBuffer();
+        assertEquals(3, buffer.remaining());
+        assertTrue(buffer.isReadOnly());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testLongListIsReadOnly()
+    {
+        new LongList(new long[] {1}, 1).add(2);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testDoubleListIsReadOnly()
+    {
+        new DoubleList(new double[] {1}, 1).set(0, 2.0);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testReadsStopAtTheSize()
+    {
+        new LongList(new long[] {1, 2}, 1).getLong(1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSizeMustFitTheArray()
+    {
+        new DoubleList(new double[1], 2);
+    }
+}
@@ -0,0 +1,157 @@
+package io.innerloop.neo4j.client;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class ReadCoalescerTests
+{
+    private final ReadCoalescer coalescer = new ReadCoalescer();
+
+    private final AtomicInteger requests = new AtomicInteger();
+
+    @Test
+    public void testConcurrentEqualReadsShareOneRequest() throws Exception
+    {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        RowStatement first = new RowStatement("MATCH (p:Person) RETURN count(p)");
+        RowStatement second = new RowStatement("MATCH (p:Person) RETURN count(p)");
+
+        Thread leader = new Thread(() -> coalescer.read(first, () -> {
+            started.countDown();
+            await(release);
+            answer(first, 42L);
+        }));
+        leader.start();
+        started.await();
+
+        Thread follower = new Thread(() -> coalescer.read(second, () -> answer(second, 7L)));
+        follower.start();
+        waitUntilBlocked(follower);
+        release.countDown();
+        leader.join();
+        follower.join();
+
+        assertEquals(1, requests.get());
+        assertEquals(42L, second.getResult().getLong(0));
+        assertNotSame(first.getResult(), second.getResult());
+    }
+
+    @Test
+    public void testFollowersSeeTheLeadersError() throws Exception
+    {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        RuntimeException failure = new Neo4jClientException("Server went away.");
+        AtomicReference<Throwable> seen = new AtomicReference<>();
+
+        Thread leader = new Thread(() -> {
+            try
+            {
+                coalescer.read(new RowStatement("RETURN 1"), () -> {
+                    started.countDown();
+                    await(release);
+                    throw failure;
+                });
+            }
+            catch (RuntimeException expected)
+            {
+                // the leader sees its own error.
+            }
+        });
+        leader.start();
+        started.await();
+
+        Thread follower = new Thread(() -> {
+            try
+            {
+                coalescer.read(new RowStatement("RETURN 1"), () -> requests.incrementAndGet());
+            }
+            catch (RuntimeException e)
+            {
+                seen.set(e);
+            }
+        });
+        follower.start();
+        waitUntilBlocked(follower);
+        release.countDown();
+        leader.join();
+        follower.join();
+
+        assertSame(failure, seen.get());
+        assertEquals(0, requests.get());
+    }
+
+    @Test
+    public void testReadsAfterCompletionGoToTheServer()
+    {
+        RowStatement first = new RowStatement("RETURN 1");
+        RowStatement second = new RowStatement("RETURN 1");
+        coalescer.read(first, () -> answer(first, 1L));
+        coalescer.read(second, () -> answer(second, 2L));
+
+        assertEquals(2, requests.get());
+        assertEquals(2L, second.getResult().getLong(0));
+    }
+
+    @Test
+    public void testClientCoalescesReads() throws Exception
+    {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        StubConnectionFactory factory = new StubConnectionFactory(statement -> {
+            started.countDown();
+            await(release);
+            answer((RowStatement) statement, 1L);
+        });
+        Neo4jClient client = new Neo4jClient(factory).enableReadCoalescing();
+
+        Thread leader = new Thread(() -> client.read(new RowStatement("RETURN 1")));
+        leader.start();
+        started.await();
+        RowStatement statement = new RowStatement("RETURN 1");
+        Thread follower = new Thread(() -> client.read(statement));
+        follower.start();
+        waitUntilBlocked(follower);
+        release.countDown();
+        leader.join();
+        follower.join();
+
+        assertEquals(1, factory.getCommits());
+        assertEquals(1L, statement.getResult().getLong(0));
+    }
+
+    private void answer(RowStatement statement, long value)
+    {
+        requests.incrementAndGet();
+        statement.setResult(new RowSet(new String[] {"n"}, Collections.singletonList(new Object[] {value})));
+    }
+
+    private static void await(CountDownLatch latch)
+    {
+        try
+        {
+            latch.await();
+        }
+        catch (InterruptedException e)
+        {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void waitUntilBlocked(Thread thread) throws InterruptedException
+    {
+        while (thread.getState() != Thread.State.WAITING && thread.isAlive())
+        {
+            Thread.sleep(1);
+        }
+    }
+}
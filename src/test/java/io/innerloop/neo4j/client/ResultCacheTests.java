@@ -0,0 +1,194 @@
+package io.innerloop.neo4j.client;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ResultCacheTests
+{
+    private StubConnectionFactory factory;
+
+    private Neo4jClient client;
+
+    @Before
+    public void setUp()
+    {
+        // every statement sent gets a different answer, so a cached answer can be told apart from a fresh one.
+        AtomicLong answers = new AtomicLong();
+        factory = new StubConnectionFactory(statement -> ((RowStatement) statement).setResult(
+                new RowSet(new String[] {"n"}, Collections.singletonList(new Object[] {answers.incrementAndGet()}))));
+        client = new Neo4jClient(factory).enableResultCache(2, 1, TimeUnit.MINUTES);
+    }
+
+    @Test
+    public void testRepeatedReadIsAnsweredFromTheCache()
+    {
+        long first = read("MATCH (p:Person) RETURN count(p)");
+        long second = read("MATCH (p:Person) RETURN count(p)");
+
+        assertEquals(first, second);
+        assertEquals(1, factory.getCommits());
+        CacheStats stats = client.getResultCacheStats();
+        assertEquals(1, stats.getHits());
+        assertEquals(1, stats.getMisses());
+        assertEquals(1, stats.getSize());
+    }
+
+    @Test
+    public void testCachedRowSetsHaveTheirOwnCursor()
+    {
+        client.read(new RowStatement("RETURN 1"));
+        RowSet first = client.read(new RowStatement("RETURN 1")).getResult();
+        RowSet second = client.read(new RowStatement("RETURN 1")).getResult();
+
+        first.next();
+        assertFalse(first.hasNext());
+        assertTrue(second.hasNext());
+    }
+
+    @Test
+    public void testParametersArePartOfTheKey()
+    {
+        RowStatement one = new RowStatement("MATCH (n) WHERE id(n) IN {ids} RETURN count(n)");
+        one.setParam("ids", new long[] {1, 2});
+        RowStatement same = new RowStatement("MATCH (n) WHERE id(n) IN {ids} RETURN count(n)");
+        same.setParam("ids", new long[] {1, 2});
+        RowStatement other = new RowStatement("MATCH (n) WHERE id(n) IN {ids} RETURN count(n)");
+        other.setParam("ids", new long[] {3});
+
+        client.read(one);
+        client.read(same);
+        client.read(other);
+
+        assertEquals(2, factory.getCommits());
+    }
+
+    @Test
+    public void testExpiredResultsAreReadAgain() throws InterruptedException
+    {
+        RowStatement statement = new RowStatement("RETURN 1");
+        statement.setCacheTtl(1, TimeUnit.MILLISECONDS);
+        client.read(statement);
+        Thread.sleep(5);
+
+        RowStatement again = new RowStatement("RETURN 1");
+        client.read(again);
+
+        assertEquals(2, factory.getCommits());
+        assertEquals(1, client.getResultCacheStats().getExpirations());
+    }
+
+    @Test
+    public void testZeroTtlIsNeverCached()
+    {
+        RowStatement statement = new RowStatement("RETURN 1");
+        statement.setCacheTtl(0, TimeUnit.SECONDS);
+        client.read(statement);
+        client.read(new RowStatement("RETURN 1"));
+
+        assertEquals(2, factory.getCommits());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedResultIsEvicted()
+    {
+        read("RETURN 1");
+        read("RETURN 2");
+        read("RETURN 1");
+        read("RETURN 3");
+
+        assertEquals(3, factory.getCommits());
+        read("RETURN 1");
+        assertEquals(3, factory.getCommits());
+        read("RETURN 2");
+        assertEquals(4, factory.getCommits());
+        assertEquals(2, client.getResultCacheStats().getEvictions());
+    }
+
+    @Test
+    public void testTaggedCommitThroughConnectionInvalidates()
+    {
+        long before = read("MATCH (p:Person) RETURN count(p)", "Person");
+        read("MATCH (c:Company) RETURN count(c)", "Company");
+
+        RowStatement write = new RowStatement("CREATE (p:Person)");
+        write.setCacheTags("Person");
+        Connection connection = client.getConnection();
+        connection.add(write);
+        connection.commit();
+
+        assertTrue(before != read("MATCH (p:Person) RETURN count(p)", "Person"));
+        read("MATCH (c:Company) RETURN count(c)", "Company");
+        assertEquals(4, factory.getCommits());
+        assertEquals(1, client.getResultCacheStats().getInvalidations());
+    }
+
+    @Test
+    public void testRolledBackWriteDoesNotInvalidate()
+    {
+        read("MATCH (p:Person) RETURN count(p)", "Person");
+
+        RowStatement write = new RowStatement("CREATE (p:Person)");
+        write.setCacheTags("Person");
+        Connection connection = client.getConnection();
+        connection.add(write);
+        connection.rollback();
+
+        read("MATCH (p:Person) RETURN count(p)", "Person");
+        assertEquals(1, factory.getCommits());
+    }
+
+    @Test
+    public void testTaggedCommitAsyncInvalidates()
+    {
+        read("MATCH (p:Person) RETURN count(p)", "Person");
+
+        RowStatement write = new RowStatement("CREATE (p:Person)");
+        write.setCacheTags("Person");
+        client.commitAsync(write).join();
+
+        assertEquals(0, client.getResultCacheStats().getSize());
+    }
+
+    @Test
+    public void testReadRacingAnInvalidationIsNotStored()
+    {
+        ResultCache cache = new ResultCache(10, 1, TimeUnit.MINUTES);
+        RowStatement statement = new RowStatement("MATCH (p:Person) RETURN count(p)");
+        statement.setCacheTags("Person");
+
+        long startedAt = cache.begin();
+        statement.setResult(new RowSet(new String[] {"n"}, Collections.singletonList(new Object[] {1L})));
+        cache.invalidate(Collections.singleton("Person"));
+        cache.store(statement, startedAt);
+
+        assertEquals(0, cache.getStats().getSize());
+    }
+
+    @Test
+    public void testClearDropsEverything()
+    {
+        read("RETURN 1");
+        client.clearResultCache();
+        read("RETURN 1");
+
+        assertEquals(2, factory.getCommits());
+        assertNull(new Neo4jClient(factory).getResultCacheStats());
+    }
+
+    private long read(String query, String... tags)
+    {
+        RowStatement statement = new RowStatement(query);
+        statement.setCacheTags(tags);
+        RowSet result = client.read(statement).getResult();
+        return result.getLong(0);
+    }
+}
@@ -0,0 +1,190 @@
+package io.innerloop.neo4j.client;
+
+import org.junit.Test;
+
+import java.nio.DoubleBuffer;
+import java.nio.LongBuffer;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class RowSetTests
+{
+    private static RowSet people()
+    {
+        return new RowSet(new String[] {"name", "age"},
+                          Arrays.asList(new Object[] {"Ann", 31L}, new Object[] {"Bob", 42L}, new Object[] {"Cy", 7L}));
+    }
+
+    @Test
+    public void testCursorsMoveIndependently()
+    {
+        RowSet rows = people();
+        RowSet.Cursor first = rows.cursor();
+        RowSet.Cursor second = rows.cursor();
+
+        assertTrue(first.next());
+        assertTrue(first.next());
+        assertTrue(second.next());
+
+        assertEquals(1, first.getRow());
+        assertEquals("Bob", first.getString(0));
+        assertEquals(0, second.getRow());
+        assertEquals("Ann", second.getString(0));
+        assertEquals(31L, second.getLong(1));
+    }
+
+    @Test
+    public void testCursorsDoNotMoveTheRowSet()
+    {
+        RowSet rows = people();
+        RowSet.Cursor cursor = rows.cursor();
+        while (cursor.next())
+        {
+            // read to the end.
+        }
+
+        assertTrue(rows.hasNext());
+        assertEquals("Ann", rows.getString(0));
+        assertFalse(cursor.next());
+    }
+
+    @Test
+    public void testCursorVisitsEveryRow()
+    {
+        RowSet.Cursor cursor = people().cursor();
+        long total = 0;
+        int count = 0;
+        while (cursor.next())
+        {
+            total += cursor.getLong(1);
+            count++;
+        }
+
+        assertEquals(3, count);
+        assertEquals(80L, total);
+    }
+
+    @Test
+    public void testReadingOutsideTheRowsFails()
+    {
+        RowSet.Cursor cursor = people().cursor();
+        try
+        {
+            cursor.getString(0);
+            fail("Read before the first row.");
+        }
+        catch (IllegalStateException expected)
+        {
+            // not yet on a row.
+        }
+
+        for (int i = 0; i < 4; i++)
+        {
+            cursor.next();
+        }
+        try
+        {
+            cursor.getString(0);
+            fail("Read after the last row.");
+        }
+        catch (IllegalStateException expected)
+        {
+            // past the last row.
+        }
+    }
+
+    @Test
+    public void testNullsAreTrackedPerRow()
+    {
+        RowSet rows = new RowSet(new String[] {"age", "score", "name"},
+                                 Arrays.asList(new Object[] {31L, null, "Ann"},
+                                               new Object[] {null, 2.5, null},
+                                               new Object[] {7L, 1.5, "Cy"}));
+        RowSet.Cursor cursor = rows.cursor();
+
+        cursor.next();
+        assertFalse(cursor.isNull(0));
+        assertTrue(cursor.isNull(1));
+        assertEquals(0.0, cursor.getDouble(1), 0);
+        assertNull(cursor.getObject(1));
+
+        cursor.next();
+        assertTrue(cursor.isNull(0));
+        assertEquals(0L, cursor.getLong(0));
+        assertNull(cursor.getObject(0));
+        assertTrue(cursor.isNull(2));
+        assertNull(cursor.getString(2));
+
+        cursor.next();
+        assertFalse(cursor.isNull(0));
+        assertFalse(cursor.isNull(1));
+        assertEquals(7L, cursor.getObject(0));
+    }
+
+    @Test
+    public void testLongColumnReadsEveryRow()
+    {
+        LongBuffer ages = people().longColumn(1);
+
+        assertEquals(3, ages.remaining());
+        assertEquals(31L, ages.get(0));
+        assertEquals(7L, ages.get(2));
+        assertTrue(ages.isReadOnly());
+    }
+
+    @Test
+    public void testDoubleColumnReadsEveryRow()
+    {
+        RowSet rows = new RowSet(new String[] {"score"},
+                                 Arrays.asList(new Object[] {1.5}, new Object[] {null}, new Object[] {-2.25}));
+        DoubleBuffer scores = rows.doubleColumn(0);
+
+        assertEquals(3, scores.remaining());
+        assertEquals(1.5, scores.get(0), 0);
+        assertEquals(0.0, scores.get(1), 0);
+        assertEquals(-2.25, scores.get(2), 0);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testLongColumnOfStringsFails()
+    {
+        people().longColumn(0);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testDoubleColumnOfIntegersFails()
+    {
+        people().doubleColumn(1);
+    }
+
+    @Test
+    public void testSmallLongsAndIntegersShareAPrimitiveColumn()
+    {
+        RowSet rows = new RowSet(new String[] {"n"},
+                                 Arrays.asList(new Object[] {1}, new Object[] {2L}, new Object[] {Long.MAX_VALUE}));
+
+        LongBuffer values = rows.longColumn(0);
+        assertEquals(1L, values.get(0));
+        assertEquals(2L, values.get(1));
+        assertEquals(Long.MAX_VALUE, values.get(2));
+        // a column that was given Longs hands back Longs.
+        rows.next();
+        assertEquals(2L, rows.getObject(0));
+    }
+
+    @Test
+    public void testMixedNumbersCanStillBeReadAsEitherType()
+    {
+        RowSet rows = new RowSet(new String[] {"n"}, Arrays.asList(new Object[] {1.5}, new Object[] {2}));
+        rows.next();
+
+        assertEquals(2.0, rows.getDouble(0), 0);
+        assertEquals(2L, rows.getLong(0));
+        assertEquals(2, rows.getInt(0));
+    }
+}
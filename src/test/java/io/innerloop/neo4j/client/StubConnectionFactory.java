@@ -0,0 +1,192 @@
+package io.innerloop.neo4j.client;
+
+import io.innerloop.neo4j.client.spi.ConnectionFactory;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * A ConnectionFactory that answers statements in memory, for testing the client without a Neo4J server. Each
+ * statement sent is handed to a responder, which sets its result, and every commit is counted.
+ */
+class StubConnectionFactory implements ConnectionFactory
+{
+    private final Consumer<Statement> responder;
+
+    private final AtomicInteger commits;
+
+    private final List<Statement> sent;
+
+    StubConnectionFactory(Consumer<Statement> responder)
+    {
+        this.responder = responder;
+        this.commits = new AtomicInteger();
+        this.sent = Collections.synchronizedList(new ArrayList<>());
+    }
+
+    int getCommits()
+    {
+        return commits.get();
+    }
+
+    List<Statement> getSent()
+    {
+        synchronized (sent)
+        {
+            return new ArrayList<>(sent);
+        }
+    }
+
+    @Override
+    public Connection getConnection()
+    {
+        return new StubConnection();
+    }
+
+    @Override
+    public Connection openConnection()
+    {
+        return new StubConnection();
+    }
+
+    @Override
+    public AsyncConnection getAsyncConnection()
+    {
+        return new StubAsyncConnection();
+    }
+
+    @Override
+    public void close()
+    {
+    }
+
+    private void send(List<Statement> statements)
+    {
+        for (Statement statement : statements)
+        {
+            responder.accept(statement);
+            sent.add(statement);
+        }
+        statements.clear();
+    }
+
+    private class StubConnection implements Connection
+    {
+        private final List<Statement> statements = new ArrayList<>();
+
+        @Override
+        public void add(Statement statement)
+        {
+            statements.add(statement);
+        }
+
+        @Override
+        public List<Statement> getStatements()
+        {
+            return statements;
+        }
+
+        @Override
+        public OffsetDateTime getExpiry()
+        {
+            return null;
+        }
+
+        @Override
+        public void resetExpiry()
+        {
+        }
+
+        @Override
+        public void flush()
+        {
+            send(statements);
+        }
+
+        @Override
+        public void setAutoFlush(int maxStatements, long maxBytes)
+        {
+        }
+
+        @Override
+        public void setPipelined(boolean pipelined)
+        {
+        }
+
+        @Override
+        public void setIdentityMap(boolean enabled)
+        {
+        }
+
+        @Override
+        public void commit()
+        {
+            send(statements);
+            commits.incrementAndGet();
+        }
+
+        @Override
+        public void rollback()
+        {
+            statements.clear();
+        }
+
+        @Override
+        public void close()
+        {
+            statements.clear();
+        }
+    }
+
+    private class StubAsyncConnection implements AsyncConnection
+    {
+        private final List<Statement> statements = new ArrayList<>();
+
+        @Override
+        public void add(Statement statement)
+        {
+            statements.add(statement);
+        }
+
+        @Override
+        public List<Statement> getStatements()
+        {
+            return statements;
+        }
+
+        @Override
+        public OffsetDateTime getExpiry()
+        {
+            return null;
+        }
+
+        @Override
+        public CompletableFuture<List<Statement>> flushAsync()
+        {
+            List<Statement> flushed = new ArrayList<>(statements);
+            send(statements);
+            return CompletableFuture.completedFuture(flushed);
+        }
+
+        @Override
+        public CompletableFuture<List<Statement>> commitAsync()
+        {
+            List<Statement> committed = new ArrayList<>(statements);
+            send(statements);
+            commits.incrementAndGet();
+            return CompletableFuture.completedFuture(committed);
+        }
+
+        @Override
+        public CompletableFuture<Void> rollbackAsync()
+        {
+            statements.clear();
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+}
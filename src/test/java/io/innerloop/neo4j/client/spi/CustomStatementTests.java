@@ -0,0 +1,109 @@
+package io.innerloop.neo4j.client.spi;
+
+import io.innerloop.neo4j.client.Connection;
+import io.innerloop.neo4j.client.Neo4jClient;
+import io.innerloop.neo4j.client.Statement;
+import org.junit.Test;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+public class CustomStatementTests
+{
+    private int commits;
+
+    /**
+     * Only the statement kinds in the client package share results, so a subclass from anywhere else just runs.
+     */
+    @Test
+    public void testStatementsFromOtherPackagesAreNeverShared()
+    {
+        ConnectionFactory factory = new ConnectionFactory()
+        {
+            @Override
+            public Connection getConnection()
+            {
+                return openConnection();
+            }
+
+            @Override
+            public Connection openConnection()
+            {
+                return new CountingConnection();
+            }
+        };
+        Neo4jClient client = new Neo4jClient(factory).enableResultCache(10, 1, TimeUnit.MINUTES)
+                                                      .enableReadCoalescing();
+
+        client.read(new CountStatement());
+        client.read(new CountStatement());
+
+        assertEquals(2, commits);
+        assertEquals(0, client.getResultCacheStats().getHits());
+    }
+
+    private static class CountStatement extends Statement
+    {
+        private CountStatement()
+        {
+            super("MATCH (n) RETURN count(n)");
+        }
+
+        @Override
+        public String getType()
+        {
+            return "row";
+        }
+    }
+
+    private class CountingConnection implements Connection
+    {
+        private final List<Statement> statements = new ArrayList<>();
+
+        @Override
+        public void add(Statement statement)
+        {
+            statements.add(statement);
+        }
+
+        @Override
+        public List<Statement> getStatements()
+        {
+            return statements;
+        }
+
+        @Override
+        public OffsetDateTime getExpiry()
+        {
+            return null;
+        }
+
+        @Override
+        public void resetExpiry()
+        {
+        }
+
+        @Override
+        public void flush()
+        {
+            statements.clear();
+        }
+
+        @Override
+        public void commit()
+        {
+            statements.clear();
+            commits++;
+        }
+
+        @Override
+        public void rollback()
+        {
+            statements.clear();
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package io.innerloop.neo4j.client.spi.impl.rest;
+
+import io.innerloop.neo4j.client.Connection;
+import io.innerloop.neo4j.client.LongList;
+import io.innerloop.neo4j.client.RowStatement;
+import io.innerloop.neo4j.client.Statement;
+import io.innerloop.neo4j.client.spi.impl.rest.http.HttpClient;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AutoFlushTests
+{
+    private FakeTransactionServer server;
+
+    private HttpClient client;
+
+    private Connection connection;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        server = new FakeTransactionServer();
+        client = new HttpClient();
+        connection = new RestConnectionImpl(client, server.getUrl());
+    }
+
+    @After
+    public void tearDown()
+    {
+        connection.close();
+        client.close();
+        server.close();
+    }
+
+    @Test
+    public void testFlushesOnceTheStatementCountIsReached()
+    {
+        connection.setAutoFlush(3, 0);
+
+        connection.add(statement(1));
+        connection.add(statement(2));
+        assertEquals(0, server.getRequests().size());
+        assertEquals(2, connection.getStatements().size());
+
+        connection.add(statement(3));
+        assertEquals(1, server.getRequests().size());
+        assertTrue(connection.getStatements().isEmpty());
+    }
+
+    @Test
+    public void testFlushesOnceTheEstimatedSizeIsReached()
+    {
+        long size = TransactionRequestEncoder.estimateSize(statement(1));
+        connection.setAutoFlush(0, 2 * size);
+
+        connection.add(statement(1));
+        assertEquals(0, server.getRequests().size());
+
+        connection.add(statement(2));
+        assertEquals(1, server.getRequests().size());
+        assertTrue(connection.getStatements().isEmpty());
+    }
+
+    @Test
+    public void testJustBelowTheSizeDoesNotFlush()
+    {
+        long size = TransactionRequestEncoder.estimateSize(statement(1));
+        connection.setAutoFlush(0, 2 * size + 1);
+
+        connection.add(statement(1));
+        connection.add(statement(2));
+        assertEquals(0, server.getRequests().size());
+
+        connection.add(statement(3));
+        assertEquals(1, server.getRequests().size());
+    }
+
+    @Test
+    public void testStatementsAlreadyAddedCountTowardsANewLimit()
+    {
+        connection.add(statement(1));
+        connection.add(statement(2));
+        connection.setAutoFlush(0, TransactionRequestEncoder.estimateSize(statement(1)) * 3);
+        assertEquals(0, server.getRequests().size());
+
+        connection.add(statement(3));
+        assertEquals(1, server.getRequests().size());
+        assertEquals(3, server.getRequests().get(0).split("\"statement\"").length - 1);
+    }
+
+    @Test
+    public void testEstimateIsCloseToTheEncodedSize() throws IOException
+    {
+        Statement statement = new RowStatement("MATCH (p:Person {name: {name}}) SET p += {props} RETURN p");
+        statement.setParam("name", "Ann");
+        Map<String, Object> props = new HashMap<>();
+        props.put("age", 31);
+        props.put("tags", Arrays.asList("a", "b", "c"));
+        props.put("scores", new LongList(new long[] {1, 2, 3}, 3));
+        props.put("nested", Collections.singletonMap("key", null));
+        statement.setParam("props", props);
+
+        long estimate = TransactionRequestEncoder.estimateSize(statement);
+        int actual = new TransactionRequestEncoder(Collections.singletonList(statement)).toString()
+                                                                                         .getBytes(StandardCharsets.UTF_8)
+                                                                                         .length;
+
+        assertTrue("estimate " + estimate + " for " + actual + " bytes", estimate > actual / 2 && estimate < actual * 2);
+    }
+
+    private static Statement statement(int id)
+    {
+        Statement statement = new RowStatement("CREATE (n:Person {id: {id}, name: {name}})");
+        statement.setParam("id", id);
+        statement.setParam("name", "Person " + (id % 10));
+        return statement;
+    }
+}
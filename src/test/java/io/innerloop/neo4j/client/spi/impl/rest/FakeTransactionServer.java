@@ -0,0 +1,152 @@
+package io.innerloop.neo4j.client.spi.impl.rest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A stand in for the Neo4J transactional endpoint, for testing connections without a Neo4J server. Every statement
+ * returns a single row holding 1, and a statement whose text contains FAIL fails, which rolls its transaction back as
+ * Neo4J does. Requests to a transaction that has been rolled back fail with an unknown transaction error.
+ */
+class FakeTransactionServer implements AutoCloseable
+{
+    private static final String PATH = "/db/data/transaction";
+
+    private final HttpServer server;
+
+    private final List<String> requests;
+
+    private final Set<String> failed;
+
+    private final AtomicInteger transactions;
+
+    private volatile int expirySeconds;
+
+    FakeTransactionServer() throws IOException
+    {
+        this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        this.requests = Collections.synchronizedList(new ArrayList<>());
+        this.failed = Collections.synchronizedSet(new HashSet<>());
+        this.transactions = new AtomicInteger();
+        this.expirySeconds = 60;
+        server.createContext(PATH, this::handle);
+        server.start();
+    }
+
+    String getUrl()
+    {
+        return "http://localhost:" + server.getAddress().getPort() + PATH;
+    }
+
+    /**
+     * @return Each request received so far, as its method, path and body separated by spaces.
+     */
+    List<String> getRequests()
+    {
+        synchronized (requests)
+        {
+            return new ArrayList<>(requests);
+        }
+    }
+
+    /**
+     * Sets how far in the future transactions are said to expire.
+     */
+    void setExpirySeconds(int expirySeconds)
+    {
+        this.expirySeconds = expirySeconds;
+    }
+
+    @Override
+    public void close()
+    {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException
+    {
+        String method = exchange.getRequestMethod();
+        String path = exchange.getRequestURI().getPath();
+        String body = read(exchange.getRequestBody());
+        requests.add(method + " " + path + " " + body);
+
+        String id = path.length() > PATH.length() ? path.substring(PATH.length() + 1).replace("/commit", "") : "";
+        boolean commit = path.endsWith("/commit");
+        if (id.equals("commit"))
+        {
+            id = "";
+        }
+
+        String response;
+        if (method.equals("DELETE"))
+        {
+            response = "{\"results\":[],\"errors\":[]}";
+        }
+        else if (failed.contains(id))
+        {
+            response = "{\"results\":[],\"errors\":[{\"code\":\"Neo.ClientError.Transaction.UnknownId\"," +
+                       "\"message\":\"Unrecognized transaction id.\"}]}";
+        }
+        else
+        {
+            if (id.isEmpty())
+            {
+                id = String.valueOf(transactions.incrementAndGet());
+            }
+            if (body.contains("FAIL"))
+            {
+                failed.add(id);
+                response = "{\"results\":[],\"errors\":[{\"code\":\"Neo.ClientError.Statement.InvalidSyntax\"," +
+                           "\"message\":\"Invalid input 'F'\"}]}";
+            }
+            else
+            {
+                StringBuilder results = new StringBuilder();
+                for (int i = body.indexOf("\"statement\""); i >= 0; i = body.indexOf("\"statement\"", i + 1))
+                {
+                    results.append(results.length() == 0 ? "" : ",")
+                           .append("{\"columns\":[\"n\"],\"data\":[{\"row\":[1]}]}");
+                }
+                String transaction = commit ? "" :
+                                     "\"commit\":\"" + getUrl() + "/" + id + "/commit\",\"transaction\":{\"expires\":\"" +
+                                     OffsetDateTime.now().plusSeconds(expirySeconds)
+                                                   .format(RestConnectionImpl.FORMATTER) + "\"},";
+                response = "{" + transaction + "\"results\":[" + results + "],\"errors\":[]}";
+            }
+        }
+
+        byte[] bytes = response.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json; charset=UTF-8");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody())
+        {
+            out.write(bytes);
+        }
+    }
+
+    private static String read(InputStream in) throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int read;
+        while ((read = in.read(buffer)) != -1)
+        {
+            bytes.write(buffer, 0, read);
+        }
+        return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
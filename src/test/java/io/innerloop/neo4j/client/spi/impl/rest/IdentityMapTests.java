@@ -0,0 +1,95 @@
+package io.innerloop.neo4j.client.spi.impl.rest;
+
+import io.innerloop.neo4j.client.Graph;
+import io.innerloop.neo4j.client.GraphStatement;
+import io.innerloop.neo4j.client.Statement;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class IdentityMapTests
+{
+    private static final String TWO_STATEMENTS =
+            "{\"results\":[" + result(node(1, "Ann"), node(2, "Bob")) + "," + result(node(2, "Bob"), node(3, "Cy")) +
+            "],\"errors\":[]}";
+
+    @Test
+    public void testEntitiesAreSharedAcrossStatements() throws IOException
+    {
+        List<Statement> statements = Arrays.asList(new GraphStatement("a"), new GraphStatement("b"));
+        ExecutionResult result = decode(TWO_STATEMENTS, statements, new IdentityMap());
+
+        Graph first = (Graph) result.getResult(0);
+        Graph second = (Graph) result.getResult(1);
+        assertSame(first.getNode(2), second.getNode(2));
+    }
+
+    @Test
+    public void testEntitiesAreSharedAcrossResponses() throws IOException
+    {
+        IdentityMap identityMap = new IdentityMap();
+        String response = "{\"results\":[" + result(node(1, "Ann"), node(2, "Bob")) + "],\"errors\":[]}";
+        // the second response carries a changed name, which is skipped because the Node is already known.
+        String later = "{\"results\":[" + result(node(1, "Anne"), node(2, "Bob")) + "],\"errors\":[]}";
+
+        Graph first = (Graph) decode(response, Arrays.asList(new GraphStatement("a")), identityMap).getResult(0);
+        Graph second = (Graph) decode(later, Arrays.asList(new GraphStatement("a")), identityMap).getResult(0);
+
+        assertSame(first.getNode(1), second.getNode(1));
+        assertSame(first.getRelationship(1), second.getRelationship(1));
+        assertEquals("Ann", second.getNode(1).getProperties().get("name"));
+    }
+
+    @Test
+    public void testWithoutAnIdentityMapEntitiesAreDecodedAgain() throws IOException
+    {
+        List<Statement> statements = Arrays.asList(new GraphStatement("a"), new GraphStatement("b"));
+        ExecutionResult result = decode(TWO_STATEMENTS, statements, null);
+
+        assertNotSame(((Graph) result.getResult(0)).getNode(2), ((Graph) result.getResult(1)).getNode(2));
+    }
+
+    @Test
+    public void testLongObjectHashMapGrows()
+    {
+        LongObjectHashMap<String> map = new LongObjectHashMap<>();
+        for (long id = 0; id < 10000; id++)
+        {
+            assertEquals("v" + id, map.putIfAbsent(id * 31, "v" + id));
+        }
+        assertEquals("v5", map.putIfAbsent(5 * 31, "other"));
+        assertEquals(10000, map.size());
+        assertEquals("v9999", map.get(9999 * 31));
+        assertNull(map.get(-1));
+    }
+
+    private static ExecutionResult decode(String response, List<Statement> statements, IdentityMap identityMap)
+            throws IOException
+    {
+        TransactionResponseDecoder decoder = new TransactionResponseDecoder(statements, null, identityMap);
+        return decoder.decode(new ByteArrayInputStream(response.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static String result(String start, String end)
+    {
+        String startId = start.substring(7, start.indexOf('"', 7));
+        String endId = end.substring(7, end.indexOf('"', 7));
+        return "{\"columns\":[\"a\",\"r\",\"b\"],\"data\":[{\"graph\":{\"nodes\":[" + start + "," + end +
+               "],\"relationships\":[{\"id\":\"" + startId + "\",\"type\":\"KNOWS\",\"startNode\":\"" + startId +
+               "\",\"endNode\":\"" + endId + "\",\"properties\":{}}]}}]}";
+    }
+
+    private static String node(long id, String name)
+    {
+        return "{\"id\":\"" + id + "\",\"labels\":[\"Person\"],\"properties\":{\"name\":\"" + name + "\"}}";
+    }
+}
@@ -0,0 +1,133 @@
+package io.innerloop.neo4j.client.spi.impl.rest;
+
+import io.innerloop.neo4j.client.Graph;
+import io.innerloop.neo4j.client.GraphStatement;
+import io.innerloop.neo4j.client.RowSet;
+import io.innerloop.neo4j.client.RowStatement;
+import io.innerloop.neo4j.client.Statement;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LazyPropertiesTests
+{
+    private static final String GRAPH =
+            "{\"results\":[{\"columns\":[\"a\",\"r\",\"b\"],\"data\":[{\"graph\":{\"nodes\":[" +
+            "{\"id\":\"1\",\"labels\":[\"Person\"],\"properties\":{\"name\":\"Ann\",\"tags\":[\"a\",\"b\"]," +
+            "\"address\":{\"city\":\"Sydney\"}}}," +
+            "{\"properties\":{\"name\":\"Bob\",\"age\":40},\"id\":\"2\",\"labels\":[\"Person\"]}," +
+            "{\"id\":\"3\",\"labels\":[],\"properties\":{}}],\"relationships\":[" +
+            "{\"id\":\"5\",\"type\":\"KNOWS\",\"startNode\":\"1\",\"endNode\":\"2\",\"properties\":{\"since\":2010}}" +
+            "]}}]}],\"errors\":[]}";
+
+    @Test
+    public void testGraphPropertiesAreDecodedOnFirstUse() throws IOException
+    {
+        Graph graph = decodeGraph(true);
+
+        Map<String, Object> ann = graph.getNode(1).getProperties();
+        assertTrue(ann instanceof LazyProperties);
+        assertTrue(graph.getNode(2).getProperties() instanceof LazyProperties);
+        assertTrue(graph.getRelationship(5).getProperties() instanceof LazyProperties);
+        assertEquals("Ann", ann.get("name"));
+        assertEquals(Arrays.asList("a", "b"), ann.get("tags"));
+        assertEquals(Collections.singletonMap("city", "Sydney"), ann.get("address"));
+        assertEquals(2010, graph.getRelationship(5).getProperties().get("since"));
+    }
+
+    @Test
+    public void testLazyPropertiesEqualEagerProperties() throws IOException
+    {
+        Graph lazy = decodeGraph(true);
+        Graph eager = decodeGraph(false);
+
+        assertFalse(eager.getNode(1).getProperties() instanceof LazyProperties);
+        for (long id = 1; id <= 3; id++)
+        {
+            Map<String, Object> properties = lazy.getNode(id).getProperties();
+            assertEquals(eager.getNode(id).getProperties(), properties);
+            assertEquals(properties, eager.getNode(id).getProperties());
+            assertEquals(eager.getNode(id).getProperties().hashCode(), properties.hashCode());
+        }
+        assertEquals(eager.getRelationship(5).getProperties(), lazy.getRelationship(5).getProperties());
+        assertTrue(lazy.getNode(3).getProperties().isEmpty());
+    }
+
+    @Test
+    public void testMapsInRowsAreLazy() throws IOException
+    {
+        String response = "{\"results\":[{\"columns\":[\"map\",\"list\",\"name\"],\"data\":[" +
+                          "{\"row\":[{\"name\":\"Ann\",\"scores\":[1,2]},[1,2],\"Ann\"]}," +
+                          "{\"row\":[null,[],\"Bob\"]}]}],\"errors\":[]}";
+        RowStatement statement = new RowStatement("MATCH (p) RETURN p, p.scores, p.name");
+        statement.setLazyProperties(true);
+
+        RowSet rows = (RowSet) decode(response, statement).getResult(0);
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> map = (Map<String, Object>) rows.getObject(0);
+        assertTrue(map instanceof LazyProperties);
+        assertEquals(Arrays.asList(1, 2), map.get("scores"));
+        assertEquals(Arrays.asList(1, 2), rows.getObject(1));
+        assertEquals("Ann", rows.getString(2));
+        rows.next();
+        assertTrue(rows.isNull(0));
+        assertEquals("Bob", rows.getString(2));
+    }
+
+    @Test
+    public void testConcurrentFirstUseDecodesOnce() throws Exception
+    {
+        Map<String, Object> properties = decodeGraph(true).getNode(1).getProperties();
+        CountDownLatch start = new CountDownLatch(1);
+        List<CompletableFuture<Object>> reads = Arrays.asList(read(properties, start), read(properties, start),
+                                                              read(properties, start), read(properties, start));
+        start.countDown();
+
+        for (CompletableFuture<Object> read : reads)
+        {
+            assertEquals("Ann", read.get());
+        }
+        assertEquals(3, properties.size());
+    }
+
+    private static CompletableFuture<Object> read(Map<String, Object> properties, CountDownLatch start)
+    {
+        return CompletableFuture.supplyAsync(() -> {
+            try
+            {
+                start.await();
+            }
+            catch (InterruptedException e)
+            {
+                throw new RuntimeException(e);
+            }
+            return properties.get("name");
+        });
+    }
+
+    private static Graph decodeGraph(boolean lazy) throws IOException
+    {
+        GraphStatement statement = new GraphStatement("MATCH (a)-[r]->(b) RETURN a, r, b");
+        statement.setLazyProperties(lazy);
+        return (Graph) decode(GRAPH, statement).getResult(0);
+    }
+
+    private static ExecutionResult decode(String response, Statement statement) throws IOException
+    {
+        return new TransactionResponseDecoder(Collections.singletonList(statement))
+                .decode(new ByteArrayInputStream(response.getBytes(StandardCharsets.UTF_8)));
+    }
+}
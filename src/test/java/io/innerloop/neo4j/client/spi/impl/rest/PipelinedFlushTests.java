@@ -0,0 +1,110 @@
+package io.innerloop.neo4j.client.spi.impl.rest;
+
+import io.innerloop.neo4j.client.Connection;
+import io.innerloop.neo4j.client.Neo4jServerException;
+import io.innerloop.neo4j.client.RowStatement;
+import io.innerloop.neo4j.client.spi.impl.rest.http.HttpClient;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class PipelinedFlushTests
+{
+    private FakeTransactionServer server;
+
+    private HttpClient client;
+
+    private Connection connection;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        server = new FakeTransactionServer();
+        client = new HttpClient();
+        connection = new RestConnectionImpl(client, server.getUrl());
+        connection.setPipelined(true);
+    }
+
+    @After
+    public void tearDown()
+    {
+        connection.close();
+        client.close();
+        server.close();
+    }
+
+    @Test
+    public void testResultsArriveWithTheNextFlush()
+    {
+        RowStatement first = add("CREATE (n) RETURN 1");
+        connection.flush();
+        assertEquals(1, first.getResult().getLong(0));
+
+        RowStatement second = add("CREATE (n) RETURN 1");
+        connection.flush();
+        assertNull(second.getResult());
+
+        connection.commit();
+        assertEquals(1, second.getResult().getLong(0));
+        assertEquals(3, server.getRequests().size());
+        assertTrue(server.getRequests().get(2).startsWith("POST /db/data/transaction/1/commit"));
+    }
+
+    @Test
+    public void testFailedBatchIsReportedByTheFlushThatSendsItsSuccessor()
+    {
+        add("CREATE (n) RETURN 1");
+        connection.flush();
+
+        add("FAIL");
+        connection.flush();
+
+        add("CREATE (m) RETURN 1");
+        try
+        {
+            connection.flush();
+            fail("The failed batch was not reported.");
+        }
+        catch (Neo4jServerException expected)
+        {
+            assertEquals("Neo.ClientError.Statement.InvalidSyntax", expected.getCode());
+        }
+
+        // rolling back waits for the batch after the failed one, which was still sent to the dead transaction.
+        connection.rollback();
+        List<String> requests = server.getRequests();
+        assertEquals(4, requests.size());
+        assertTrue(requests.get(2).contains("CREATE (m)"));
+        assertEquals("DELETE /db/data/transaction/1 ", requests.get(3));
+    }
+
+    @Test
+    public void testFirstFlushIsNotPipelined()
+    {
+        add("FAIL");
+        try
+        {
+            connection.flush();
+            fail("The first flush must wait for its results.");
+        }
+        catch (Neo4jServerException expected)
+        {
+            assertEquals(1, server.getRequests().size());
+        }
+    }
+
+    private RowStatement add(String query)
+    {
+        RowStatement statement = new RowStatement(query);
+        connection.add(statement);
+        return statement;
+    }
+}
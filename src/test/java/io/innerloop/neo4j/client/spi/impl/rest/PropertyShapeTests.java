@@ -0,0 +1,116 @@
+package io.innerloop.neo4j.client.spi.impl.rest;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class PropertyShapeTests
+{
+    private final PropertyDecoder decoder = new PropertyDecoder(null);
+
+    @Test
+    public void testAddingTheSameKeysReusesTheShape()
+    {
+        PropertyShape root = new PropertyShape();
+        PropertyShape ab = root.with("a").with("b");
+
+        assertSame(ab, root.with("a").with("b"));
+        assertEquals(2, ab.size());
+        assertEquals("b", ab.key(1));
+        assertEquals(1, ab.indexOf("b"));
+        assertEquals(-1, ab.indexOf("c"));
+        assertEquals(-1, root.with("b").indexOf("a"));
+    }
+
+    @Test
+    public void testWideShapesAreIndexed()
+    {
+        PropertyShape shape = new PropertyShape();
+        for (int i = 0; i < 20; i++)
+        {
+            shape = shape.with("key" + i);
+        }
+
+        assertEquals(20, shape.size());
+        assertEquals(13, shape.indexOf("key13"));
+        assertEquals(-1, shape.indexOf("key20"));
+        assertEquals(-1, shape.indexOf(42));
+    }
+
+    @Test
+    public void testShapedPropertiesBehaveLikeAHashMap() throws IOException
+    {
+        Map<String, Object> properties = decode("{\"name\":\"Ann\",\"age\":31,\"nick\":null}");
+        Map<String, Object> expected = new HashMap<>();
+        expected.put("name", "Ann");
+        expected.put("age", 31);
+        expected.put("nick", null);
+
+        assertTrue(properties instanceof ShapedProperties);
+        assertEquals(expected, properties);
+        assertEquals(properties, expected);
+        assertEquals(expected.hashCode(), properties.hashCode());
+        assertEquals(3, properties.size());
+        assertTrue(properties.containsKey("nick"));
+        assertFalse(properties.containsKey("missing"));
+        assertNull(properties.get("missing"));
+        assertEquals(expected.entrySet(), properties.entrySet());
+
+        List<String> keys = new ArrayList<>();
+        properties.forEach((key, value) -> keys.add(key));
+        assertEquals("[name, age, nick]", keys.toString());
+    }
+
+    @Test
+    public void testPropertiesAreReadOnly() throws IOException
+    {
+        Map<String, Object> properties = decode("{\"name\":\"Ann\"}");
+        try
+        {
+            properties.put("name", "Bob");
+            fail("Property maps must be read only.");
+        }
+        catch (UnsupportedOperationException expected)
+        {
+            assertEquals("Ann", properties.get("name"));
+        }
+    }
+
+    @Test
+    public void testRepeatedKeyReplacesTheEarlierValue() throws IOException
+    {
+        Map<String, Object> properties = decode("{\"name\":\"Ann\",\"age\":31,\"name\":\"Bob\"}");
+
+        assertEquals(2, properties.size());
+        assertEquals("Bob", properties.get("name"));
+    }
+
+    @Test
+    public void testNullAndEmptyShareTheEmptyMap() throws IOException
+    {
+        assertSame(decoder.empty(), decode("null"));
+        assertSame(decoder.empty(), decode("{}"));
+        assertTrue(decoder.empty().isEmpty());
+    }
+
+    private Map<String, Object> decode(String json) throws IOException
+    {
+        return decoder.read(reader(json));
+    }
+
+    private static JsonStreamReader reader(String json)
+    {
+        return new JsonStreamReader(json.toCharArray(), null);
+    }
+}
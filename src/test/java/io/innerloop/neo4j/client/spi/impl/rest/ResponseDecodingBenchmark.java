@@ -0,0 +1,252 @@
+package io.innerloop.neo4j.client.spi.impl.rest;
+
+import io.innerloop.neo4j.client.Graph;
+import io.innerloop.neo4j.client.GraphStatement;
+import io.innerloop.neo4j.client.Node;
+import io.innerloop.neo4j.client.Relationship;
+import io.innerloop.neo4j.client.RowSet;
+import io.innerloop.neo4j.client.RowStatement;
+import io.innerloop.neo4j.client.Statement;
+import io.innerloop.neo4j.client.spi.impl.rest.json.JSONArray;
+import io.innerloop.neo4j.client.spi.impl.rest.json.JSONObject;
+import io.innerloop.neo4j.client.spi.impl.rest.json.JSONTokener;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares decoding a transactional response through a JSONObject tree, as the client used to, against the single pass
+ * TransactionResponseDecoder.
+ * <p>
+ * This is a benchmark, not a test. It has no JUnit tests, so the build never runs it, and it only reports timings and
+ * allocations on System.out. It lives in the test tree because it needs the old JSONObject based decoding and the
+ * package private decoder classes, none of which ship in the jar. The decoder's behaviour is covered by
+ * TransactionResponseDecoderTests.
+ * <p>
+ * Run with: <code>java -cp ... io.innerloop.neo4j.client.spi.impl.rest.ResponseDecodingBenchmark [rows] [iterations]</code>
+ */
+public class ResponseDecodingBenchmark
+{
+    private static final SymbolTable SYMBOLS = new SymbolTable(4096);
+
+    public static void main(String[] args) throws IOException
+    {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+
+        byte[] response = response(rows).getBytes(StandardCharsets.UTF_8);
+        List<Statement> statements = Arrays.asList(new RowStatement("rows"), new GraphStatement("graph"));
+
+        System.out.printf("Response size: %,d bytes (%,d rows, %,d graph entries)%n", response.length, rows, rows);
+
+        for (int i = 0; i < 5; i++)
+        {
+            tree(response);
+            streaming(response, statements);
+        }
+
+        measure("JSONObject tree", iterations, () -> tree(response));
+        measure("Single pass decoder", iterations, () -> streaming(response, statements));
+    }
+
+    private static void measure(String name, int iterations, Decode decode) throws IOException
+    {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+
+        long bestNanos = Long.MAX_VALUE;
+        long totalBytes = 0;
+
+        for (int i = 0; i < iterations; i++)
+        {
+            long bytes = threads.getThreadAllocatedBytes(thread);
+            long start = System.nanoTime();
+            decode.run();
+            bestNanos = Math.min(bestNanos, System.nanoTime() - start);
+            totalBytes += threads.getThreadAllocatedBytes(thread) - bytes;
+        }
+
+        System.out.printf("%-20s best %8.2f ms, %,14d bytes allocated per response%n",
+                          name,
+                          bestNanos / 1e6,
+                          totalBytes / iterations);
+    }
+
+    private static Object streaming(byte[] response, List<Statement> statements) throws IOException
+    {
+        TransactionResponseDecoder decoder = new TransactionResponseDecoder(statements, SYMBOLS);
+        ExecutionResult result = decoder.decode(new ByteArrayInputStream(response));
+        RowSet rowSet = (RowSet) result.getResult(0);
+        Graph graph = (Graph) result.getResult(1);
+        return rowSet.getColumnNames().length + graph.getNodes().size();
+    }
+
+    private static Object tree(byte[] response)
+    {
+        JSONObject json = new JSONObject(new JSONTokener(new ByteArrayInputStream(response)));
+        JSONArray results = json.getJSONArray("results");
+        RowSet rowSet = buildRowSet(results.getJSONObject(0));
+        Graph graph = buildGraph(results.getJSONObject(1));
+        return rowSet.getColumnNames().length + graph.getNodes().size();
+    }
+
+    private static String response(int rows)
+    {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\"commit\":\"http://localhost:7474/db/data/transaction/1/commit\",\"results\":[");
+        sb.append("{\"columns\":[\"id\",\"name\",\"score\",\"active\",\"props\"],\"data\":[");
+        for (int i = 0; i < rows; i++)
+        {
+            if (i > 0)
+            {
+                sb.append(',');
+            }
+            sb.append("{\"row\":[").append(i).append(",\"name-").append(i).append("\",").append(i * 0.5)
+                    .append(',').append(i % 2 == 0).append(",{\"email\":\"user").append(i)
+                    .append("@example.com\",\"age\":").append(i % 90).append("}]}");
+        }
+        sb.append("]},{\"columns\":[\"a\",\"r\",\"b\"],\"data\":[");
+        for (int i = 0; i < rows; i++)
+        {
+            if (i > 0)
+            {
+                sb.append(',');
+            }
+            sb.append("{\"graph\":{\"nodes\":[").append(node(i)).append(',').append(node(i + 1))
+                    .append("],\"relationships\":[{\"id\":\"").append(i)
+                    .append("\",\"type\":\"KNOWS\",\"startNode\":\"").append(i).append("\",\"endNode\":\"")
+                    .append(i + 1).append("\",\"properties\":{\"since\":").append(1990 + i % 30).append("}}]}}");
+        }
+        sb.append("]}],\"transaction\":{\"expires\":\"Sat, 17 Oct 2026 18:44:10 +0000\"},\"errors\":[]}");
+        return sb.toString();
+    }
+
+    private static String node(int id)
+    {
+        return "{\"id\":\"" + id + "\",\"labels\":[\"Person\"],\"properties\":{\"name\":\"person-" + id +
+               "\",\"age\":" + (id % 90) + ",\"tags\":[\"a\",\"b\"]}}";
+    }
+
+    // The tree based decoding the client used before TransactionResponseDecoder.
+
+    private static RowSet buildRowSet(JSONObject result)
+    {
+        JSONArray columnNamesJson = result.getJSONArray("columns");
+        int columnsLength = columnNamesJson.length();
+        String[] columnNames = new String[columnsLength];
+
+        for (int i = 0; i < columnsLength; i++)
+        {
+            columnNames[i] = columnNamesJson.getString(i);
+        }
+
+        List<Object[]> rows = new ArrayList<>();
+        JSONArray data = result.getJSONArray("data");
+
+        for (int i = 0; i < data.length(); i++)
+        {
+            JSONArray row = data.getJSONObject(i).getJSONArray("row");
+            Object[] r = new Object[columnsLength];
+            rows.add(r);
+
+            for (int j = 0; j < row.length(); j++)
+            {
+                JSONObject jsonObject = row.optJSONObject(j);
+                r[j] = jsonObject != null ? toMap(jsonObject) : row.opt(j);
+            }
+        }
+
+        return new RowSet(columnNames, rows);
+    }
+
+    private static Graph buildGraph(JSONObject result)
+    {
+        Map<Long, Node> seenNodes = new HashMap<>();
+        Map<Long, Relationship> seenRelationships = new HashMap<>();
+        JSONArray data = result.getJSONArray("data");
+
+        for (int i = 0; i < data.length(); i++)
+        {
+            JSONObject graph = data.getJSONObject(i).getJSONObject("graph");
+            JSONArray nodes = graph.getJSONArray("nodes");
+
+            for (int j = 0; j < nodes.length(); j++)
+            {
+                JSONObject node = nodes.getJSONObject(j);
+                long id = node.getLong("id");
+                if (seenNodes.containsKey(id))
+                {
+                    continue;
+                }
+
+                JSONArray labels = node.getJSONArray("labels");
+                String[] ls = new String[labels.length()];
+                for (int k = 0; k < ls.length; k++)
+                {
+                    ls[k] = labels.getString(k);
+                }
+                seenNodes.put(id, new Node(id, ls, toMap(node.getJSONObject("properties"))));
+            }
+
+            JSONArray relationships = graph.getJSONArray("relationships");
+
+            for (int j = 0; j < relationships.length(); j++)
+            {
+                JSONObject relationship = relationships.getJSONObject(j);
+                Relationship r = new Relationship(relationship.getLong("id"),
+                                                  relationship.getString("type"),
+                                                  relationship.getLong("startNode"),
+                                                  relationship.getLong("endNode"),
+                                                  toMap(relationship.getJSONObject("properties")));
+                seenRelationships.put(r.getId(), r);
+            }
+        }
+
+        return new Graph(new HashSet<>(seenNodes.values()), new HashSet<>(seenRelationships.values()));
+    }
+
+    private static Map<String, Object> toMap(JSONObject object)
+    {
+        Map<String, Object> map = new HashMap<>();
+        Iterator<String> keys = object.keys();
+        while (keys.hasNext())
+        {
+            String key = keys.next();
+            map.put(key, toJava(object.get(key)));
+        }
+        return map;
+    }
+
+    private static Object toJava(Object value)
+    {
+        if (value instanceof JSONArray)
+        {
+            JSONArray array = (JSONArray) value;
+            List<Object> list = new ArrayList<>();
+            for (int i = 0; i < array.length(); i++)
+            {
+                list.add(toJava(array.get(i)));
+            }
+            return list;
+        }
+        if (value instanceof JSONObject)
+        {
+            return toMap((JSONObject) value);
+        }
+        return value;
+    }
+
+    private interface Decode
+    {
+        Object run() throws IOException;
+    }
+}
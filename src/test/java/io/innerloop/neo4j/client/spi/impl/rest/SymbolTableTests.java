@@ -0,0 +1,83 @@
+package io.innerloop.neo4j.client.spi.impl.rest;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class SymbolTableTests
+{
+    @Test
+    public void testRepeatedSymbolsAreTheSameInstance()
+    {
+        SymbolTable symbols = new SymbolTable(64);
+        char[] buffer = "xxPersonxx".toCharArray();
+
+        String first = symbols.intern(buffer, 2, 6);
+        assertEquals("Person", first);
+        assertSame(first, symbols.intern(buffer, 2, 6));
+        assertSame(first, symbols.intern(new String("Person")));
+        assertSame(first, symbols.intern("[Person]".toCharArray(), 1, 6));
+    }
+
+    @Test
+    public void testStringsAndCharactersShareTheTable()
+    {
+        SymbolTable symbols = new SymbolTable(64);
+        String name = new String("name");
+
+        assertSame(name, symbols.intern(name));
+        assertSame(name, symbols.intern("name".toCharArray(), 0, 4));
+        assertEquals("", symbols.intern(new char[0], 0, 0));
+    }
+
+    @Test
+    public void testLongStringsAreNotCached()
+    {
+        SymbolTable symbols = new SymbolTable(64);
+        String text = new String(new char[65]).replace('\0', 'a');
+        char[] chars = text.toCharArray();
+
+        assertSame(text, symbols.intern(text));
+        assertNotSame(text, symbols.intern(new String(text)));
+        String decoded = symbols.intern(chars, 0, chars.length);
+        assertEquals(text, decoded);
+        assertNotSame(decoded, symbols.intern(chars, 0, chars.length));
+
+        String longest = text.substring(1);
+        assertSame(longest, symbols.intern(longest));
+        assertSame(longest, symbols.intern(chars, 1, 64));
+    }
+
+    @Test
+    public void testTheTableIsBounded()
+    {
+        SymbolTable symbols = new SymbolTable(16);
+        String first = symbols.intern(new String("key0"));
+        for (int i = 1; i < 1000; i++)
+        {
+            symbols.intern("key" + i);
+        }
+
+        // 1000 keys can't all fit in 16 slots, so the first has been replaced by a newer one.
+        String again = new String("key0");
+        assertSame(again, symbols.intern(again));
+        assertNotSame(first, again);
+        assertSame(again, symbols.intern("key0".toCharArray(), 0, 4));
+    }
+
+    @Test
+    public void testKeysAreSharedAcrossDecoders() throws Exception
+    {
+        SymbolTable symbols = new SymbolTable(64);
+        PropertyDecoder first = new PropertyDecoder(symbols);
+        PropertyDecoder second = new PropertyDecoder(symbols);
+
+        String key = first.read(new JsonStreamReader("{\"email\":1}".toCharArray(), symbols)).keySet().iterator()
+                          .next();
+        String other = second.read(new JsonStreamReader("{\"email\":2}".toCharArray(), symbols)).keySet().iterator()
+                             .next();
+        assertSame(key, other);
+    }
+}
@@ -0,0 +1,134 @@
+package io.innerloop.neo4j.client.spi.impl.rest;
+
+import io.innerloop.neo4j.client.RowStatement;
+import io.innerloop.neo4j.client.spi.impl.rest.http.HttpClient;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TransactionKeepAliveTests
+{
+    private static final String KEEP_ALIVE = "POST /db/data/transaction/1 {\"statements\":[]}";
+
+    private FakeTransactionServer server;
+
+    private HttpClient client;
+
+    private TransactionKeepAlive keepAlive;
+
+    private RestConnectionImpl connection;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        server = new FakeTransactionServer();
+        // every transaction expires within a second, so a margin of a second makes keep-alives due straight away.
+        server.setExpirySeconds(1);
+        client = new HttpClient();
+        keepAlive = new TransactionKeepAlive();
+        connection = new RestConnectionImpl(client, server.getUrl(), keepAlive, null);
+    }
+
+    @After
+    public void tearDown()
+    {
+        connection.close();
+        keepAlive.close();
+        client.close();
+        server.close();
+    }
+
+    @Test
+    public void testOpenTransactionIsKeptAlive() throws InterruptedException
+    {
+        keepAlive.enable(1, 60, TimeUnit.SECONDS);
+        flush();
+
+        assertTrue(awaitKeepAlive());
+    }
+
+    @Test
+    public void testNothingIsSentWhileDisabled() throws InterruptedException
+    {
+        flush();
+        Thread.sleep(300);
+
+        assertFalse(server.getRequests().contains(KEEP_ALIVE));
+    }
+
+    @Test
+    public void testDisablingStopsScheduledKeepAlives() throws InterruptedException
+    {
+        keepAlive.enable(200, 60000, TimeUnit.MILLISECONDS);
+        flush();
+        keepAlive.disable();
+        Thread.sleep(1200);
+
+        assertFalse(server.getRequests().contains(KEEP_ALIVE));
+    }
+
+    @Test
+    public void testChangingTheSettingsKeepsOpenTransactionsWorking() throws InterruptedException
+    {
+        keepAlive.enable(0, 60, TimeUnit.SECONDS);
+        flush();
+        keepAlive.enable(1, 60, TimeUnit.SECONDS);
+        flush();
+
+        assertTrue(awaitKeepAlive());
+        connection.commit();
+    }
+
+    @Test
+    public void testClosingWithATransactionOpenDoesNotFailFlushes()
+    {
+        keepAlive.enable(1, 60, TimeUnit.SECONDS);
+        flush();
+        keepAlive.close();
+
+        // the server applies this flush, so it must not be reported as a failure.
+        flush();
+        connection.commit();
+        assertFalse(keepAlive.isEnabled());
+        assertNull(keepAlive.retry(connection));
+    }
+
+    @Test
+    public void testIdleConnectionsAreLeftToExpire() throws InterruptedException
+    {
+        keepAlive.enable(1000, 0, TimeUnit.MILLISECONDS);
+        flush();
+        Thread.sleep(300);
+
+        assertFalse(server.getRequests().contains(KEEP_ALIVE));
+        assertEquals(0, keepAlive.getMaxIdleMillis());
+    }
+
+    private void flush()
+    {
+        connection.add(new RowStatement("CREATE (n) RETURN 1"));
+        connection.flush();
+    }
+
+    private boolean awaitKeepAlive() throws InterruptedException
+    {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (System.currentTimeMillis() < deadline)
+        {
+            if (server.getRequests().contains(KEEP_ALIVE))
+            {
+                return true;
+            }
+            Thread.sleep(20);
+        }
+        return false;
+    }
+}
@@ -0,0 +1,203 @@
+package io.innerloop.neo4j.client.spi.impl.rest;
+
+import io.innerloop.neo4j.client.DoubleList;
+import io.innerloop.neo4j.client.Graph;
+import io.innerloop.neo4j.client.GraphStatement;
+import io.innerloop.neo4j.client.LongList;
+import io.innerloop.neo4j.client.Neo4jServerException;
+import io.innerloop.neo4j.client.Node;
+import io.innerloop.neo4j.client.Relationship;
+import io.innerloop.neo4j.client.RowSet;
+import io.innerloop.neo4j.client.RowStatement;
+import io.innerloop.neo4j.client.Statement;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TransactionResponseDecoderTests
+{
+    @Test
+    public void testRowsAreDecodedIntoColumns() throws IOException
+    {
+        String response = "{\"commit\":\"http://localhost:7474/db/data/transaction/7/commit\"," +
+                          "\"results\":[{\"columns\":[\"name\",\"age\",\"score\",\"active\"],\"data\":[" +
+                          "{\"row\":[\"Ann\",31,1.5,true]},{\"row\":[\"Bob\",null,2.5,false]}]}]," +
+                          "\"transaction\":{\"expires\":\"Mon, 05 Oct 2015 10:00:00 +0000\"},\"errors\":[]}";
+
+        ExecutionResult result = decode(response, new RowStatement("MATCH (p) RETURN p.name, p.age"));
+
+        assertEquals("http://localhost:7474/db/data/transaction/7/commit", result.getCommit());
+        assertEquals("Mon, 05 Oct 2015 10:00:00 +0000", result.getExpires());
+        assertEquals(0, result.getErrors().length);
+
+        RowSet rows = (RowSet) result.getResult(0);
+        assertArrayEquals(new String[] {"name", "age", "score", "active"}, rows.getColumnNames());
+        assertEquals(2, rows.getRowCount());
+        assertEquals("Ann", rows.getString(0));
+        assertEquals(31L, rows.getLong(1));
+        assertEquals(1.5, rows.getDouble(2), 0);
+        assertTrue(rows.getBoolean(3));
+        rows.next();
+        assertEquals("Bob", rows.getString(0));
+        assertTrue(rows.isNull(1));
+        assertEquals(2.5, rows.getDouble(2), 0);
+        assertFalse(rows.getBoolean(3));
+    }
+
+    @Test
+    public void testNestedListsAndMapsInRows() throws IOException
+    {
+        String response = "{\"results\":[{\"columns\":[\"list\",\"map\"],\"data\":[{\"row\":[" +
+                          "[1,2,3],{\"name\":\"Ann\",\"tags\":[\"a\",\"b\"],\"address\":{\"city\":\"Sydney\"}}" +
+                          "]}]}],\"errors\":[]}";
+
+        RowSet rows = (RowSet) decode(response, new RowStatement("RETURN [1,2,3], {...}")).getResult(0);
+
+        assertEquals(Arrays.asList(1, 2, 3), rows.getObject(0));
+        @SuppressWarnings("unchecked")
+        Map<String, Object> map = (Map<String, Object>) rows.getObject(1);
+        assertEquals("Ann", map.get("name"));
+        assertEquals(Arrays.asList("a", "b"), map.get("tags"));
+        assertEquals(Collections.singletonMap("city", "Sydney"), map.get("address"));
+    }
+
+    @Test
+    public void testNumberArraysKeepTheirBoxedTypes() throws IOException
+    {
+        String response = "{\"results\":[{\"columns\":[\"ints\",\"floats\",\"mixed\",\"other\"],\"data\":[" +
+                          "{\"row\":[[1,5000000000],[1.5,2.0],[1,2.5,3],[1,\"a\"]]}]}],\"errors\":[]}";
+
+        RowSet rows = (RowSet) decode(response, new RowStatement("RETURN ...")).getResult(0);
+
+        LongList ints = (LongList) rows.getObject(0);
+        assertEquals(Arrays.asList(1, 5000000000L), ints);
+        assertEquals(Integer.class, ints.get(0).getClass());
+        assertEquals(Long.class, ints.get(1).getClass());
+        assertEquals(Arrays.asList(1.5, 2.0), (DoubleList) rows.getObject(1));
+        // integers among floats are neither widened nor narrowed.
+        List<?> mixed = (List<?>) rows.getObject(2);
+        assertEquals(ArrayList.class, mixed.getClass());
+        assertEquals(Arrays.asList(1, 2.5, 3), mixed);
+        assertEquals(Arrays.asList(1, "a"), rows.getObject(3));
+    }
+
+    @Test
+    public void testGraphIsDecodedWithoutDuplicates() throws IOException
+    {
+        String response = "{\"results\":[{\"columns\":[\"a\",\"r\",\"b\"],\"data\":[" +
+                          "{\"graph\":{\"nodes\":[" + node(1, "Ann") + "," + node(2, "Bob") + "]," +
+                          "\"relationships\":[" + knows(5, 1, 2) + "]}}," +
+                          "{\"graph\":{\"nodes\":[" + node(1, "Ann") + "," + node(3, "Cy") + "]," +
+                          "\"relationships\":[" + knows(6, 1, 3) + "]}}]}],\"errors\":[]}";
+
+        Graph graph = (Graph) decode(response, new GraphStatement("MATCH (a)-[r]->(b) RETURN a, r, b")).getResult(0);
+
+        assertEquals(3, graph.getNodes().size());
+        assertEquals(2, graph.getRelationships().size());
+        Node ann = graph.getNode(1);
+        assertArrayEquals(new String[] {"Person"}, ann.getLabels());
+        assertEquals("Ann", ann.getProperties().get("name"));
+        Relationship knows = graph.getRelationship(6);
+        assertEquals("KNOWS", knows.getType());
+        assertEquals(1, knows.getStartNodeId());
+        assertEquals(3, knows.getEndNodeId());
+        assertEquals(2, knows.getProperties().get("since"));
+    }
+
+    @Test
+    public void testIdAfterTheOtherKeysStillDeduplicates() throws IOException
+    {
+        String response = "{\"results\":[{\"columns\":[\"a\"],\"data\":[" +
+                          "{\"graph\":{\"nodes\":[{\"labels\":[\"Person\"],\"properties\":{\"name\":\"Ann\"},\"id\":\"1\"}]," +
+                          "\"relationships\":[{\"type\":\"KNOWS\",\"properties\":{\"since\":1},\"startNode\":\"1\"," +
+                          "\"endNode\":\"1\",\"id\":\"4\"}]}}," +
+                          "{\"graph\":{\"nodes\":[{\"properties\":{\"name\":\"Changed\"},\"id\":\"1\"}]," +
+                          "\"relationships\":[{\"properties\":{\"since\":2},\"id\":\"4\"}]}}]}],\"errors\":[]}";
+
+        Graph graph = (Graph) decode(response, new GraphStatement("MATCH (a) RETURN a")).getResult(0);
+
+        assertEquals(1, graph.getNodes().size());
+        assertEquals("Ann", graph.getNode(1).getProperties().get("name"));
+        assertArrayEquals(new String[] {"Person"}, graph.getNode(1).getLabels());
+        assertEquals(1, graph.getRelationship(4).getProperties().get("since"));
+        assertEquals("KNOWS", graph.getRelationship(4).getType());
+    }
+
+    @Test
+    public void testEmptyAndMissingProperties() throws IOException
+    {
+        String response = "{\"results\":[{\"columns\":[\"a\"],\"data\":[{\"graph\":{\"nodes\":[" +
+                          "{\"properties\":null,\"id\":\"1\",\"labels\":[]},{\"id\":\"2\"}],\"relationships\":[]}}]}]," +
+                          "\"errors\":[]}";
+
+        Graph graph = (Graph) decode(response, new GraphStatement("MATCH (a) RETURN a")).getResult(0);
+
+        assertTrue(graph.getNode(1).getProperties().isEmpty());
+        assertEquals(0, graph.getNode(1).getLabels().length);
+        assertTrue(graph.getNode(2).getProperties().isEmpty());
+    }
+
+    @Test
+    public void testErrorsAreDecoded() throws IOException
+    {
+        String response = "{\"results\":[],\"errors\":[{\"code\":\"Neo.ClientError.Statement.InvalidSyntax\"," +
+                          "\"message\":\"Invalid input 'X'\",\"stackTrace\":\"...\"}]}";
+
+        ExecutionResult result = decode(response, new RowStatement("MATCHX (n) RETURN n"));
+
+        Neo4jServerException[] errors = result.getErrors();
+        assertEquals(1, errors.length);
+        assertEquals("Neo.ClientError.Statement.InvalidSyntax", errors[0].getCode());
+        assertTrue(errors[0].getMessage().contains("Invalid input 'X'"));
+        assertTrue(result.getResults().isEmpty());
+        assertNull(result.getCommit());
+    }
+
+    @Test
+    public void testResultsAreMatchedToStatementsInOrder() throws IOException
+    {
+        String response = "{\"results\":[{\"columns\":[\"n\"],\"data\":[{\"row\":[1]}]}," +
+                          "{\"columns\":[\"a\"],\"data\":[{\"graph\":{\"nodes\":[" + node(9, "Di") + "]," +
+                          "\"relationships\":[]}}]}],\"errors\":[]}";
+
+        List<Statement> statements = Arrays.asList(new RowStatement("RETURN 1"), new GraphStatement("MATCH (a)"));
+        ExecutionResult result = new TransactionResponseDecoder(statements).decode(stream(response));
+
+        assertEquals(1L, ((RowSet) result.getResult(0)).getLong(0));
+        assertEquals("Di", ((Graph) result.getResult(1)).getNode(9).getProperties().get("name"));
+    }
+
+    private static ExecutionResult decode(String response, Statement statement) throws IOException
+    {
+        return new TransactionResponseDecoder(Collections.singletonList(statement)).decode(stream(response));
+    }
+
+    private static ByteArrayInputStream stream(String response)
+    {
+        return new ByteArrayInputStream(response.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String node(long id, String name)
+    {
+        return "{\"id\":\"" + id + "\",\"labels\":[\"Person\"],\"properties\":{\"name\":\"" + name + "\"}}";
+    }
+
+    private static String knows(long id, long start, long end)
+    {
+        return "{\"id\":\"" + id + "\",\"type\":\"KNOWS\",\"startNode\":\"" + start + "\",\"endNode\":\"" + end +
+               "\",\"properties\":{\"since\":" + (start + end - 2) + "}}";
+    }
+}
@@ -0,0 +1,136 @@
+package io.innerloop.neo4j.client.spi.impl.rest.http;
+
+import io.innerloop.neo4j.client.spi.impl.rest.http.ScriptedServer.Step;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class AsyncHttpTransportTests
+{
+    private final HttpConnectionPool pool = new HttpConnectionPool();
+
+    private AsyncHttpTransport transport;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        transport = new AsyncHttpTransport(pool, 1);
+    }
+
+    @After
+    public void tearDown()
+    {
+        transport.close();
+    }
+
+    @Test
+    public void testStaleConnectionIsRetriedForARetryablePost() throws Exception
+    {
+        try (ScriptedServer server = new ScriptedServer(Step.OK, Step.DROP, Step.OK))
+        {
+            post(server, false).get(5, TimeUnit.SECONDS);
+            assertEquals(200, (int) post(server, true).get(5, TimeUnit.SECONDS));
+
+            assertEquals(3, server.getRequests());
+        }
+    }
+
+    @Test
+    public void testPostIsNotRetriedOnceItWasWritten() throws Exception
+    {
+        try (ScriptedServer server = new ScriptedServer(Step.OK, Step.DROP, Step.OK))
+        {
+            post(server, false).get(5, TimeUnit.SECONDS);
+            try
+            {
+                post(server, false).get(5, TimeUnit.SECONDS);
+                fail("The server may have run the request, so it must not be sent again.");
+            }
+            catch (ExecutionException expected)
+            {
+                // the connection was closed without a response.
+            }
+            assertEquals(2, server.getRequests());
+        }
+    }
+
+    @Test
+    public void testReadTimeoutIsNeverRetried() throws Exception
+    {
+        pool.setReadTimeout(100, TimeUnit.MILLISECONDS);
+        try (ScriptedServer server = new ScriptedServer(Step.OK, Step.STALL, Step.OK))
+        {
+            post(server, true).get(5, TimeUnit.SECONDS);
+            try
+            {
+                post(server, true).get(5, TimeUnit.SECONDS);
+                fail("A read timeout must not be retried.");
+            }
+            catch (ExecutionException expected)
+            {
+                // the server is still working on it.
+            }
+            assertEquals(2, server.getRequests());
+        }
+    }
+
+    @Test
+    public void testHttpsIsSentThroughThePool() throws Exception
+    {
+        pool.setReadTimeout(200, TimeUnit.MILLISECONDS);
+        try (ScriptedServer server = new ScriptedServer())
+        {
+            try
+            {
+                post(server.getUrl().replace("http:", "https:"), false).get(5, TimeUnit.SECONDS);
+                fail("The scripted server can't complete a TLS handshake.");
+            }
+            catch (ExecutionException expected)
+            {
+                assertTrue(expected.getCause() instanceof IOException);
+            }
+            // the request went out on a blocking pooled connection, not a channel of the transport's own.
+            assertEquals(1, pool.getStats().getCreated());
+        }
+    }
+
+    @Test
+    public void testHttpsFailsOnceClosed() throws Exception
+    {
+        transport.close();
+        try
+        {
+            post("https://localhost:7473/db/data/transaction", false).get(5, TimeUnit.SECONDS);
+            fail("A closed transport must not send anything.");
+        }
+        catch (ExecutionException expected)
+        {
+            assertEquals("Connection pool is closed.", expected.getCause().getMessage());
+        }
+        assertEquals(0, pool.getStats().getCreated());
+    }
+
+    private CompletableFuture<Integer> post(ScriptedServer server, boolean retryable) throws IOException
+    {
+        return post(server.getUrl(), retryable);
+    }
+
+    private CompletableFuture<Integer> post(String url, boolean retryable) throws IOException
+    {
+        Request request = new Request(url, pool).setRetryable(retryable);
+        return transport.execute(request,
+                                 "POST",
+                                 Request.fixedLength("{}".getBytes(StandardCharsets.UTF_8)),
+                                 (response, body) -> response.getResponseCode());
+    }
+}
@@ -0,0 +1,101 @@
+package io.innerloop.neo4j.client.spi.impl.rest.http;
+
+import io.innerloop.neo4j.client.spi.impl.rest.http.ScriptedServer.Step;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class RequestTests
+{
+    private final HttpConnectionPool pool = new HttpConnectionPool();
+
+    @Test
+    public void testStaleConnectionIsRetriedForAGet() throws IOException
+    {
+        try (ScriptedServer server = new ScriptedServer(Step.OK, Step.DROP, Step.OK))
+        {
+            new Request(server.getUrl(), pool).getResource();
+            Response response = new Request(server.getUrl(), pool).getResource();
+
+            assertEquals("ok", response.getBody());
+            assertEquals(3, server.getRequests());
+            assertEquals(2, server.getConnections());
+        }
+    }
+
+    @Test
+    public void testPostIsNotRetriedOnceItWasWritten() throws IOException
+    {
+        try (ScriptedServer server = new ScriptedServer(Step.OK, Step.DROP, Step.OK))
+        {
+            new Request(server.getUrl(), pool).postResource();
+            try
+            {
+                new Request(server.getUrl(), pool).setBody("{}").postResource();
+                fail("The server may have run the request, so it must not be sent again.");
+            }
+            catch (IOException expected)
+            {
+                // the connection was closed without a response.
+            }
+            assertEquals(2, server.getRequests());
+        }
+    }
+
+    @Test
+    public void testRetryablePostIsRetried() throws IOException
+    {
+        try (ScriptedServer server = new ScriptedServer(Step.OK, Step.DROP, Step.OK))
+        {
+            new Request(server.getUrl(), pool).postResource();
+            Response response = new Request(server.getUrl(), pool).setRetryable(true).setBody("{}").postResource();
+
+            assertEquals("ok", response.getBody());
+            assertEquals(3, server.getRequests());
+        }
+    }
+
+    @Test
+    public void testReadTimeoutIsNeverRetried() throws IOException
+    {
+        pool.setReadTimeout(100, TimeUnit.MILLISECONDS);
+        try (ScriptedServer server = new ScriptedServer(Step.OK, Step.STALL, Step.OK))
+        {
+            new Request(server.getUrl(), pool).getResource();
+            try
+            {
+                new Request(server.getUrl(), pool).getResource();
+                fail("A read timeout must not be retried.");
+            }
+            catch (SocketTimeoutException expected)
+            {
+                // the server is still working on it.
+            }
+            assertEquals(2, server.getRequests());
+        }
+    }
+
+    @Test
+    public void testExpiredIdleConnectionsAreEvictedOnRelease() throws Exception
+    {
+        pool.setIdleTimeout(50, TimeUnit.MILLISECONDS);
+        try (ScriptedServer server = new ScriptedServer())
+        {
+            URL url = new URL(server.getUrl());
+            PooledConnection a = pool.checkout(url);
+            PooledConnection b = pool.checkout(url);
+            pool.release(a, true);
+            Thread.sleep(100);
+            pool.release(b, true);
+
+            assertEquals(1, pool.getStats().getIdle());
+            assertEquals(1, pool.getStats().getEvicted());
+        }
+    }
+}
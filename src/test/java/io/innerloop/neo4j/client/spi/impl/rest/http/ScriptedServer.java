@@ -0,0 +1,142 @@
+package io.innerloop.neo4j.client.spi.impl.rest.http;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A minimal HTTP server for testing the client's connection handling. Every request it reads takes the next step of
+ * its script: OK answers 200 and keeps the connection open, DROP closes the connection without answering and STALL
+ * holds the connection without answering.
+ */
+class ScriptedServer implements AutoCloseable
+{
+    enum Step
+    {
+        OK, DROP, STALL
+    }
+
+    private final ServerSocket serverSocket;
+
+    private final Deque<Step> script;
+
+    private final AtomicInteger requests;
+
+    private final AtomicInteger connections;
+
+    ScriptedServer(Step... script) throws IOException
+    {
+        this.serverSocket = new ServerSocket(0);
+        this.script = new ArrayDeque<>(Arrays.asList(script));
+        this.requests = new AtomicInteger();
+        this.connections = new AtomicInteger();
+
+        Thread acceptor = new Thread(this::accept, "scripted-server");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    String getUrl()
+    {
+        return "http://localhost:" + serverSocket.getLocalPort() + "/db/data/transaction";
+    }
+
+    int getRequests()
+    {
+        return requests.get();
+    }
+
+    int getConnections()
+    {
+        return connections.get();
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        serverSocket.close();
+    }
+
+    private void accept()
+    {
+        try
+        {
+            while (true)
+            {
+                Socket socket = serverSocket.accept();
+                connections.incrementAndGet();
+                Thread handler = new Thread(() -> serve(socket), "scripted-connection");
+                handler.setDaemon(true);
+                handler.start();
+            }
+        }
+        catch (IOException closed)
+        {
+            // the server was closed.
+        }
+    }
+
+    private void serve(Socket socket)
+    {
+        try (Socket s = socket)
+        {
+            InputStream in = new BufferedInputStream(s.getInputStream());
+            OutputStream out = s.getOutputStream();
+            while (readRequest(in))
+            {
+                requests.incrementAndGet();
+                Step step;
+                synchronized (script)
+                {
+                    step = script.isEmpty() ? Step.OK : script.poll();
+                }
+                if (step == Step.DROP)
+                {
+                    return;
+                }
+                if (step == Step.STALL)
+                {
+                    Thread.sleep(2000);
+                    return;
+                }
+                out.write(("HTTP/1.1 200 OK\r\nContent-Type: text/plain\r\nContent-Length: 2\r\n\r\nok")
+                                  .getBytes(StandardCharsets.US_ASCII));
+                out.flush();
+            }
+        }
+        catch (IOException | InterruptedException e)
+        {
+            // the client went away.
+        }
+    }
+
+    private static boolean readRequest(InputStream in) throws IOException
+    {
+        String line = HttpIO.readLine(in);
+        if (line == null)
+        {
+            return false;
+        }
+        int contentLength = 0;
+        while (!(line = HttpIO.readLine(in)).isEmpty())
+        {
+            if (line.toLowerCase().startsWith("content-length:"))
+            {
+                contentLength = Integer.parseInt(line.substring(15).trim());
+            }
+        }
+        for (int i = 0; i < contentLength; i++)
+        {
+            in.read();
+        }
+        return true;
+    }
+}